@@ -0,0 +1,172 @@
+package com.example.weatherapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Instrumentation;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.weatherapp.model.ForecastSeries;
+import com.example.weatherapp.model.ForecastTimeIndex;
+import com.example.weatherapp.network.ForecastSeriesParser;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * 按脚本滚动预报列表，统计滚动过程中创建行视图的次数
+ * 对比不预创建和空闲时预创建小时行两种情况
+ */
+@RunWith(AndroidJUnit4.class)
+public class ForecastScrollInflationTest {
+    private static final String TAG = "ScrollInflation";
+    private static final int LIST_WIDTH = 1080;
+    private static final int LIST_HEIGHT = 1920;
+    // 每一步滚动的距离，大约是一行的高度
+    private static final int SCROLL_STEP = 120;
+    private static final int FORECAST_ITEMS = 40;
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+    @Test
+    public void warmUpAvoidsInflationWhileScrolling() throws IOException {
+        ScrollResult cold = scrollThrough(0);
+        ScrollResult warm = scrollThrough(DayGroupedForecastAdapter.DEFAULT_WARM_UP_HOUR_ROWS);
+        Log.i(TAG, "Without warm-up: " + cold + "; with warm-up: " + warm);
+
+        // 预创建的行在首屏布局时直接从回收池取出
+        assertTrue(warm.firstScreen < cold.firstScreen);
+        // 第一次滚到底之后，来回滚动只复用回收池中的行
+        assertEquals(0, cold.secondPass);
+        assertEquals(0, warm.secondPass);
+        assertTrue(warm.total() <= cold.total());
+    }
+
+    private ScrollResult scrollThrough(final int warmUpCount) throws IOException {
+        final ForecastTimeIndex index = ForecastTimeIndex.build(forecast());
+        final RecyclerView[] holder = new RecyclerView[1];
+        final DayGroupedForecastAdapter[] adapterHolder = new DayGroupedForecastAdapter[1];
+
+        instrumentation.runOnMainSync(() -> {
+            ContextThemeWrapper context = new ContextThemeWrapper(
+                    instrumentation.getTargetContext(), R.style.AppTheme);
+            RecyclerView recyclerView = new RecyclerView(context);
+            recyclerView.setLayoutManager(new LinearLayoutManager(context));
+            DayGroupedForecastAdapter adapter = new DayGroupedForecastAdapter(context);
+            recyclerView.setAdapter(adapter);
+            adapter.warmUp(recyclerView, warmUpCount);
+            adapter.updateData(index, 0);
+            holder[0] = recyclerView;
+            adapterHolder[0] = adapter;
+        });
+        final RecyclerView recyclerView = holder[0];
+        final DayGroupedForecastAdapter adapter = adapterHolder[0];
+
+        // 等待后台生成的行提交，以及空闲时的预创建完成
+        waitUntil(() -> adapter.getItemCount() > 0);
+        waitUntil(() -> recyclerView.getRecycledViewPool()
+                .getRecycledViewCount(DayGroupedForecastAdapter.VIEW_TYPE_HOUR) >= warmUpCount);
+
+        ScrollResult result = new ScrollResult();
+        final int warmedUp = adapter.getInflationCount();
+        instrumentation.runOnMainSync(() -> layout(recyclerView));
+        result.firstScreen = adapter.getInflationCount() - warmedUp;
+
+        final int beforeScroll = adapter.getInflationCount();
+        instrumentation.runOnMainSync(() -> {
+            scrollToEnd(recyclerView, SCROLL_STEP);
+            scrollToEnd(recyclerView, -SCROLL_STEP);
+        });
+        result.firstPass = adapter.getInflationCount() - beforeScroll;
+
+        final int afterFirstPass = adapter.getInflationCount();
+        instrumentation.runOnMainSync(() -> {
+            scrollToEnd(recyclerView, SCROLL_STEP);
+            scrollToEnd(recyclerView, -SCROLL_STEP);
+        });
+        result.secondPass = adapter.getInflationCount() - afterFirstPass;
+        result.warmedUp = warmedUp;
+        return result;
+    }
+
+    // 列表没有挂到窗口上，手动测量和布局
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(LIST_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(LIST_HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, LIST_WIDTH, LIST_HEIGHT);
+    }
+
+    // 按固定步长一直滚动到列表的一端
+    private static void scrollToEnd(RecyclerView recyclerView, int step) {
+        int direction = step > 0 ? 1 : -1;
+        while (recyclerView.canScrollVertically(direction)) {
+            recyclerView.scrollBy(0, step);
+        }
+    }
+
+    private void waitUntil(Condition condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        final boolean[] done = new boolean[1];
+        while (System.currentTimeMillis() < deadline) {
+            instrumentation.runOnMainSync(() -> done[0] = condition.isMet());
+            if (done[0]) {
+                return;
+            }
+            // 每次空闲只预创建一行，通过空消息让主线程再次进入空闲
+            instrumentation.waitForIdleSync();
+        }
+        throw new AssertionError("Condition not met within 5 s");
+    }
+
+    private interface Condition {
+        boolean isMet();
+    }
+
+    private static class ScrollResult {
+        int warmedUp;
+        int firstScreen;
+        int firstPass;
+        int secondPass;
+
+        int total() {
+            return firstScreen + firstPass + secondPass;
+        }
+
+        @Override
+        public String toString() {
+            return "warmed up " + warmedUp + ", first screen " + firstScreen
+                    + ", first scroll pass " + firstPass + ", second scroll pass " + secondPass;
+        }
+    }
+
+    // 5天、每3小时一条的预报
+    private static ForecastSeries forecast() throws IOException {
+        long start = System.currentTimeMillis() / 1000 / 10800 * 10800;
+        StringBuilder json = new StringBuilder("{\"cod\":\"200\",\"cnt\":")
+                .append(FORECAST_ITEMS).append(",\"list\":[");
+        for (int i = 0; i < FORECAST_ITEMS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"dt\":").append(start + i * 10800L)
+                    .append(",\"main\":{\"temp\":").append(283 + i % 8)
+                    .append(",\"temp_min\":282.0,\"temp_max\":292.0,\"humidity\":60},")
+                    .append("\"weather\":[{\"id\":800,\"main\":\"Clear\",\"description\":\"晴\",\"icon\":\"01d\"}],")
+                    .append("\"pop\":0.1,\"sys\":{\"pod\":\"").append(i % 8 < 4 ? 'd' : 'n').append("\"}}");
+        }
+        json.append("],\"city\":{\"id\":1816670,\"name\":\"北京市\",\"timezone\":28800}}");
+        return ForecastSeriesParser.parse(new JsonReader(new StringReader(json.toString())));
+    }
+}
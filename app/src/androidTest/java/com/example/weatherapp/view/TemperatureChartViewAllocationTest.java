@@ -0,0 +1,71 @@
+package com.example.weatherapp.view;
+
+import static org.junit.Assert.assertEquals;
+
+import android.app.Instrumentation;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.util.Log;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.weatherapp.model.ForecastSeries;
+import com.example.weatherapp.model.ForecastTimeIndex;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * 温度图表onDraw的对象分配次数
+ * 几何数据在设置数据和尺寸变化时预先计算，重复绘制时不应再分配对象
+ */
+@RunWith(AndroidJUnit4.class)
+public class TemperatureChartViewAllocationTest {
+    private static final String TAG = "ChartAllocation";
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 600;
+    private static final int DRAW_COUNT = 100;
+
+    @Test
+    public void onDrawDoesNotAllocate() {
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        final int[] allocations = new int[1];
+        instrumentation.runOnMainSync(() -> {
+            TemperatureChartView chart = new TemperatureChartView(instrumentation.getTargetContext());
+            chart.setTemperatureData(ForecastTimeIndex.build(forecast(), 0), 0);
+            chart.measure(
+                    View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+            chart.layout(0, 0, WIDTH, HEIGHT);
+
+            Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+            // 第一次绘制可能初始化系统内部的缓存，不计入
+            chart.onDraw(canvas);
+
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            for (int i = 0; i < DRAW_COUNT; i++) {
+                chart.onDraw(canvas);
+            }
+            Debug.stopAllocCounting();
+            allocations[0] = Debug.getThreadAllocCount();
+        });
+
+        Log.i(TAG, DRAW_COUNT + " onDraw calls allocated " + allocations[0] + " objects");
+        assertEquals(0, allocations[0]);
+    }
+
+    // 8个3小时时段，温度有升有降，覆盖两种渐变方向
+    private static ForecastSeries forecast() {
+        double[] temps = {283.15, 285.65, 289.15, 291.4, 290.2, 287.0, 284.8, 283.9};
+        ForecastSeries.Builder builder = new ForecastSeries.Builder(temps.length);
+        for (int i = 0; i < temps.length; i++) {
+            int index = builder.add(1714953600L + i * 10800L);
+            builder.setTemperature(index, temps[i]);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.weatherapp;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.weatherapp.model.CurrentWeather;
+import com.example.weatherapp.model.DailySummaries;
+import com.example.weatherapp.model.ForecastTimeIndex;
+import com.example.weatherapp.utils.CityIndex;
+import com.example.weatherapp.utils.ThemeUtils;
+import com.example.weatherapp.viewmodel.CityWeather;
+import com.example.weatherapp.viewmodel.SavedCitiesViewModel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 离线城市搜索页面，输入时在本地索引中按前缀查找，选中的城市通过结果返回给MainActivity
+ * 搜索框为空时显示保存的城市（之前选中过的城市）及其天气，所有城市的当前天气通过group接口批量获取
+ */
+public class CitySearchActivity extends AppCompatActivity {
+    public static final String EXTRA_CITY_NAME = "city_name";
+    public static final String EXTRA_LATITUDE = "latitude";
+    public static final String EXTRA_LONGITUDE = "longitude";
+    // 用户选择恢复使用GPS定位
+    public static final String EXTRA_USE_CURRENT_LOCATION = "use_current_location";
+
+    private static final int MAX_RESULTS = 20;
+
+    private EditText searchEditText;
+    private TextView savedCitiesTitle;
+    private RecyclerView savedCitiesRecyclerView;
+    private RecyclerView resultsRecyclerView;
+    private CityAdapter cityAdapter;
+    private SavedCityAdapter savedCityAdapter;
+    private SavedCitiesViewModel savedCitiesViewModel;
+    // 已观察天气的保存城市，避免重复注册观察者
+    private final Set<Integer> observedCityIds = new HashSet<>();
+    // 索引在后台线程建立，完成前为null
+    private CityIndex cityIndex;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        // 设置主题模式（日/夜间）
+        ThemeUtils.setThemeBasedOnTime(this);
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_city_search);
+
+        searchEditText = findViewById(R.id.city_search_edit_text);
+        Button useCurrentLocationButton = findViewById(R.id.use_current_location_button);
+        savedCitiesTitle = findViewById(R.id.saved_cities_title);
+        savedCitiesRecyclerView = findViewById(R.id.saved_cities_list);
+        resultsRecyclerView = findViewById(R.id.city_search_results);
+
+        cityAdapter = new CityAdapter();
+        resultsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        resultsRecyclerView.setAdapter(cityAdapter);
+
+        savedCityAdapter = new SavedCityAdapter();
+        savedCitiesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        savedCitiesRecyclerView.setAdapter(savedCityAdapter);
+
+        // 保存的城市：每个城市的天气单独到达，到达后只刷新对应的行
+        savedCitiesViewModel = new ViewModelProvider(this).get(SavedCitiesViewModel.class);
+        savedCitiesViewModel.getSavedCityIds().observe(this, this::showSavedCities);
+        if (savedInstanceState == null) {
+            savedCitiesViewModel.fetchSavedCitiesWeather();
+        }
+
+        // 前缀查找在微秒级完成，直接在输入回调中搜索
+        searchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                search(s.toString());
+            }
+        });
+
+        useCurrentLocationButton.setOnClickListener(v -> {
+            Intent result = new Intent();
+            result.putExtra(EXTRA_USE_CURRENT_LOCATION, true);
+            setResult(RESULT_OK, result);
+            finish();
+        });
+
+        // 首次使用时需要读取assets建立索引，放在后台线程
+        new Thread(() -> {
+            final CityIndex index = CityIndex.getInstance(getApplicationContext());
+            runOnUiThread(() -> {
+                cityIndex = index;
+                search(searchEditText.getText().toString());
+            });
+        }, "CityIndexLoader").start();
+    }
+
+    private void search(String query) {
+        updateListVisibility(query);
+        if (cityIndex == null) {
+            return;
+        }
+        cityAdapter.setCities(cityIndex.search(query, MAX_RESULTS));
+    }
+
+    // 搜索框为空且有保存的城市时显示保存的城市，否则显示搜索结果
+    private void updateListVisibility(String query) {
+        boolean showSaved = query.trim().isEmpty() && savedCityAdapter.getItemCount() > 0;
+        savedCitiesTitle.setVisibility(showSaved ? View.VISIBLE : View.GONE);
+        savedCitiesRecyclerView.setVisibility(showSaved ? View.VISIBLE : View.GONE);
+        resultsRecyclerView.setVisibility(showSaved ? View.GONE : View.VISIBLE);
+    }
+
+    private void showSavedCities(List<Integer> cityIds) {
+        savedCityAdapter.setCityIds(cityIds);
+        for (Integer cityId : cityIds) {
+            if (observedCityIds.add(cityId)) {
+                savedCitiesViewModel.getCityWeather(cityId).observe(this, savedCityAdapter::updateCity);
+            }
+        }
+        updateListVisibility(searchEditText.getText().toString());
+    }
+
+    // 返回选中的城市
+    private void selectCity(CityIndex.City city) {
+        selectCity(city.getName(), city.getLatitude(), city.getLongitude());
+    }
+
+    private void selectCity(String cityName, double latitude, double longitude) {
+        Intent result = new Intent();
+        result.putExtra(EXTRA_CITY_NAME, cityName);
+        result.putExtra(EXTRA_LATITUDE, latitude);
+        result.putExtra(EXTRA_LONGITUDE, longitude);
+        setResult(RESULT_OK, result);
+        finish();
+    }
+
+    // 移除保存的城市
+    private void removeSavedCity(int cityId) {
+        observedCityIds.remove(cityId);
+        savedCitiesViewModel.removeCity(cityId);
+    }
+
+    // 搜索结果列表
+    private class CityAdapter extends RecyclerView.Adapter<CityViewHolder> {
+        private List<CityIndex.City> cities = new ArrayList<>();
+
+        void setCities(List<CityIndex.City> cities) {
+            this.cities = cities;
+            notifyDataSetChanged();
+        }
+
+        @NonNull
+        @Override
+        public CityViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.city_search_item, parent, false);
+            return new CityViewHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull CityViewHolder holder, int position) {
+            final CityIndex.City city = cities.get(position);
+            holder.nameTextView.setText(city.getName());
+            holder.detailTextView.setText(city.getLatinName() + " · " + city.getCountry());
+            holder.itemView.setOnClickListener(v -> selectCity(city));
+        }
+
+        @Override
+        public int getItemCount() {
+            return cities.size();
+        }
+    }
+
+    // 保存的城市列表：城市名称和当前天气来自group接口，今天的温度范围来自该城市的预报
+    private class SavedCityAdapter extends RecyclerView.Adapter<CityViewHolder> {
+        private List<Integer> cityIds = new ArrayList<>();
+        // 每个城市的天气和格式化后的显示文本，天气到达时计算一次
+        private final Map<Integer, CityWeather> weatherById = new HashMap<>();
+        private final Map<Integer, String> detailById = new HashMap<>();
+
+        void setCityIds(List<Integer> cityIds) {
+            this.cityIds = cityIds;
+            notifyDataSetChanged();
+        }
+
+        void updateCity(CityWeather cityWeather) {
+            if (cityWeather == null) {
+                return;
+            }
+            weatherById.put(cityWeather.getCityId(), cityWeather);
+            detailById.put(cityWeather.getCityId(), formatDetail(cityWeather));
+            int position = cityIds.indexOf(cityWeather.getCityId());
+            if (position >= 0) {
+                notifyItemChanged(position);
+            }
+        }
+
+        // 当前温度和天气描述，预报到达后加上今天的温度范围
+        private String formatDetail(CityWeather cityWeather) {
+            StringBuilder detail = new StringBuilder();
+            CurrentWeather current = cityWeather.getCurrentWeather();
+            if (current != null && current.getMain() != null) {
+                detail.append(String.format(Locale.getDefault(), "%.1f°C", current.getMain().getTemp() - 273.15));
+                if (current.getWeather() != null && !current.getWeather().isEmpty()) {
+                    detail.append(" · ").append(current.getWeather().get(0).getDescription());
+                }
+            }
+            if (cityWeather.getForecastSeries() != null) {
+                DailySummaries summaries = ForecastTimeIndex.build(cityWeather.getForecastSeries()).getDailySummaries();
+                if (summaries.getDayCount() > 0 && !Double.isNaN(summaries.getMinTemp(0))) {
+                    if (detail.length() > 0) {
+                        detail.append(" · ");
+                    }
+                    detail.append(String.format(Locale.getDefault(), "今天 %.1f° / %.1f°",
+                            summaries.getMinTemp(0) - 273.15, summaries.getMaxTemp(0) - 273.15));
+                }
+            }
+            return detail.toString();
+        }
+
+        @NonNull
+        @Override
+        public CityViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.city_search_item, parent, false);
+            return new CityViewHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull CityViewHolder holder, int position) {
+            final int cityId = cityIds.get(position);
+            CityWeather cityWeather = weatherById.get(cityId);
+            final CurrentWeather current = cityWeather != null ? cityWeather.getCurrentWeather() : null;
+            holder.nameTextView.setText(current != null ? current.getName() : "加载中...");
+            String detail = detailById.get(cityId);
+            holder.detailTextView.setText(detail != null ? detail : "");
+            holder.itemView.setOnClickListener(v -> {
+                // 当前天气到达前还不知道城市的坐标
+                if (current != null && current.getCoord() != null) {
+                    selectCity(current.getName(), current.getCoord().getLat(), current.getCoord().getLon());
+                }
+            });
+            holder.itemView.setOnLongClickListener(v -> {
+                removeSavedCity(cityId);
+                return true;
+            });
+        }
+
+        @Override
+        public int getItemCount() {
+            return cityIds.size();
+        }
+    }
+
+    static class CityViewHolder extends RecyclerView.ViewHolder {
+        final TextView nameTextView;
+        final TextView detailTextView;
+
+        CityViewHolder(View itemView) {
+            super(itemView);
+            nameTextView = itemView.findViewById(R.id.city_search_name);
+            detailTextView = itemView.findViewById(R.id.city_search_detail);
+        }
+    }
+}
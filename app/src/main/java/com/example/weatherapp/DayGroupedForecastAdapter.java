@@ -1,141 +1,309 @@
 package com.example.weatherapp;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
-import com.example.weatherapp.model.ForecastWeather;
+import com.example.weatherapp.model.ForecastTimeIndex;
 import com.example.weatherapp.R;
-import java.util.ArrayList;
-import com.example.weatherapp.ForecastAdapter;
-import java.text.ParseException;
-import java.util.Date;
-import java.util.HashMap;
+import com.example.weatherapp.utils.ImageLoader;
+import com.example.weatherapp.utils.ThemeUtils;
+import com.example.weatherapp.view.TemperatureProgressBar;
+import com.example.weatherapp.viewmodel.ForecastRow;
+import com.example.weatherapp.viewmodel.ForecastRowBuilder;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import com.example.weatherapp.utils.TimeUtils;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 按天分开展示天气预报的适配器
+ * 所有天的标题行和小时预报行放在同一个扁平列表中，共用一个RecyclerView和回收池，
+ * 滚动和布局只处理屏幕上可见的行，开销不随天数增加
+ * 显示行（ForecastRow）在后台线程生成，绑定时只给控件赋值
  */
-public class DayGroupedForecastAdapter extends RecyclerView.Adapter<DayGroupedForecastAdapter.DayGroupViewHolder> {
-    
+public class DayGroupedForecastAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+    private static final String TAG = "DayGroupedForecastAdapter";
+
+    // 行类型：每天的标题行、小时预报行
+    // 使用布局ID作为类型，与ConcatAdapter中其它适配器共用类型空间时不会冲突，预创建的行也可以直接放进回收池
+    static final int VIEW_TYPE_DAY_HEADER = R.layout.day_forecast_header;
+    static final int VIEW_TYPE_HOUR = R.layout.forecast_item;
+
+    // 默认预创建的小时行数量，大约是一屏能显示的小时行数
+    public static final int DEFAULT_WARM_UP_HOUR_ROWS = 8;
+    // 回收池中保留的行数上限：一屏的行数加上快速滚动时同时进出屏幕的余量（默认每种类型只保留5个）
+    private static final int MAX_RECYCLED_HOUR_ROWS = 16;
+    private static final int MAX_RECYCLED_DAY_HEADERS = 4;
+
     private Context context;
-    private Map<String, List<ForecastWeather.ForecastItem>> groupedForecasts = new HashMap<>();
-    private List<String> sortedDates = new ArrayList<>();
-    
+
+    // 创建行视图的次数和累计耗时，用于观察滚动过程中的inflate开销
+    private int inflationCount;
+    private long inflationTimeNanos;
+
+    private static final DiffUtil.ItemCallback<ForecastRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<ForecastRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ForecastRow oldRow, @NonNull ForecastRow newRow) {
+            return oldRow.getKind() == newRow.getKind() && oldRow.getStableId() == newRow.getStableId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ForecastRow oldRow, @NonNull ForecastRow newRow) {
+            return oldRow.hasSameContent(newRow);
+        }
+    };
+
+    // 显示行在这个线程上生成，所有适配器实例共用
+    private static final ExecutorService ROW_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    // 差异在后台线程计算，完成后只通知变化的行
+    private final AsyncListDiffer<ForecastRow> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 每次更新递增，只提交最新一次生成的显示行
+    private int updateGeneration;
+    // 当前显示的行对应的索引
+    private ForecastTimeIndex currentIndex;
+
     public DayGroupedForecastAdapter(Context context) {
         this.context = context;
+        setHasStableIds(true);
     }
-    
+
     /**
-     * 更新天气数据并按天分组
+     * 更新天气数据：在后台线程按天分组并生成显示行，再计算差异，只重新绑定变化的行
+     *
+     * @param index 预报时间索引
+     * @param from  第一条要显示的条目位置，之前的条目已过去
      */
-    public void updateData(List<ForecastWeather.ForecastItem> forecastItems) {
-        groupedForecasts.clear();
-        sortedDates.clear();
-        
-        // 按日期分组
-        for (ForecastWeather.ForecastItem forecast : forecastItems) {
-            try {
-                String dayKey = TimeUtils.extractDate(forecast.getDt_txt());
-                
-                if (!groupedForecasts.containsKey(dayKey)) {
-                    groupedForecasts.put(dayKey, new ArrayList<>());
-                    sortedDates.add(dayKey);
-                }
-                groupedForecasts.get(dayKey).add(forecast);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+    public void updateData(final ForecastTimeIndex index, final int from) {
+        final int generation = ++updateGeneration;
+        ROW_EXECUTOR.execute(() -> {
+            final List<ForecastRow> rows = ForecastRowBuilder.build(index, from);
+            submitRows(generation, index, rows);
+        });
+    }
+
+    /**
+     * 同一份数据中已过去的时段移出列表：只重新生成窗口起点所在的那一天，
+     * 之后各天沿用现有的行，差异计算得到的是移除通知而不是整体重新绑定
+     *
+     * @param index 预报时间索引，需要与当前显示的是同一个
+     * @param from  新的第一条要显示的条目位置
+     */
+    public void advanceTo(final ForecastTimeIndex index, final int from) {
+        if (index != currentIndex) {
+            // 新数据还在生成中或者索引已变化，按新数据处理
+            updateData(index, from);
+            return;
         }
-        
-        notifyDataSetChanged();
+        final int generation = ++updateGeneration;
+        final List<ForecastRow> previousRows = differ.getCurrentList();
+        ROW_EXECUTOR.execute(() -> {
+            final List<ForecastRow> rows = ForecastRowBuilder.advance(previousRows, index, from);
+            submitRows(generation, index, rows);
+        });
     }
-    
-    @NonNull
-    @Override
-    public DayGroupViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(context).inflate(R.layout.day_forecast_group, parent, false);
-        return new DayGroupViewHolder(view);
+
+    // 在主线程提交生成的显示行，生成期间又有新数据时丢弃旧结果
+    private void submitRows(final int generation, final ForecastTimeIndex index, final List<ForecastRow> rows) {
+        mainHandler.post(() -> {
+            if (generation == updateGeneration) {
+                currentIndex = index;
+                differ.submitList(rows);
+            }
+        });
     }
-    
+
     @Override
-    public void onBindViewHolder(@NonNull DayGroupViewHolder holder, int position) {
-        String dateKey = sortedDates.get(position);
-        List<ForecastWeather.ForecastItem> dayForecasts = groupedForecasts.get(dateKey);
-        
-        // 显示日期标题
-        try {
-            // 为了显示星期几，我们需要完整的日期时间字符串，这里我们从当天的第一个预报项中获取
-            if (!dayForecasts.isEmpty()) {
-                String formattedDate = TimeUtils.formatDateWithWeek(dayForecasts.get(0).getDt_txt());
-                holder.dateTitleTextView.setText(formattedDate);
-            } else {
-                holder.dateTitleTextView.setText(dateKey);
-            }
-        } catch (Exception e) {
-            holder.dateTitleTextView.setText(dateKey);
+    public int getItemViewType(int position) {
+        return differ.getCurrentList().get(position).getKind() == ForecastRow.KIND_DAY_HEADER
+                ? VIEW_TYPE_DAY_HEADER : VIEW_TYPE_HOUR;
+    }
+
+    /**
+     * 调整列表回收池的容量，并在主线程空闲时预先创建小时行放入回收池，
+     * 首次显示预报和快速滚动时不再需要临时inflate
+     * 列表需要使用不隔离类型的ConcatAdapter或直接使用本适配器，使回收池中的类型与本适配器一致
+     *
+     * @param recyclerView 显示本适配器的列表
+     * @param warmUpCount  预创建的小时行数量
+     */
+    public void warmUp(final RecyclerView recyclerView, final int warmUpCount) {
+        final RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+        pool.setMaxRecycledViews(VIEW_TYPE_HOUR, Math.max(MAX_RECYCLED_HOUR_ROWS, warmUpCount));
+        pool.setMaxRecycledViews(VIEW_TYPE_DAY_HEADER, MAX_RECYCLED_DAY_HEADERS);
+        if (warmUpCount <= 0) {
+            return;
         }
-        
-        // 计算当天的温度范围
-        if (!dayForecasts.isEmpty()) {
-            double minTemp = Double.MAX_VALUE;
-            double maxTemp = Double.MIN_VALUE;
-            
-            for (ForecastWeather.ForecastItem forecast : dayForecasts) {
-                if (forecast.getMain() != null) {
-                    double tempMin = forecast.getMain().getTemp_min() - 273.15; // 从开尔文转换为摄氏度
-                    double tempMax = forecast.getMain().getTemp_max() - 273.15;
-                    minTemp = Math.min(minTemp, tempMin);
-                    maxTemp = Math.max(maxTemp, tempMax);
+        // 每次空闲只创建一行，避免占用连续的帧时间
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            private int created;
+
+            @Override
+            public boolean queueIdle() {
+                // 回收池里已经有足够的空闲行时不再需要预创建
+                if (pool.getRecycledViewCount(VIEW_TYPE_HOUR) >= warmUpCount) {
+                    return false;
+                }
+                pool.putRecycledView(createViewHolder(recyclerView, VIEW_TYPE_HOUR));
+                created++;
+                if (created >= warmUpCount) {
+                    Log.d(TAG, "Warmed up " + created + " hour rows, " + getInflationStats());
+                    return false;
                 }
+                return true;
             }
-            
-            // 显示温度范围
-            holder.temperatureRangeTextView.setText(String.format("%.1f° / %.1f°", minTemp, maxTemp));
-            
-            // 设置小时预报适配器
-            holder.hourlyForecastAdapter.updateData(dayForecasts);
+        });
+    }
+
+    /**
+     * 获取创建行视图的次数
+     */
+    public int getInflationCount() {
+        return inflationCount;
+    }
+
+    /**
+     * 获取创建行视图的累计耗时（毫秒）
+     */
+    public double getInflationTimeMillis() {
+        return inflationTimeNanos / 1_000_000.0;
+    }
+
+    /**
+     * 获取行视图创建的统计信息，用于日志
+     */
+    public String getInflationStats() {
+        return String.format(Locale.US, "inflated %d rows in %.1f ms", inflationCount, getInflationTimeMillis());
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        long start = System.nanoTime();
+        LayoutInflater inflater = LayoutInflater.from(context);
+        RecyclerView.ViewHolder holder;
+        if (viewType == VIEW_TYPE_DAY_HEADER) {
+            holder = new DayHeaderViewHolder(inflater.inflate(R.layout.day_forecast_header, parent, false));
+        } else {
+            holder = new HourViewHolder(inflater.inflate(R.layout.forecast_item, parent, false));
         }
+        inflationCount++;
+        inflationTimeNanos += System.nanoTime() - start;
+        return holder;
     }
-    
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        ForecastRow row = differ.getCurrentList().get(position);
+        if (holder instanceof DayHeaderViewHolder) {
+            ((DayHeaderViewHolder) holder).bind(row);
+        } else {
+            ((HourViewHolder) holder).bind(row);
+        }
+    }
+
     @Override
     public int getItemCount() {
-        return sortedDates.size();
+        return differ.getCurrentList().size();
     }
-    
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getStableId();
+    }
+
     /**
-     * ViewHolder用于展示按天分好的预报数据
+     * 每天的标题行：日期星期和温度范围
      */
-    public static class DayGroupViewHolder extends RecyclerView.ViewHolder {
+    static class DayHeaderViewHolder extends RecyclerView.ViewHolder {
         TextView dateTitleTextView;
         TextView temperatureRangeTextView;
-        RecyclerView hourlyForecastRecyclerView;
-        ForecastAdapter hourlyForecastAdapter;
-        
-        public DayGroupViewHolder(@NonNull View itemView) {
+
+        DayHeaderViewHolder(@NonNull View itemView) {
             super(itemView);
-            
             dateTitleTextView = itemView.findViewById(R.id.day_group_header);
             temperatureRangeTextView = itemView.findViewById(R.id.day_temp_range);
-            hourlyForecastRecyclerView = itemView.findViewById(R.id.hourly_forecast_recycler_view);
-            
-            // 设置竖向滚动的小时预报RecyclerView
-            LinearLayoutManager layoutManager = new LinearLayoutManager(itemView.getContext(), LinearLayoutManager.VERTICAL, false);
-            hourlyForecastRecyclerView.setLayoutManager(layoutManager);
-            
-            // 允许RecyclerView自适应高度
-            hourlyForecastRecyclerView.setHasFixedSize(false);
-            
-            // 创建适配器并设置
-            hourlyForecastAdapter = new ForecastAdapter(new ArrayList<>());
-            hourlyForecastRecyclerView.setAdapter(hourlyForecastAdapter);
+        }
+
+        void bind(ForecastRow row) {
+            dateTitleTextView.setText(row.getTitle());
+            temperatureRangeTextView.setText(row.getTemperatureText());
+        }
+    }
+
+    /**
+     * 小时预报行，显示内容都已在ForecastRow中准备好
+     */
+    static class HourViewHolder extends RecyclerView.ViewHolder {
+        private TextView forecastTimeTextView;
+        private ImageView forecastIconImageView;
+        private TextView forecastDescriptionTextView;
+        private TextView forecastTemperatureTextView;
+        private TemperatureProgressBar temperatureProgressBar;
+        private TextView minTempLabel;
+        private TextView maxTempLabel;
+        // 图标加载回调每行只创建一次
+        private final ImageLoader.ImageLoadCallback iconLoadCallback;
+
+        HourViewHolder(@NonNull View itemView) {
+            super(itemView);
+            forecastTimeTextView = itemView.findViewById(R.id.forecast_time);
+            forecastIconImageView = itemView.findViewById(R.id.forecast_icon);
+            forecastDescriptionTextView = itemView.findViewById(R.id.forecast_description);
+            forecastTemperatureTextView = itemView.findViewById(R.id.forecast_temperature);
+            temperatureProgressBar = itemView.findViewById(R.id.temperature_progress);
+            minTempLabel = itemView.findViewById(R.id.min_temp_label);
+            maxTempLabel = itemView.findViewById(R.id.max_temp_label);
+            iconLoadCallback = new ImageLoader.ImageLoadCallback() {
+                @Override
+                public void onSuccess() {
+                    // 确保图标颜色在白天模式下正确显示
+                    if (ThemeUtils.isDayTime()) {
+                        // 白天模式 - 确保图标不透明且颜色正确
+                        forecastIconImageView.setColorFilter(null); // 清除任何颜色滤镜
+                    }
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    Log.e(TAG, "Failed to load forecast icon: " + e.getMessage());
+                    onSuccess();
+                }
+            };
+        }
+
+        void bind(ForecastRow row) {
+            forecastTimeTextView.setText(row.getTitle());
+
+            // 设置天气描述和图标（正常加载，会使用缓存）
+            if (row.getIconUrl() != null) {
+                forecastDescriptionTextView.setText(row.getDescription());
+                ImageLoader.getInstance(forecastIconImageView.getContext())
+                        .loadImage(row.getIconUrl(), forecastIconImageView, row.getIconResId(), iconLoadCallback);
+            }
+
+            // 设置温度范围和进度条
+            if (row.getTemperatureText() != null) {
+                forecastTemperatureTextView.setText(row.getTemperatureText());
+                // 渐变的一端使用上条天气的气温数据，另一端使用当条天气的气温数据
+                temperatureProgressBar.setTemperatureData(row.getPreviousTemp(), row.getCurrentTemp(),
+                        row.getScaleMin(), row.getScaleMax());
+                // 最低和最高温度标签，显示当天的温度范围
+                minTempLabel.setText(row.getMinLabel());
+                maxTempLabel.setText(row.getMaxLabel());
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package com.example.weatherapp;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.FrameLayout;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 只有一行的适配器，用于把一个预先创建好的视图放在列表顶部（与其它适配器通过ConcatAdapter拼接）
+ * 视图只创建一次，Activity可以直接持有其中的控件
+ * RecyclerView丢弃旧的行（如移出屏幕后没有进入回收池，或更换适配器）时会再次创建ViewHolder，
+ * 每次都用新的容器包裹头部视图，并先把它从旧容器中移除，避免"child already has a parent"
+ */
+public class FixedHeaderAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+    private final View headerView;
+    private final int viewType;
+
+    /**
+     * @param headerView 头部视图
+     * @param viewType   行类型，与其它适配器共用类型空间时需要唯一，通常使用头部的布局ID
+     */
+    public FixedHeaderAdapter(View headerView, int viewType) {
+        this.headerView = headerView;
+        this.viewType = viewType;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return viewType;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        ViewParent oldContainer = headerView.getParent();
+        if (oldContainer instanceof ViewGroup) {
+            ((ViewGroup) oldContainer).removeView(headerView);
+        }
+        FrameLayout container = new FrameLayout(parent.getContext());
+        container.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        container.addView(headerView);
+        return new RecyclerView.ViewHolder(container) {
+        };
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        // 头部内容由Activity直接更新，这里不需要绑定
+    }
+
+    @Override
+    public int getItemCount() {
+        return 1;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return 0;
+    }
+}
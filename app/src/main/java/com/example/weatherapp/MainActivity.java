@@ -1,11 +1,14 @@
 package com.example.weatherapp;
 
+import androidx.activity.result.ActivityResult;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.core.app.ActivityCompat;
-import androidx.core.widget.NestedScrollView;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.ConcatAdapter;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -37,12 +40,14 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.example.weatherapp.model.CurrentWeather;
-import com.example.weatherapp.model.ForecastWeather;
+import com.example.weatherapp.model.ForecastSeries;
+import com.example.weatherapp.model.ForecastTimeIndex;
+import com.example.weatherapp.viewmodel.DataFreshness;
+import com.example.weatherapp.viewmodel.ForecastWindow;
 import com.example.weatherapp.viewmodel.WeatherViewModel;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -79,11 +84,17 @@ public class MainActivity extends AppCompatActivity {
     private TextView feelsLikeTextView;
     private TextView lastUpdatedTextView;
     private ProgressBar progressBar;
-    private View weatherContentLayout;
     private RecyclerView forecastRecyclerView;
+    // 头部和预报拼接后的适配器，加载时从中移除预报部分
+    private ConcatAdapter contentAdapter;
     private DayGroupedForecastAdapter dayGroupedForecastAdapter;
+    private View temperatureChartCard;
+    // 预报的滚动显示窗口，时段过去后自动移出列表和曲线
+    private ForecastWindow forecastWindow;
     private TemperatureChartView temperatureChartView;
     private PreferencesHelper preferencesHelper;
+    // 城市搜索页面的结果
+    private ActivityResultLauncher<Intent> citySearchLauncher;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -120,33 +131,52 @@ public class MainActivity extends AppCompatActivity {
             preferencesHelper.setAppLaunched();
         }
 
+        // 列表是整个页面的滚动容器，城市名称、当前天气和气温曲线作为固定头部放在预报前面
+        forecastRecyclerView = findViewById(R.id.weather_content);
+        View headerView = getLayoutInflater().inflate(R.layout.main_header, forecastRecyclerView, false);
+
         // 初始化视图组件
-        cityNameTextView = findViewById(R.id.city_name);
-        temperatureTextView = findViewById(R.id.temperature);
-        temperatureCityNameTextView = findViewById(R.id.temperature_city_name); // 初始化温度下方的城市名称TextView
-        weatherDescriptionTextView = findViewById(R.id.weather_description);
-        weatherIconImageView = findViewById(R.id.weather_icon);
-        humidityTextView = findViewById(R.id.humidity_value);
-        windSpeedTextView = findViewById(R.id.wind_speed_value);
-        pressureTextView = findViewById(R.id.pressure_value);
-        feelsLikeTextView = findViewById(R.id.feels_like_value);
-        lastUpdatedTextView = findViewById(R.id.last_updated);
+        cityNameTextView = headerView.findViewById(R.id.city_name);
+        temperatureTextView = headerView.findViewById(R.id.temperature);
+        temperatureCityNameTextView = headerView.findViewById(R.id.temperature_city_name); // 初始化温度下方的城市名称TextView
+        weatherDescriptionTextView = headerView.findViewById(R.id.weather_description);
+        weatherIconImageView = headerView.findViewById(R.id.weather_icon);
+        humidityTextView = headerView.findViewById(R.id.humidity_value);
+        windSpeedTextView = headerView.findViewById(R.id.wind_speed_value);
+        pressureTextView = headerView.findViewById(R.id.pressure_value);
+        feelsLikeTextView = headerView.findViewById(R.id.feels_like_value);
+        lastUpdatedTextView = headerView.findViewById(R.id.last_updated);
+        refreshButton = headerView.findViewById(R.id.refresh_button);
         progressBar = findViewById(R.id.progress_bar);
-        weatherContentLayout = findViewById(R.id.weather_content);
-        Button settingsButton = findViewById(R.id.settings_button);
+        Button settingsButton = headerView.findViewById(R.id.settings_button);
         settingsButton.setOnClickListener(v -> {
             Intent intent1 = new Intent(MainActivity.this, SettingsActivity.class);
             startActivity(intent1);
         });
-        forecastRecyclerView = findViewById(R.id.forecast_recycler_view);
 
-        // 初始化RecyclerView和Adapter
+        // 点击城市名称打开离线城市搜索
+        citySearchLauncher = registerForActivityResult(
+                new ActivityResultContracts.StartActivityForResult(), this::onCitySearchResult);
+        cityNameTextView.setOnClickListener(v ->
+                citySearchLauncher.launch(new Intent(MainActivity.this, CitySearchActivity.class)));
+
+        // 初始化RecyclerView和Adapter：头部和按天分组的预报拼接成一个列表，所有行共用一个回收池
+        // 各适配器使用布局ID作为行类型，不需要ConcatAdapter再隔离类型，预创建的行可以直接放进回收池
         forecastRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         dayGroupedForecastAdapter = new DayGroupedForecastAdapter(this);
-        forecastRecyclerView.setAdapter(dayGroupedForecastAdapter);
+        ConcatAdapter.Config concatConfig = new ConcatAdapter.Config.Builder()
+                .setIsolateViewTypes(false)
+                .setStableIdMode(ConcatAdapter.Config.StableIdMode.ISOLATED_STABLE_IDS)
+                .build();
+        contentAdapter = new ConcatAdapter(concatConfig,
+                new FixedHeaderAdapter(headerView, R.layout.main_header), dayGroupedForecastAdapter);
+        forecastRecyclerView.setAdapter(contentAdapter);
+        dayGroupedForecastAdapter.warmUp(forecastRecyclerView, DayGroupedForecastAdapter.DEFAULT_WARM_UP_HOUR_ROWS);
+        forecastWindow = new ForecastWindow(this::onForecastWindowChanged);
         
         // 初始化气温曲线图
-        temperatureChartView = findViewById(R.id.temperature_chart);
+        temperatureChartCard = headerView.findViewById(R.id.temperature_chart_card);
+        temperatureChartView = headerView.findViewById(R.id.temperature_chart);
 
         // 初始化ViewModel和LocationManager
         weatherViewModel = new ViewModelProvider(this).get(WeatherViewModel.class);
@@ -164,23 +194,18 @@ public class MainActivity extends AppCompatActivity {
         });
 
         // 观察预测天气数据
-        weatherViewModel.getForecastWeather().observe(this, forecastWeather -> {
-            if (forecastWeather != null) {
+        weatherViewModel.getForecastSeries().observe(this, forecastSeries -> {
+            if (forecastSeries != null) {
                 // 实现未来天气预测的UI更新
-                Log.d(TAG, "Forecast data received: " + forecastWeather.getList().size() + " entries");
-                updateForecastUI(forecastWeather.getList());
+                Log.d(TAG, "Forecast data received: " + forecastSeries.size() + " entries");
+                updateForecastUI(forecastSeries);
             }
         });
 
-        // 观察加载状态
+        // 观察加载状态：只切换预报部分，头部的城市名称和设置按钮在加载时仍然可用
         weatherViewModel.getIsLoading().observe(this, isLoading -> {
-            if (isLoading) {
-                progressBar.setVisibility(View.VISIBLE);
-                weatherContentLayout.setVisibility(View.GONE);
-            } else {
-                progressBar.setVisibility(View.GONE);
-                weatherContentLayout.setVisibility(View.VISIBLE);
-            }
+            progressBar.setVisibility(isLoading ? View.VISIBLE : View.GONE);
+            setForecastSectionVisible(!isLoading);
         });
 
         // 观察反向地理编码得到的城市名称
@@ -193,6 +218,13 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
+        // 观察数据新鲜度，正在更新时保留已有内容，只改变更新时间文本
+        weatherViewModel.getFreshness().observe(this, freshness -> {
+            if (freshness != null) {
+                updateFreshnessUI(freshness);
+            }
+        });
+
         // 观察错误状态
         weatherViewModel.getError().observe(this, errorMessage -> {
             if (errorMessage != null) {
@@ -227,6 +259,11 @@ public class MainActivity extends AppCompatActivity {
         locationListener = new LocationListener() {
             @Override
             public void onLocationChanged(@NonNull Location location) {
+                // 使用手动选择的城市时忽略定位结果
+                if (preferencesHelper.isManualLocation()) {
+                    stopLocationUpdates();
+                    return;
+                }
                 if (location != null) {
                     // 验证位置精度和时间
                     if (isLocationAccurate(location)) {
@@ -254,13 +291,9 @@ public class MainActivity extends AppCompatActivity {
                                 Log.d(TAG, "Location changed significantly, fetching new location and weather data");
                                 weatherViewModel.fetchLocationAndWeatherData(latitude, longitude);
                             } else {
-                                Log.d(TAG, "Location is the same as cached, no need to fetch new weather data");
-                                // 但仍需要更新缓存的经纬度和最后更新时间
-                                if (weatherViewModel.getCurrentWeather().getValue() != null) {
-                                    String cityName = weatherViewModel.getCurrentWeather().getValue().getName();
-                                    preferencesHelper.saveLocation(latitude, longitude, cityName);
-                                    preferencesHelper.saveLastUpdateTime(System.currentTimeMillis());
-                                }
+                                Log.d(TAG, "Location is the same as cached, revalidating only if data is stale");
+                                // 数据仍新鲜时ViewModel不会发出请求
+                                weatherViewModel.fetchLocationAndWeatherData(latitude, longitude);
                             }
                         } else {
                             // 如果没有缓存的位置信息，则获取位置和天气数据
@@ -419,6 +452,11 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void getLocation() {
+        // 使用手动选择的城市时不定位
+        if (preferencesHelper.isManualLocation()) {
+            Log.d(TAG, "Using manually selected city, skip location");
+            return;
+        }
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED &&
                 ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
             return;
@@ -513,6 +551,8 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onPause() {
         super.onPause();
+        // 不可见时不需要移动预报窗口
+        forecastWindow.stop();
         // 暂停时停止位置更新
         stopLocationUpdates();
     }
@@ -520,11 +560,14 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
+        // 移除暂停期间已过去的预报时段，并继续按时段移动窗口
+        forecastWindow.start();
 
         // 检查是否需要更新天气数据（超过5分钟）
         if (preferencesHelper.hasCachedLocation() && preferencesHelper.isWeatherDataExpired()) {
-            // 从后台到前台，先检查位置是否有变化
-            if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            // 从后台到前台，先检查位置是否有变化（手动选择城市时不检查）
+            if (!preferencesHelper.isManualLocation()
+                    && ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
                 Log.d(TAG, "Checking for location changes after returning from background");
                 // 尝试获取最新位置，检查是否有变化
                 Location lastLocation = null;
@@ -600,7 +643,7 @@ public class MainActivity extends AppCompatActivity {
             longitude = weather.getCoord().getLon();
         }
 
-        // 保存经纬度和更新时间，但不更新城市名称（城市名称由反向地理编码API提供）
+        // 保存经纬度，但不更新城市名称（城市名称由反向地理编码API提供）
         String currentCityName = preferencesHelper.getCityName();
         if (currentCityName == null || currentCityName.isEmpty()) {
             // 如果还没有反向地理编码的城市名称，才使用天气API返回的名称作为临时显示
@@ -608,10 +651,9 @@ public class MainActivity extends AppCompatActivity {
             temperatureCityNameTextView.setText(weather.getName());
             preferencesHelper.saveLocation(latitude, longitude, weather.getName());
         } else {
-            // 否则保留反向地理编码获取的城市名称，只保存经纬度和更新时间
+            // 否则保留反向地理编码获取的城市名称，只保存经纬度
             preferencesHelper.saveLocation(latitude, longitude, currentCityName);
         }
-        preferencesHelper.saveLastUpdateTime(System.currentTimeMillis());
         temperatureTextView.setText(String.format("%.1f°C", weather.getMain().getTemp() - 273.15));
         weatherDescriptionTextView.setText(weather.getWeather().get(0).getDescription());
         humidityTextView.setText(weather.getMain().getHumidity() + "%");
@@ -619,51 +661,6 @@ public class MainActivity extends AppCompatActivity {
         pressureTextView.setText(weather.getMain().getPressure() + " hPa");
         feelsLikeTextView.setText(String.format("%.1f°C", weather.getMain().getFeels_like() - 273.15));
 
-        // 初始化刷新按钮（如果尚未初始化）
-        if (refreshButton == null) {
-            refreshButton = findViewById(R.id.refresh_button);
-        }
-
-        // 设置更新时间为"更新于"
-        String currentTime = TimeUtils.formatCurrentTime();
-        lastUpdatedTextView.setText("更新于: " + currentTime);
-
-        // 隐藏刷新按钮
-        if (refreshButton != null) {
-            refreshButton.setVisibility(View.GONE);
-        }
-
-        // 取消之前的计时器
-        if (updateTimer != null) {
-            updateTimer.cancel();
-        }
-
-        // 设置5分钟后切换为"最后更新"并显示刷新按钮
-        updateTimer = new CountDownTimer(5 * 60 * 1000, 1000) {
-            @Override
-            public void onTick(long millisUntilFinished) {
-                // 不需要实现
-            }
-
-            @Override
-            public void onFinish() {
-                runOnUiThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        // 切换为"最后更新"
-                        String time = TimeUtils.formatTime(preferencesHelper.getLastUpdateTime());
-                        lastUpdatedTextView.setText("最后更新: " + time);
-
-                        // 显示刷新按钮
-                        if (refreshButton != null) {
-                            refreshButton.setVisibility(View.VISIBLE);
-                        }
-                    }
-                });
-            }
-        };
-        updateTimer.start();
-
         // 根据天气条件设置图标
         String weatherIcon = weather.getWeather().get(0).getIcon();
         Log.d(TAG, "Weather icon code: " + weatherIcon);
@@ -695,68 +692,97 @@ public class MainActivity extends AppCompatActivity {
 
 
 
-    private void updateForecastUI(List<ForecastWeather.ForecastItem> forecastItems) {
-        if (forecastItems != null && !forecastItems.isEmpty()) {
-            // 过滤掉已过去的时间的天气预报项
-        List<ForecastWeather.ForecastItem> filteredForecastItems = new ArrayList<>();
+    // 显示或隐藏预报部分：头部中的气温曲线和按天分组的预报列表
+    private void setForecastSectionVisible(boolean visible) {
+        temperatureChartCard.setVisibility(visible ? View.VISIBLE : View.GONE);
+        // ConcatAdapter中已有或已移除的适配器会被忽略，可以重复调用
+        if (visible) {
+            contentAdapter.addAdapter(dayGroupedForecastAdapter);
+        } else {
+            contentAdapter.removeAdapter(dayGroupedForecastAdapter);
+        }
+    }
 
-        for (ForecastWeather.ForecastItem item : forecastItems) {
-            try {
-                // 只保留时间未过去的预报项
-                if (!TimeUtils.isForecastTimePast(item.getDt_txt())) {
-                    filteredForecastItems.add(item);
-                } else {
-                    Log.d(TAG, "Skipping past forecast: " + item.getDt_txt());
-                }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error processing forecast item: " + item.getDt_txt(), e);
-                    // 如果处理失败，默认添加该项
-                    filteredForecastItems.add(item);
-                }
-            }
+    private void updateForecastUI(ForecastSeries forecastSeries) {
+        if (forecastSeries.size() == 0) {
+            return;
+        }
+        // 按dt建立时间索引，按城市当地日期分组，由滚动窗口跳过已过去的预报项
+        forecastWindow.setIndex(ForecastTimeIndex.build(forecastSeries));
+    }
 
-            Log.d(TAG, "Original forecast items: " + forecastItems.size() + ", Filtered items: " + filteredForecastItems.size());
-            
-            // 更新气温曲线图数据
-            if (temperatureChartView != null) {
-                temperatureChartView.setTemperatureData(filteredForecastItems);
-            }
+    // 预报窗口变化：新数据或者有时段已过去
+    private void onForecastWindowChanged(ForecastTimeIndex index, int from, boolean advanced) {
+        Log.d(TAG, "Original forecast items: " + index.size() + ", Filtered items: " + (index.size() - from));
 
-            // 保存RecyclerView的当前滚动位置
-            LinearLayoutManager layoutManager = (LinearLayoutManager) forecastRecyclerView.getLayoutManager();
-            final int[] scrollPosition = {0, 0}; // 使用数组作为容器来保存位置和偏移量，使其可以在内部类中访问
+        // 更新气温曲线图数据
+        if (temperatureChartView != null) {
+            temperatureChartView.setTemperatureData(index, from);
+        }
 
-            if (layoutManager != null) {
-                scrollPosition[0] = layoutManager.findFirstVisibleItemPosition();
-                View firstVisibleItem = layoutManager.findViewByPosition(scrollPosition[0]);
-                if (firstVisibleItem != null) {
-                    // 计算第一个可见项的偏移量
-                    scrollPosition[1] = firstVisibleItem.getTop() - forecastRecyclerView.getPaddingTop();
-                }
-            }
+        // 按天分组的适配器在后台计算差异，只重新绑定变化的行，滚动位置由RecyclerView自然保持
+        if (advanced) {
+            dayGroupedForecastAdapter.advanceTo(index, from);
+        } else {
+            dayGroupedForecastAdapter.updateData(index, from);
+        }
+    }
+
+    // 定时器，用于数据超过软过期时间后切换文本和显示刷新按钮
+    private CountDownTimer updateTimer;
+    private View refreshButton;
+
+    // 根据数据新鲜度更新"更新于/最后更新"文本和刷新按钮
+    private void updateFreshnessUI(DataFreshness freshness) {
+        // 取消之前的计时器
+        if (updateTimer != null) {
+            updateTimer.cancel();
+            updateTimer = null;
+        }
 
-            // 使用按天分的适配器更新数据
-            dayGroupedForecastAdapter.updateData(filteredForecastItems);
+        final String time = TimeUtils.formatTime(freshness.getFetchedAt());
+        switch (freshness.getState()) {
+            case REVALIDATING:
+                // 后台正在更新，已有内容保持可见
+                lastUpdatedTextView.setText("更新中... 最后更新: " + time);
+                if (refreshButton != null) {
+                    refreshButton.setVisibility(View.GONE);
+                }
+                break;
+            case FRESH:
+                lastUpdatedTextView.setText("更新于: " + time);
+                if (refreshButton != null) {
+                    refreshButton.setVisibility(View.GONE);
+                }
+                // 数据超过软过期时间后切换为"最后更新"并显示刷新按钮
+                long remaining = PreferencesHelper.SOFT_TTL_MILLIS - freshness.getAgeMillis();
+                updateTimer = new CountDownTimer(Math.max(remaining, 0), 1000) {
+                    @Override
+                    public void onTick(long millisUntilFinished) {
+                        // 不需要实现
+                    }
 
-            // 恢复RecyclerView的滚动位置，确保用户手动滑动的位置保持不变
-            if (layoutManager != null && forecastRecyclerView.getAdapter() != null &&
-                    forecastRecyclerView.getAdapter().getItemCount() > scrollPosition[0]) {
-                // 保存layoutManager的引用
-                final LinearLayoutManager finalLayoutManager = layoutManager;
-                // 使用post确保RecyclerView已经完成布局更新
-                forecastRecyclerView.post(new Runnable() {
                     @Override
-                    public void run() {
-                        finalLayoutManager.scrollToPositionWithOffset(scrollPosition[0], scrollPosition[1]);
+                    public void onFinish() {
+                        showStaleUpdateTime(time);
                     }
-                });
-            }
+                };
+                updateTimer.start();
+                break;
+            case STALE:
+            default:
+                showStaleUpdateTime(time);
+                break;
         }
     }
 
-    // 定时器，用于5分钟后切换文本和显示刷新按钮
-    private CountDownTimer updateTimer;
-    private View refreshButton;
+    // 切换为"最后更新"并显示刷新按钮
+    private void showStaleUpdateTime(String time) {
+        lastUpdatedTextView.setText("最后更新: " + time);
+        if (refreshButton != null) {
+            refreshButton.setVisibility(View.VISIBLE);
+        }
+    }
 
     // 刷新天气数据的方法
     public void refreshWeather(View view) {
@@ -765,23 +791,39 @@ public class MainActivity extends AppCompatActivity {
             refreshButton.setVisibility(View.GONE);
         }
 
-        // 更新最后更新时间文本为"更新于"
-        String currentTime = TimeUtils.formatCurrentTime();
-        lastUpdatedTextView.setText("更新于: " + currentTime);
-        preferencesHelper.saveLastUpdateTime(System.currentTimeMillis());
-
         // 直接使用缓存的位置刷新天气数据，不重新请求位置权限
         if (preferencesHelper.hasCachedLocation()) {
             double cachedLatitude = preferencesHelper.getLatitude();
             double cachedLongitude = preferencesHelper.getLongitude();
             Log.d(TAG, "Refreshing weather data with cached location: " + cachedLatitude + ", " + cachedLongitude);
-            weatherViewModel.fetchLocationAndWeatherData(cachedLatitude, cachedLongitude);
+            // 用户手动刷新，忽略软过期时间
+            weatherViewModel.fetchLocationAndWeatherData(cachedLatitude, cachedLongitude, true);
         } else {
             // 如果没有缓存位置，才请求位置权限
             requestLocationPermission();
         }
     }
 
+    // 处理城市搜索的结果：选中城市时直接获取该城市的天气，选择当前定位时恢复GPS定位
+    private void onCitySearchResult(ActivityResult result) {
+        Intent data = result.getData();
+        if (result.getResultCode() != RESULT_OK || data == null) {
+            return;
+        }
+        if (data.getBooleanExtra(CitySearchActivity.EXTRA_USE_CURRENT_LOCATION, false)) {
+            preferencesHelper.setManualLocation(false);
+            requestLocationPermission();
+            return;
+        }
+        String cityName = data.getStringExtra(CitySearchActivity.EXTRA_CITY_NAME);
+        double latitude = data.getDoubleExtra(CitySearchActivity.EXTRA_LATITUDE, 0);
+        double longitude = data.getDoubleExtra(CitySearchActivity.EXTRA_LONGITUDE, 0);
+        Log.d(TAG, "City selected from search: " + cityName + " (" + latitude + ", " + longitude + ")");
+        preferencesHelper.setManualLocation(true);
+        stopLocationUpdates();
+        weatherViewModel.selectCity(cityName, latitude, longitude);
+    }
+
     // 请求位置权限
     private void requestLocationPermission() {
         // 检查是否已经获取了精确位置权限
@@ -5,11 +5,15 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.EditText;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.weatherapp.network.ApiRateLimiter;
+import com.example.weatherapp.network.WeatherRepository;
 import com.example.weatherapp.utils.PreferencesHelper;
 import com.example.weatherapp.utils.ThemeUtils;
 
@@ -19,6 +23,8 @@ public class SettingsActivity extends AppCompatActivity {
     private Button saveButton;
     private Button skipButton;
     private Button registerLinkButton;
+    private TextView quotaTextView;
+    private CheckBox preconnectCheckBox;
     private PreferencesHelper preferencesHelper;
 
     @Override
@@ -33,13 +39,26 @@ public class SettingsActivity extends AppCompatActivity {
         saveButton = findViewById(R.id.save_button);
         skipButton = findViewById(R.id.skip_button);
         registerLinkButton = findViewById(R.id.register_link_button);
+        quotaTextView = findViewById(R.id.quota_text_view);
+        preconnectCheckBox = findViewById(R.id.preconnect_check_box);
 
         // 从缓存中加载已保存的API key（如果有）
+        WeatherRepository weatherRepository = WeatherRepository.getInstance(this);
         String cachedApiKey = preferencesHelper.getApiKey();
         if (cachedApiKey != null && !cachedApiKey.isEmpty()) {
             apiKeyEditText.setText(cachedApiKey);
+            weatherRepository.setApiKey(cachedApiKey);
         }
 
+        // 显示当前API Key今天剩余的请求配额
+        quotaTextView.setText("今日剩余请求次数: " + weatherRepository.getRemainingDailyQuota()
+                + " / " + ApiRateLimiter.DAILY_QUOTA);
+
+        // 启动时预连接的开关，下次启动应用时生效
+        preconnectCheckBox.setChecked(preferencesHelper.isPreconnectEnabled());
+        preconnectCheckBox.setOnCheckedChangeListener(
+                (buttonView, isChecked) -> preferencesHelper.setPreconnectEnabled(isChecked));
+
         // 保存API key按钮点击事件
         saveButton.setOnClickListener(new View.OnClickListener() {
             @Override
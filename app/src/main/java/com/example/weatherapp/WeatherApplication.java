@@ -0,0 +1,16 @@
+package com.example.weatherapp;
+
+import android.app.Application;
+
+import com.example.weatherapp.network.HttpClientProvider;
+
+public class WeatherApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // 与定位并行地预先建立到天气接口的连接，首次获取天气时省去DNS、TCP和TLS握手
+        // 设置中关闭、没有网络或按流量计费时不预连接
+        HttpClientProvider.preconnect(this);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.weatherapp.model;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+// 多城市当前天气（group接口），list中每一项与单城市的当前天气结构相同
+public class CurrentWeatherGroup {
+    @SerializedName("cnt")
+    private int cnt;
+
+    @SerializedName("list")
+    private List<CurrentWeather> list;
+
+    // Getters and setters
+    public int getCnt() {
+        return cnt;
+    }
+
+    public void setCnt(int cnt) {
+        this.cnt = cnt;
+    }
+
+    public List<CurrentWeather> getList() {
+        return list;
+    }
+
+    public void setList(List<CurrentWeather> list) {
+        this.list = list;
+    }
+}
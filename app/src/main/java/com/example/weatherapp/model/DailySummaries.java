@@ -0,0 +1,260 @@
+package com.example.weatherapp.model;
+
+/**
+ * 每天预报的汇总，按天的序号（与ForecastTimeIndex的天一致）保存在基本类型数组中
+ * 建立索引时对全部条目只遍历一次，之后标题行、温度图表和小组件读取时都不需要再扫描当天的条目
+ * 温度为开尔文，与API保持一致；没有对应数据时为NaN
+ */
+public final class DailySummaries {
+    // 白天的时段在统计主要天气时的权重，夜间为1
+    private static final int DAYTIME_WEIGHT = 2;
+
+    private final int dayCount;
+    // 当天最低/最高温度（各时段temp_min/temp_max的最小/最大值）和平均温度
+    private final double[] minTemps;
+    private final double[] maxTemps;
+    private final double[] meanTemps;
+    // 白天/夜间（Sys.pod为d/n）时段的平均温度和时段数
+    private final double[] dayMeanTemps;
+    private final double[] nightMeanTemps;
+    private final int[] daySlotCounts;
+    private final int[] nightSlotCounts;
+    // 最大降水概率（0-1）
+    private final double[] maxPops;
+    // 降雨/降雪总量（毫米），当天没有任何时段返回降雨/降雪数据时为NaN
+    private final double[] rainTotals;
+    private final double[] snowTotals;
+    // 主要天气：按时段加权计数最多的天气状况，引用预报序列字符串表中的字符串，不复制
+    private final int[] conditionCodes;
+    private final String[] conditionIcons;
+    private final String[] conditionDescriptions;
+
+    private DailySummaries(int dayCount) {
+        this.dayCount = dayCount;
+        minTemps = new double[dayCount];
+        maxTemps = new double[dayCount];
+        meanTemps = new double[dayCount];
+        dayMeanTemps = new double[dayCount];
+        nightMeanTemps = new double[dayCount];
+        daySlotCounts = new int[dayCount];
+        nightSlotCounts = new int[dayCount];
+        maxPops = new double[dayCount];
+        rainTotals = new double[dayCount];
+        snowTotals = new double[dayCount];
+        conditionCodes = new int[dayCount];
+        conditionIcons = new String[dayCount];
+        conditionDescriptions = new String[dayCount];
+    }
+
+    /**
+     * 汇总索引中每天的预报，全部条目只遍历一次
+     *
+     * @param index 预报时间索引
+     * @return 每天的汇总
+     */
+    static DailySummaries build(ForecastTimeIndex index) {
+        ForecastSeries series = index.getSeries();
+        int dayCount = index.getDayCount();
+        DailySummaries summaries = new DailySummaries(dayCount);
+
+        // 统计主要天气用的临时数组，一天内不同天气状况的数量不会超过当天的条目数
+        int maxSlots = 0;
+        for (int day = 0; day < dayCount; day++) {
+            maxSlots = Math.max(maxSlots, index.getDayEnd(day) - index.getDayStart(day));
+        }
+        int[] codes = new int[maxSlots];
+        int[] weights = new int[maxSlots];
+        // 每种天气状况用于取图标和描述的条目位置
+        int[] samples = new int[maxSlots];
+        boolean[] sampleIsDaytime = new boolean[maxSlots];
+
+        for (int day = 0; day < dayCount; day++) {
+            double minTemp = Double.NaN;
+            double maxTemp = Double.NaN;
+            double tempSum = 0;
+            int tempCount = 0;
+            double dayTempSum = 0;
+            int daySlots = 0;
+            double nightTempSum = 0;
+            int nightSlots = 0;
+            double maxPop = 0;
+            double rain = Double.NaN;
+            double snow = Double.NaN;
+            int conditionCount = 0;
+
+            for (int i = index.getDayStart(day); i < index.getDayEnd(day); i++) {
+                boolean daytime = series.getPartOfDay(i) == ForecastSeries.PART_OF_DAY_DAY;
+                boolean nighttime = series.getPartOfDay(i) == ForecastSeries.PART_OF_DAY_NIGHT;
+
+                // NaN参与比较时结果为false，第一条数据直接作为初始值；没有温度数据的字段为NaN，跳过
+                float slotMin = series.getMinTemperature(i);
+                if (!Float.isNaN(slotMin) && !(slotMin >= minTemp)) {
+                    minTemp = slotMin;
+                }
+                float slotMax = series.getMaxTemperature(i);
+                if (!Float.isNaN(slotMax) && !(slotMax <= maxTemp)) {
+                    maxTemp = slotMax;
+                }
+                float temp = series.getTemperature(i);
+                if (!Float.isNaN(temp)) {
+                    tempSum += temp;
+                    tempCount++;
+                    if (daytime) {
+                        dayTempSum += temp;
+                        daySlots++;
+                    } else if (nighttime) {
+                        nightTempSum += temp;
+                        nightSlots++;
+                    }
+                }
+
+                maxPop = Math.max(maxPop, series.getPopPercent(i) / 100.0);
+                if (!Float.isNaN(series.getRain3h(i))) {
+                    rain = (Double.isNaN(rain) ? 0 : rain) + series.getRain3h(i);
+                }
+                if (!Float.isNaN(series.getSnow3h(i))) {
+                    snow = (Double.isNaN(snow) ? 0 : snow) + series.getSnow3h(i);
+                }
+
+                if (series.hasCondition(i)) {
+                    int code = series.getConditionCode(i);
+                    int weight = daytime ? DAYTIME_WEIGHT : 1;
+                    int slot = 0;
+                    while (slot < conditionCount && codes[slot] != code) {
+                        slot++;
+                    }
+                    if (slot == conditionCount) {
+                        codes[slot] = code;
+                        weights[slot] = 0;
+                        samples[slot] = i;
+                        sampleIsDaytime[slot] = daytime;
+                        conditionCount++;
+                    } else if (daytime && !sampleIsDaytime[slot]) {
+                        // 优先使用白天的图标
+                        samples[slot] = i;
+                        sampleIsDaytime[slot] = true;
+                    }
+                    weights[slot] += weight;
+                }
+            }
+
+            summaries.minTemps[day] = minTemp;
+            summaries.maxTemps[day] = maxTemp;
+            summaries.meanTemps[day] = tempCount > 0 ? tempSum / tempCount : Double.NaN;
+            summaries.dayMeanTemps[day] = daySlots > 0 ? dayTempSum / daySlots : Double.NaN;
+            summaries.nightMeanTemps[day] = nightSlots > 0 ? nightTempSum / nightSlots : Double.NaN;
+            summaries.daySlotCounts[day] = daySlots;
+            summaries.nightSlotCounts[day] = nightSlots;
+            summaries.maxPops[day] = maxPop;
+            summaries.rainTotals[day] = rain;
+            summaries.snowTotals[day] = snow;
+
+            // 权重相同时取更显著的天气，例如雷暴优先于降雨，降雨优先于多云
+            int dominant = -1;
+            for (int slot = 0; slot < conditionCount; slot++) {
+                if (dominant < 0 || weights[slot] > weights[dominant]
+                        || (weights[slot] == weights[dominant] && severity(codes[slot]) > severity(codes[dominant]))) {
+                    dominant = slot;
+                }
+            }
+            if (dominant >= 0) {
+                summaries.conditionCodes[day] = codes[dominant];
+                summaries.conditionIcons[day] = series.getIcon(samples[dominant]);
+                summaries.conditionDescriptions[day] = series.getDescription(samples[dominant]);
+            }
+        }
+        return summaries;
+    }
+
+    // 天气状况代码的显著程度，数值越大越显著
+    private static int severity(int conditionCode) {
+        switch (conditionCode / 100) {
+            case 2: // 雷暴
+                return 6;
+            case 6: // 雪
+                return 5;
+            case 5: // 雨
+                return 4;
+            case 3: // 毛毛雨
+                return 3;
+            case 7: // 雾、霾等
+                return 2;
+            case 8: // 800为晴，801-804为云
+                return conditionCode == 800 ? 0 : 1;
+            default:
+                return 0;
+        }
+    }
+
+    // 天数
+    public int getDayCount() {
+        return dayCount;
+    }
+
+    public double getMinTemp(int day) {
+        return minTemps[day];
+    }
+
+    public double getMaxTemp(int day) {
+        return maxTemps[day];
+    }
+
+    public double getMeanTemp(int day) {
+        return meanTemps[day];
+    }
+
+    // 白天时段的平均温度，没有白天时段时为NaN
+    public double getDayMeanTemp(int day) {
+        return dayMeanTemps[day];
+    }
+
+    // 夜间时段的平均温度，没有夜间时段时为NaN
+    public double getNightMeanTemp(int day) {
+        return nightMeanTemps[day];
+    }
+
+    public int getDaySlotCount(int day) {
+        return daySlotCounts[day];
+    }
+
+    public int getNightSlotCount(int day) {
+        return nightSlotCounts[day];
+    }
+
+    // 最大降水概率（0-1）
+    public double getMaxPop(int day) {
+        return maxPops[day];
+    }
+
+    public boolean hasRain(int day) {
+        return !Double.isNaN(rainTotals[day]);
+    }
+
+    // 降雨总量（毫米），没有降雨数据时为NaN
+    public double getRainTotal(int day) {
+        return rainTotals[day];
+    }
+
+    public boolean hasSnow(int day) {
+        return !Double.isNaN(snowTotals[day]);
+    }
+
+    // 降雪总量（毫米），没有降雪数据时为NaN
+    public double getSnowTotal(int day) {
+        return snowTotals[day];
+    }
+
+    // 主要天气状况代码，当天没有天气数据时为0
+    public int getConditionCode(int day) {
+        return conditionCodes[day];
+    }
+
+    // 主要天气的图标代码，有白天时段时使用白天的图标，没有天气数据时为null
+    public String getConditionIcon(int day) {
+        return conditionIcons[day];
+    }
+
+    public String getConditionDescription(int day) {
+        return conditionDescriptions[day];
+    }
+}
@@ -0,0 +1,480 @@
+package com.example.weatherapp.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式存储的天气预报序列
+ * 与ForecastWeather的对象树不同，每个字段保存在一个基本类型数组中，描述和图标字符串通过去重后的表引用，
+ * 解析和常驻内存的开销都远小于逐条创建ForecastItem及其嵌套对象
+ * 条目按预报时间升序排列；没有对应数据的温度、降水和风速为NaN
+ */
+public final class ForecastSeries {
+    // 时段属于白天还是夜间（Sys.pod）
+    public static final byte PART_OF_DAY_UNKNOWN = 0;
+    public static final byte PART_OF_DAY_DAY = 1;
+    public static final byte PART_OF_DAY_NIGHT = 2;
+
+    // 条目没有天气状况时的状况代码
+    private static final short NO_CONDITION = -1;
+
+    private final int size;
+    // 预报时间（Unix秒）
+    private final long[] epochSeconds;
+    // 温度（开尔文），与API保持一致
+    private final float[] temperatures;
+    private final float[] minTemperatures;
+    private final float[] maxTemperatures;
+    // OpenWeatherMap天气状况代码，例如800表示晴
+    private final short[] conditionCodes;
+    // 降水概率（百分比，0-100）
+    private final byte[] pops;
+    // 3小时降雨/降雪量（毫米），API没有返回时为NaN
+    private final float[] rain3h;
+    private final float[] snow3h;
+    // 风速（米/秒）和风向（度）
+    private final float[] windSpeeds;
+    private final short[] windDegrees;
+    private final byte[] partsOfDay;
+    // 描述和图标在字符串表中的下标，-1表示没有
+    private final short[] descriptionIndexes;
+    private final short[] iconIndexes;
+    private final String[] descriptionTable;
+    private final String[] iconTable;
+    // 城市信息，响应中没有城市时区时timezoneKnown为false
+    private final String cityName;
+    private final boolean timezoneKnown;
+    private final int timezoneOffsetSeconds;
+
+    private ForecastSeries(Builder builder, String[] descriptionTable, String[] iconTable) {
+        size = builder.size;
+        epochSeconds = builder.epochSeconds;
+        temperatures = builder.temperatures;
+        minTemperatures = builder.minTemperatures;
+        maxTemperatures = builder.maxTemperatures;
+        conditionCodes = builder.conditionCodes;
+        pops = builder.pops;
+        rain3h = builder.rain3h;
+        snow3h = builder.snow3h;
+        windSpeeds = builder.windSpeeds;
+        windDegrees = builder.windDegrees;
+        partsOfDay = builder.partsOfDay;
+        descriptionIndexes = builder.descriptionIndexes;
+        iconIndexes = builder.iconIndexes;
+        this.descriptionTable = descriptionTable;
+        this.iconTable = iconTable;
+        cityName = builder.cityName;
+        timezoneKnown = builder.timezoneKnown;
+        timezoneOffsetSeconds = builder.timezoneOffsetSeconds;
+    }
+
+    /**
+     * 把Gson解析的对象树转换为列式序列，每条只取第一个天气状况，与界面展示保持一致
+     *
+     * @param forecastWeather 预报数据
+     * @return 预报序列
+     */
+    public static ForecastSeries from(ForecastWeather forecastWeather) {
+        List<ForecastWeather.ForecastItem> items = forecastWeather.getList();
+        Builder builder = new Builder(items != null ? items.size() : 0);
+        if (forecastWeather.getCity() != null) {
+            builder.setCity(forecastWeather.getCity().getName(), forecastWeather.getCity().getTimezone());
+        }
+        if (items == null) {
+            return builder.build();
+        }
+        for (ForecastWeather.ForecastItem item : items) {
+            int index = builder.add(item.getDt());
+            ForecastWeather.ForecastItem.Main main = item.getMain();
+            if (main != null) {
+                builder.setTemperatures(index, main.getTemp(), main.getTemp_min(), main.getTemp_max());
+            }
+            if (item.getWeather() != null && !item.getWeather().isEmpty()) {
+                ForecastWeather.ForecastItem.Weather weather = item.getWeather().get(0);
+                builder.setCondition(index, weather.getId(), weather.getDescription(), weather.getIcon());
+            }
+            builder.setPop(index, item.getPop());
+            if (item.getRain() != null) {
+                builder.setRain3h(index, item.getRain().getThreeHour());
+            }
+            if (item.getSnow() != null) {
+                builder.setSnow3h(index, item.getSnow().getThreeHour());
+            }
+            if (item.getWind() != null) {
+                builder.setWind(index, item.getWind().getSpeed(), item.getWind().getDeg());
+            }
+            if (item.getSys() != null) {
+                builder.setPartOfDay(index, item.getSys().getPod());
+            }
+        }
+        return builder.build();
+    }
+
+    // 预报条目数量
+    public int size() {
+        return size;
+    }
+
+    public long getEpochSeconds(int index) {
+        return epochSeconds[index];
+    }
+
+    // 温度（开尔文），没有温度数据时为NaN
+    public float getTemperature(int index) {
+        return temperatures[index];
+    }
+
+    public float getMinTemperature(int index) {
+        return minTemperatures[index];
+    }
+
+    public float getMaxTemperature(int index) {
+        return maxTemperatures[index];
+    }
+
+    // 条目是否有天气状况（状况代码、描述和图标）
+    public boolean hasCondition(int index) {
+        return conditionCodes[index] != NO_CONDITION;
+    }
+
+    // 天气状况代码，没有天气状况时为-1
+    public int getConditionCode(int index) {
+        return conditionCodes[index];
+    }
+
+    // 降水概率（百分比）
+    public int getPopPercent(int index) {
+        return pops[index];
+    }
+
+    // 3小时降雨量（毫米），API没有返回降雨数据时为NaN
+    public float getRain3h(int index) {
+        return rain3h[index];
+    }
+
+    // 3小时降雪量（毫米），API没有返回降雪数据时为NaN
+    public float getSnow3h(int index) {
+        return snow3h[index];
+    }
+
+    // 风速（米/秒），没有风的数据时为NaN
+    public float getWindSpeed(int index) {
+        return windSpeeds[index];
+    }
+
+    // 风向（度）
+    public int getWindDegree(int index) {
+        return windDegrees[index];
+    }
+
+    // 白天、夜间或未知（PART_OF_DAY_*）
+    public byte getPartOfDay(int index) {
+        return partsOfDay[index];
+    }
+
+    // 天气描述，没有描述时返回null
+    public String getDescription(int index) {
+        int tableIndex = descriptionIndexes[index];
+        return tableIndex < 0 ? null : descriptionTable[tableIndex];
+    }
+
+    // 天气图标代码，没有图标时返回null
+    public String getIcon(int index) {
+        int tableIndex = iconIndexes[index];
+        return tableIndex < 0 ? null : iconTable[tableIndex];
+    }
+
+    public String getCityName() {
+        return cityName;
+    }
+
+    // 响应中是否带有城市时区
+    public boolean isTimezoneKnown() {
+        return timezoneKnown;
+    }
+
+    // 城市相对UTC的偏移（秒）
+    public int getTimezoneOffsetSeconds() {
+        return timezoneOffsetSeconds;
+    }
+
+    /**
+     * 逐条填充预报序列：先add()追加一条，再按返回的位置设置各字段，未设置的字段保持"没有数据"
+     * 流式解析、对象树转换和本地存储读取都通过它生成序列；build()之后不能再继续使用
+     */
+    public static final class Builder {
+        // API默认返回40条（5天 x 每天8条）
+        private static final int DEFAULT_CAPACITY = 40;
+
+        private int size;
+        private long[] epochSeconds;
+        private float[] temperatures;
+        private float[] minTemperatures;
+        private float[] maxTemperatures;
+        private short[] conditionCodes;
+        private byte[] pops;
+        private float[] rain3h;
+        private float[] snow3h;
+        private float[] windSpeeds;
+        private short[] windDegrees;
+        private byte[] partsOfDay;
+        private short[] descriptionIndexes;
+        private short[] iconIndexes;
+        private final Map<String, Integer> descriptionIds = new HashMap<>();
+        private final Map<String, Integer> iconIds = new HashMap<>();
+        private String cityName;
+        private boolean timezoneKnown;
+        private int timezoneOffsetSeconds;
+
+        public Builder() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public Builder(int capacity) {
+            allocate(Math.max(capacity, 1));
+        }
+
+        // 预先知道条目数量时（例如响应中的cnt）一次性分配好数组
+        public void ensureCapacity(int capacity) {
+            if (capacity > epochSeconds.length) {
+                resize(capacity);
+            }
+        }
+
+        public void setCity(String cityName, int timezoneOffsetSeconds) {
+            this.cityName = cityName;
+            this.timezoneKnown = true;
+            this.timezoneOffsetSeconds = timezoneOffsetSeconds;
+        }
+
+        /**
+         * 追加一条预报
+         *
+         * @param epochSeconds 预报时间（Unix秒）
+         * @return 新条目的位置
+         */
+        public int add(long epochSeconds) {
+            if (size == this.epochSeconds.length) {
+                resize(size * 2);
+            }
+            int index = size++;
+            this.epochSeconds[index] = epochSeconds;
+            temperatures[index] = Float.NaN;
+            minTemperatures[index] = Float.NaN;
+            maxTemperatures[index] = Float.NaN;
+            conditionCodes[index] = NO_CONDITION;
+            rain3h[index] = Float.NaN;
+            snow3h[index] = Float.NaN;
+            windSpeeds[index] = Float.NaN;
+            descriptionIndexes[index] = -1;
+            iconIndexes[index] = -1;
+            return index;
+        }
+
+        // 流式解析时dt可能出现在其他字段之后
+        public void setEpochSeconds(int index, long epochSeconds) {
+            this.epochSeconds[index] = epochSeconds;
+        }
+
+        public void setTemperatures(int index, double temp, double tempMin, double tempMax) {
+            temperatures[index] = (float) temp;
+            minTemperatures[index] = (float) tempMin;
+            maxTemperatures[index] = (float) tempMax;
+        }
+
+        public void setTemperature(int index, double temp) {
+            temperatures[index] = (float) temp;
+        }
+
+        public void setMinTemperature(int index, double tempMin) {
+            minTemperatures[index] = (float) tempMin;
+        }
+
+        public void setMaxTemperature(int index, double tempMax) {
+            maxTemperatures[index] = (float) tempMax;
+        }
+
+        public void setCondition(int index, int conditionCode, String description, String icon) {
+            setConditionCode(index, conditionCode);
+            setDescription(index, description);
+            setIcon(index, icon);
+        }
+
+        public void setConditionCode(int index, int conditionCode) {
+            conditionCodes[index] = (short) conditionCode;
+        }
+
+        public void setDescription(int index, String description) {
+            descriptionIndexes[index] = intern(descriptionIds, description);
+        }
+
+        public void setIcon(int index, String icon) {
+            iconIndexes[index] = intern(iconIds, icon);
+        }
+
+        // 降水概率（0-1）
+        public void setPop(int index, double pop) {
+            pops[index] = (byte) Math.round(Math.max(0, Math.min(1, pop)) * 100);
+        }
+
+        public void setRain3h(int index, double rain) {
+            rain3h[index] = (float) rain;
+        }
+
+        public void setSnow3h(int index, double snow) {
+            snow3h[index] = (float) snow;
+        }
+
+        public void setWind(int index, double speed, int degree) {
+            setWindSpeed(index, speed);
+            setWindDegree(index, degree);
+        }
+
+        public void setWindSpeed(int index, double speed) {
+            windSpeeds[index] = (float) speed;
+        }
+
+        public void setWindDegree(int index, int degree) {
+            windDegrees[index] = (short) degree;
+        }
+
+        // API的pod字段："d"为白天，"n"为夜间
+        public void setPartOfDay(int index, String pod) {
+            if ("d".equals(pod)) {
+                partsOfDay[index] = PART_OF_DAY_DAY;
+            } else if ("n".equals(pod)) {
+                partsOfDay[index] = PART_OF_DAY_NIGHT;
+            } else {
+                partsOfDay[index] = PART_OF_DAY_UNKNOWN;
+            }
+        }
+
+        // PART_OF_DAY_*，用于从本地快照恢复
+        public void setPartOfDay(int index, byte partOfDay) {
+            partsOfDay[index] = partOfDay;
+        }
+
+        /**
+         * 生成预报序列，条目不是按时间升序时先排序
+         */
+        public ForecastSeries build() {
+            for (int i = 1; i < size; i++) {
+                if (epochSeconds[i] < epochSeconds[i - 1]) {
+                    sortByTime();
+                    break;
+                }
+            }
+            return new ForecastSeries(this, toTable(descriptionIds), toTable(iconIds));
+        }
+
+        // 按时间排序：先得到排好序的下标，再按它重排每一列
+        private void sortByTime() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(epochSeconds[a], epochSeconds[b]));
+            int[] permutation = new int[size];
+            for (int i = 0; i < size; i++) {
+                permutation[i] = order[i];
+            }
+
+            long[] sortedEpochSeconds = new long[epochSeconds.length];
+            for (int i = 0; i < size; i++) {
+                sortedEpochSeconds[i] = epochSeconds[permutation[i]];
+            }
+            epochSeconds = sortedEpochSeconds;
+            temperatures = permute(temperatures, permutation);
+            minTemperatures = permute(minTemperatures, permutation);
+            maxTemperatures = permute(maxTemperatures, permutation);
+            conditionCodes = permute(conditionCodes, permutation);
+            pops = permute(pops, permutation);
+            rain3h = permute(rain3h, permutation);
+            snow3h = permute(snow3h, permutation);
+            windSpeeds = permute(windSpeeds, permutation);
+            windDegrees = permute(windDegrees, permutation);
+            partsOfDay = permute(partsOfDay, permutation);
+            descriptionIndexes = permute(descriptionIndexes, permutation);
+            iconIndexes = permute(iconIndexes, permutation);
+        }
+
+        private static float[] permute(float[] column, int[] permutation) {
+            float[] sorted = new float[column.length];
+            for (int i = 0; i < permutation.length; i++) {
+                sorted[i] = column[permutation[i]];
+            }
+            return sorted;
+        }
+
+        private static short[] permute(short[] column, int[] permutation) {
+            short[] sorted = new short[column.length];
+            for (int i = 0; i < permutation.length; i++) {
+                sorted[i] = column[permutation[i]];
+            }
+            return sorted;
+        }
+
+        private static byte[] permute(byte[] column, int[] permutation) {
+            byte[] sorted = new byte[column.length];
+            for (int i = 0; i < permutation.length; i++) {
+                sorted[i] = column[permutation[i]];
+            }
+            return sorted;
+        }
+
+        // 字符串去重，返回其在字符串表中的下标，null返回-1
+        private static short intern(Map<String, Integer> ids, String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = ids.size();
+                ids.put(value, id);
+            }
+            return id.shortValue();
+        }
+
+        private static String[] toTable(Map<String, Integer> ids) {
+            String[] table = new String[ids.size()];
+            for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+                table[entry.getValue()] = entry.getKey();
+            }
+            return table;
+        }
+
+        private void allocate(int capacity) {
+            epochSeconds = new long[capacity];
+            temperatures = new float[capacity];
+            minTemperatures = new float[capacity];
+            maxTemperatures = new float[capacity];
+            conditionCodes = new short[capacity];
+            pops = new byte[capacity];
+            rain3h = new float[capacity];
+            snow3h = new float[capacity];
+            windSpeeds = new float[capacity];
+            windDegrees = new short[capacity];
+            partsOfDay = new byte[capacity];
+            descriptionIndexes = new short[capacity];
+            iconIndexes = new short[capacity];
+        }
+
+        private void resize(int capacity) {
+            epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+            temperatures = Arrays.copyOf(temperatures, capacity);
+            minTemperatures = Arrays.copyOf(minTemperatures, capacity);
+            maxTemperatures = Arrays.copyOf(maxTemperatures, capacity);
+            conditionCodes = Arrays.copyOf(conditionCodes, capacity);
+            pops = Arrays.copyOf(pops, capacity);
+            rain3h = Arrays.copyOf(rain3h, capacity);
+            snow3h = Arrays.copyOf(snow3h, capacity);
+            windSpeeds = Arrays.copyOf(windSpeeds, capacity);
+            windDegrees = Arrays.copyOf(windDegrees, capacity);
+            partsOfDay = Arrays.copyOf(partsOfDay, capacity);
+            descriptionIndexes = Arrays.copyOf(descriptionIndexes, capacity);
+            iconIndexes = Arrays.copyOf(iconIndexes, capacity);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.weatherapp.model;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * 按预报时间dt排好序的索引
+ * 时间直接读取ForecastSeries的long数组，"当前时间之后的第一条"和"某一条属于哪一天"都通过二分查找得到，不需要解析dt_txt；
+ * 按天分组使用预报城市的UTC偏移，日期边界是当地的零点而不是设备所在时区的零点；
+ * 建立索引时同时汇总每天的预报（DailySummaries）
+ */
+public final class ForecastTimeIndex {
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    // 预报序列，按时间升序
+    private final ForecastSeries series;
+    // 城市相对UTC的偏移（秒）
+    private final int timezoneOffsetSeconds;
+    // 第d天的条目位于[dayStarts[d], dayStarts[d + 1])，最后一个元素为条目总数
+    private final int[] dayStarts;
+    // 每天在城市当地的日期（距1970-01-01的天数）
+    private final long[] epochDays;
+    // 每天的汇总
+    private final DailySummaries dailySummaries;
+
+    private ForecastTimeIndex(ForecastSeries series, int timezoneOffsetSeconds) {
+        this.series = series;
+        this.timezoneOffsetSeconds = timezoneOffsetSeconds;
+        int size = series.size();
+
+        // 相邻两条的当地日期不同时开始新的一天
+        int[] starts = new int[size + 1];
+        long[] days = new long[size];
+        int dayCount = 0;
+        for (int i = 0; i < size; i++) {
+            long day = localEpochDay(series.getEpochSeconds(i));
+            if (dayCount == 0 || days[dayCount - 1] != day) {
+                starts[dayCount] = i;
+                days[dayCount] = day;
+                dayCount++;
+            }
+        }
+        starts[dayCount] = size;
+        dayStarts = Arrays.copyOf(starts, dayCount + 1);
+        epochDays = Arrays.copyOf(days, dayCount);
+        dailySummaries = DailySummaries.build(this);
+    }
+
+    /**
+     * 为一次预报响应建立索引
+     * 响应中没有城市时区时（例如从本地数据库读取的预报）使用设备当前的时区偏移
+     *
+     * @param series 预报序列，为null时返回空索引
+     * @return 索引
+     */
+    public static ForecastTimeIndex build(ForecastSeries series) {
+        int offsetSeconds = series != null && series.isTimezoneKnown()
+                ? series.getTimezoneOffsetSeconds()
+                : TimeZone.getDefault().getOffset(System.currentTimeMillis()) / 1000;
+        return build(series, offsetSeconds);
+    }
+
+    /**
+     * 按指定的城市偏移为预报序列建立索引
+     *
+     * @param series                预报序列（已按时间升序），为null时返回空索引
+     * @param timezoneOffsetSeconds 城市相对UTC的偏移（秒）
+     * @return 索引
+     */
+    public static ForecastTimeIndex build(ForecastSeries series, int timezoneOffsetSeconds) {
+        return new ForecastTimeIndex(series != null ? series : new ForecastSeries.Builder(0).build(),
+                timezoneOffsetSeconds);
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    // 按条目位置读取各字段的预报序列
+    public ForecastSeries getSeries() {
+        return series;
+    }
+
+    public long getEpochSeconds(int index) {
+        return series.getEpochSeconds(index);
+    }
+
+    public int getTimezoneOffsetSeconds() {
+        return timezoneOffsetSeconds;
+    }
+
+    /**
+     * 第一条预报时间不早于指定时刻的条目位置，之前的条目都已过去
+     *
+     * @param epochMillis 时刻（毫秒）
+     * @return 条目位置，全部已过去时返回size()
+     */
+    public int firstIndexNotBefore(long epochMillis) {
+        int low = 0;
+        int high = series.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (series.getEpochSeconds(mid) * 1000 < epochMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // 天数
+    public int getDayCount() {
+        return epochDays.length;
+    }
+
+    // 第day天第一条的位置
+    public int getDayStart(int day) {
+        return dayStarts[day];
+    }
+
+    // 第day天最后一条之后的位置
+    public int getDayEnd(int day) {
+        return dayStarts[day + 1];
+    }
+
+    // 第day天在城市当地的日期（距1970-01-01的天数）
+    public long getEpochDay(int day) {
+        return epochDays[day];
+    }
+
+    // 每天的汇总，按天的序号读取
+    public DailySummaries getDailySummaries() {
+        return dailySummaries;
+    }
+
+    /**
+     * 条目所在的天
+     *
+     * @param index 条目位置
+     * @return 天的序号
+     */
+    public int dayOf(int index) {
+        // 最后一个起点不大于index的天
+        int low = 0;
+        int high = epochDays.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (dayStarts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // 时间戳在城市当地的日期（距1970-01-01的天数）
+    private long localEpochDay(long epochSeconds) {
+        long localSeconds = epochSeconds + timezoneOffsetSeconds;
+        long day = localSeconds / SECONDS_PER_DAY;
+        return localSeconds % SECONDS_PER_DAY < 0 ? day - 1 : day;
+    }
+}
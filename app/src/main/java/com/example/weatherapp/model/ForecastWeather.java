@@ -84,6 +84,12 @@ public class ForecastWeather {
         @SerializedName("pop")
         private double pop;
 
+        @SerializedName("rain")
+        private Precipitation rain;
+
+        @SerializedName("snow")
+        private Precipitation snow;
+
         @SerializedName("sys")
         private Sys sys;
 
@@ -147,6 +153,24 @@ public class ForecastWeather {
             this.pop = pop;
         }
 
+        // 该时段没有降雨时为null
+        public Precipitation getRain() {
+            return rain;
+        }
+
+        public void setRain(Precipitation rain) {
+            this.rain = rain;
+        }
+
+        // 该时段没有降雪时为null
+        public Precipitation getSnow() {
+            return snow;
+        }
+
+        public void setSnow(Precipitation snow) {
+            this.snow = snow;
+        }
+
         public Sys getSys() {
             return sys;
         }
@@ -363,6 +387,21 @@ public class ForecastWeather {
             }
         }
 
+        public static class Precipitation {
+            // 3小时内的降水量（毫米）
+            @SerializedName("3h")
+            private double threeHour;
+
+            // Getters and setters
+            public double getThreeHour() {
+                return threeHour;
+            }
+
+            public void setThreeHour(double threeHour) {
+                this.threeHour = threeHour;
+            }
+        }
+
         public static class Sys {
             @SerializedName("pod")
             private String pod;
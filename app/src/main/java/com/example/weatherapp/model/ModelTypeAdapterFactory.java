@@ -0,0 +1,1066 @@
+package com.example.weatherapp.model;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模型类的手写TypeAdapter集合
+ * 所有字段按名称直接读写，不依赖反射，首次解析不需要扫描类结构，开启混淆后也不会失效
+ * ForecastSeries由ForecastSeriesParser流式解析，不在此注册
+ */
+public class ModelTypeAdapterFactory implements TypeAdapterFactory {
+
+    private static final TypeAdapter<CurrentWeather.Coord> CURRENT_COORD = new TypeAdapter<CurrentWeather.Coord>() {
+        @Override
+        public CurrentWeather.Coord read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CurrentWeather.Coord value = new CurrentWeather.Coord();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "lon":
+                        value.setLon(nextDouble(in));
+                        break;
+                    case "lat":
+                        value.setLat(nextDouble(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, CurrentWeather.Coord value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("lon").value(value.getLon());
+            out.name("lat").value(value.getLat());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<CurrentWeather.Weather> CURRENT_CONDITION = new TypeAdapter<CurrentWeather.Weather>() {
+        @Override
+        public CurrentWeather.Weather read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CurrentWeather.Weather value = new CurrentWeather.Weather();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        value.setId(nextInt(in));
+                        break;
+                    case "main":
+                        value.setMain(nextString(in));
+                        break;
+                    case "description":
+                        value.setDescription(nextString(in));
+                        break;
+                    case "icon":
+                        value.setIcon(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, CurrentWeather.Weather value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(value.getId());
+            out.name("main").value(value.getMain());
+            out.name("description").value(value.getDescription());
+            out.name("icon").value(value.getIcon());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<CurrentWeather.Main> CURRENT_MAIN = new TypeAdapter<CurrentWeather.Main>() {
+        @Override
+        public CurrentWeather.Main read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CurrentWeather.Main value = new CurrentWeather.Main();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "temp":
+                        value.setTemp(nextDouble(in));
+                        break;
+                    case "feels_like":
+                        value.setFeels_like(nextDouble(in));
+                        break;
+                    case "temp_min":
+                        value.setTemp_min(nextDouble(in));
+                        break;
+                    case "temp_max":
+                        value.setTemp_max(nextDouble(in));
+                        break;
+                    case "pressure":
+                        value.setPressure(nextInt(in));
+                        break;
+                    case "humidity":
+                        value.setHumidity(nextInt(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, CurrentWeather.Main value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("temp").value(value.getTemp());
+            out.name("feels_like").value(value.getFeels_like());
+            out.name("temp_min").value(value.getTemp_min());
+            out.name("temp_max").value(value.getTemp_max());
+            out.name("pressure").value(value.getPressure());
+            out.name("humidity").value(value.getHumidity());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<CurrentWeather.Wind> CURRENT_WIND = new TypeAdapter<CurrentWeather.Wind>() {
+        @Override
+        public CurrentWeather.Wind read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CurrentWeather.Wind value = new CurrentWeather.Wind();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "speed":
+                        value.setSpeed(nextDouble(in));
+                        break;
+                    case "deg":
+                        value.setDeg(nextInt(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, CurrentWeather.Wind value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("speed").value(value.getSpeed());
+            out.name("deg").value(value.getDeg());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<CurrentWeather.Clouds> CURRENT_CLOUDS = new TypeAdapter<CurrentWeather.Clouds>() {
+        @Override
+        public CurrentWeather.Clouds read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CurrentWeather.Clouds value = new CurrentWeather.Clouds();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "all":
+                        value.setAll(nextInt(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, CurrentWeather.Clouds value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("all").value(value.getAll());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<CurrentWeather.Sys> CURRENT_SYS = new TypeAdapter<CurrentWeather.Sys>() {
+        @Override
+        public CurrentWeather.Sys read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CurrentWeather.Sys value = new CurrentWeather.Sys();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type":
+                        value.setType(nextInt(in));
+                        break;
+                    case "id":
+                        value.setId(nextInt(in));
+                        break;
+                    case "country":
+                        value.setCountry(nextString(in));
+                        break;
+                    case "sunrise":
+                        value.setSunrise(nextLong(in));
+                        break;
+                    case "sunset":
+                        value.setSunset(nextLong(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, CurrentWeather.Sys value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("type").value(value.getType());
+            out.name("id").value(value.getId());
+            out.name("country").value(value.getCountry());
+            out.name("sunrise").value(value.getSunrise());
+            out.name("sunset").value(value.getSunset());
+            out.endObject();
+        }
+    };
+
+    // 当前天气
+    private static final TypeAdapter<CurrentWeather> CURRENT_WEATHER = new TypeAdapter<CurrentWeather>() {
+        @Override
+        public CurrentWeather read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CurrentWeather value = new CurrentWeather();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "coord":
+                        value.setCoord(CURRENT_COORD.read(in));
+                        break;
+                    case "weather":
+                        value.setWeather(readList(in, CURRENT_CONDITION));
+                        break;
+                    case "base":
+                        value.setBase(nextString(in));
+                        break;
+                    case "main":
+                        value.setMain(CURRENT_MAIN.read(in));
+                        break;
+                    case "visibility":
+                        value.setVisibility(nextInt(in));
+                        break;
+                    case "wind":
+                        value.setWind(CURRENT_WIND.read(in));
+                        break;
+                    case "clouds":
+                        value.setClouds(CURRENT_CLOUDS.read(in));
+                        break;
+                    case "dt":
+                        value.setDt(nextLong(in));
+                        break;
+                    case "sys":
+                        value.setSys(CURRENT_SYS.read(in));
+                        break;
+                    case "timezone":
+                        value.setTimezone(nextInt(in));
+                        break;
+                    case "id":
+                        value.setId(nextInt(in));
+                        break;
+                    case "name":
+                        value.setName(nextString(in));
+                        break;
+                    case "cod":
+                        value.setCod(nextInt(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, CurrentWeather value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("coord");
+            CURRENT_COORD.write(out, value.getCoord());
+            out.name("weather");
+            writeList(out, value.getWeather(), CURRENT_CONDITION);
+            out.name("base").value(value.getBase());
+            out.name("main");
+            CURRENT_MAIN.write(out, value.getMain());
+            out.name("visibility").value(value.getVisibility());
+            out.name("wind");
+            CURRENT_WIND.write(out, value.getWind());
+            out.name("clouds");
+            CURRENT_CLOUDS.write(out, value.getClouds());
+            out.name("dt").value(value.getDt());
+            out.name("sys");
+            CURRENT_SYS.write(out, value.getSys());
+            out.name("timezone").value(value.getTimezone());
+            out.name("id").value(value.getId());
+            out.name("name").value(value.getName());
+            out.name("cod").value(value.getCod());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<ForecastWeather.ForecastItem.Main> FORECAST_MAIN = new TypeAdapter<ForecastWeather.ForecastItem.Main>() {
+        @Override
+        public ForecastWeather.ForecastItem.Main read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ForecastWeather.ForecastItem.Main value = new ForecastWeather.ForecastItem.Main();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "temp":
+                        value.setTemp(nextDouble(in));
+                        break;
+                    case "feels_like":
+                        value.setFeels_like(nextDouble(in));
+                        break;
+                    case "temp_min":
+                        value.setTemp_min(nextDouble(in));
+                        break;
+                    case "temp_max":
+                        value.setTemp_max(nextDouble(in));
+                        break;
+                    case "pressure":
+                        value.setPressure(nextInt(in));
+                        break;
+                    case "sea_level":
+                        value.setSea_level(nextInt(in));
+                        break;
+                    case "grnd_level":
+                        value.setGrnd_level(nextInt(in));
+                        break;
+                    case "humidity":
+                        value.setHumidity(nextInt(in));
+                        break;
+                    case "temp_kf":
+                        value.setTemp_kf(nextDouble(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastWeather.ForecastItem.Main value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("temp").value(value.getTemp());
+            out.name("feels_like").value(value.getFeels_like());
+            out.name("temp_min").value(value.getTemp_min());
+            out.name("temp_max").value(value.getTemp_max());
+            out.name("pressure").value(value.getPressure());
+            out.name("sea_level").value(value.getSea_level());
+            out.name("grnd_level").value(value.getGrnd_level());
+            out.name("humidity").value(value.getHumidity());
+            out.name("temp_kf").value(value.getTemp_kf());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<ForecastWeather.ForecastItem.Weather> FORECAST_CONDITION = new TypeAdapter<ForecastWeather.ForecastItem.Weather>() {
+        @Override
+        public ForecastWeather.ForecastItem.Weather read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ForecastWeather.ForecastItem.Weather value = new ForecastWeather.ForecastItem.Weather();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        value.setId(nextInt(in));
+                        break;
+                    case "main":
+                        value.setMain(nextString(in));
+                        break;
+                    case "description":
+                        value.setDescription(nextString(in));
+                        break;
+                    case "icon":
+                        value.setIcon(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastWeather.ForecastItem.Weather value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(value.getId());
+            out.name("main").value(value.getMain());
+            out.name("description").value(value.getDescription());
+            out.name("icon").value(value.getIcon());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<ForecastWeather.ForecastItem.Clouds> FORECAST_CLOUDS = new TypeAdapter<ForecastWeather.ForecastItem.Clouds>() {
+        @Override
+        public ForecastWeather.ForecastItem.Clouds read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ForecastWeather.ForecastItem.Clouds value = new ForecastWeather.ForecastItem.Clouds();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "all":
+                        value.setAll(nextInt(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastWeather.ForecastItem.Clouds value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("all").value(value.getAll());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<ForecastWeather.ForecastItem.Wind> FORECAST_WIND = new TypeAdapter<ForecastWeather.ForecastItem.Wind>() {
+        @Override
+        public ForecastWeather.ForecastItem.Wind read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ForecastWeather.ForecastItem.Wind value = new ForecastWeather.ForecastItem.Wind();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "speed":
+                        value.setSpeed(nextDouble(in));
+                        break;
+                    case "deg":
+                        value.setDeg(nextInt(in));
+                        break;
+                    case "gust":
+                        value.setGust(nextDouble(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastWeather.ForecastItem.Wind value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("speed").value(value.getSpeed());
+            out.name("deg").value(value.getDeg());
+            out.name("gust").value(value.getGust());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<ForecastWeather.ForecastItem.Precipitation> FORECAST_PRECIPITATION = new TypeAdapter<ForecastWeather.ForecastItem.Precipitation>() {
+        @Override
+        public ForecastWeather.ForecastItem.Precipitation read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ForecastWeather.ForecastItem.Precipitation value = new ForecastWeather.ForecastItem.Precipitation();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "3h":
+                        value.setThreeHour(nextDouble(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastWeather.ForecastItem.Precipitation value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("3h").value(value.getThreeHour());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<ForecastWeather.ForecastItem.Sys> FORECAST_SYS = new TypeAdapter<ForecastWeather.ForecastItem.Sys>() {
+        @Override
+        public ForecastWeather.ForecastItem.Sys read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ForecastWeather.ForecastItem.Sys value = new ForecastWeather.ForecastItem.Sys();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "pod":
+                        value.setPod(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastWeather.ForecastItem.Sys value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("pod").value(value.getPod());
+            out.endObject();
+        }
+    };
+
+    // 单条预报
+    private static final TypeAdapter<ForecastWeather.ForecastItem> FORECAST_ITEM = new TypeAdapter<ForecastWeather.ForecastItem>() {
+        @Override
+        public ForecastWeather.ForecastItem read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ForecastWeather.ForecastItem value = new ForecastWeather.ForecastItem();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "dt":
+                        value.setDt(nextLong(in));
+                        break;
+                    case "main":
+                        value.setMain(FORECAST_MAIN.read(in));
+                        break;
+                    case "weather":
+                        value.setWeather(readList(in, FORECAST_CONDITION));
+                        break;
+                    case "clouds":
+                        value.setClouds(FORECAST_CLOUDS.read(in));
+                        break;
+                    case "wind":
+                        value.setWind(FORECAST_WIND.read(in));
+                        break;
+                    case "visibility":
+                        value.setVisibility(nextInt(in));
+                        break;
+                    case "pop":
+                        value.setPop(nextDouble(in));
+                        break;
+                    case "rain":
+                        value.setRain(FORECAST_PRECIPITATION.read(in));
+                        break;
+                    case "snow":
+                        value.setSnow(FORECAST_PRECIPITATION.read(in));
+                        break;
+                    case "sys":
+                        value.setSys(FORECAST_SYS.read(in));
+                        break;
+                    case "dt_txt":
+                        value.setDt_txt(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastWeather.ForecastItem value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("dt").value(value.getDt());
+            out.name("main");
+            FORECAST_MAIN.write(out, value.getMain());
+            out.name("weather");
+            writeList(out, value.getWeather(), FORECAST_CONDITION);
+            out.name("clouds");
+            FORECAST_CLOUDS.write(out, value.getClouds());
+            out.name("wind");
+            FORECAST_WIND.write(out, value.getWind());
+            out.name("visibility").value(value.getVisibility());
+            out.name("pop").value(value.getPop());
+            out.name("rain");
+            FORECAST_PRECIPITATION.write(out, value.getRain());
+            out.name("snow");
+            FORECAST_PRECIPITATION.write(out, value.getSnow());
+            out.name("sys");
+            FORECAST_SYS.write(out, value.getSys());
+            out.name("dt_txt").value(value.getDt_txt());
+            out.endObject();
+        }
+    };
+
+    private static final TypeAdapter<ForecastWeather.City.Coord> CITY_COORD = new TypeAdapter<ForecastWeather.City.Coord>() {
+        @Override
+        public ForecastWeather.City.Coord read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ForecastWeather.City.Coord value = new ForecastWeather.City.Coord();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "lat":
+                        value.setLat(nextDouble(in));
+                        break;
+                    case "lon":
+                        value.setLon(nextDouble(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastWeather.City.Coord value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("lat").value(value.getLat());
+            out.name("lon").value(value.getLon());
+            out.endObject();
+        }
+    };
+
+    // 预报城市
+    private static final TypeAdapter<ForecastWeather.City> CITY = new TypeAdapter<ForecastWeather.City>() {
+        @Override
+        public ForecastWeather.City read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ForecastWeather.City value = new ForecastWeather.City();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        value.setId(nextInt(in));
+                        break;
+                    case "name":
+                        value.setName(nextString(in));
+                        break;
+                    case "coord":
+                        value.setCoord(CITY_COORD.read(in));
+                        break;
+                    case "country":
+                        value.setCountry(nextString(in));
+                        break;
+                    case "population":
+                        value.setPopulation(nextInt(in));
+                        break;
+                    case "timezone":
+                        value.setTimezone(nextInt(in));
+                        break;
+                    case "sunrise":
+                        value.setSunrise(nextLong(in));
+                        break;
+                    case "sunset":
+                        value.setSunset(nextLong(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastWeather.City value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(value.getId());
+            out.name("name").value(value.getName());
+            out.name("coord");
+            CITY_COORD.write(out, value.getCoord());
+            out.name("country").value(value.getCountry());
+            out.name("population").value(value.getPopulation());
+            out.name("timezone").value(value.getTimezone());
+            out.name("sunrise").value(value.getSunrise());
+            out.name("sunset").value(value.getSunset());
+            out.endObject();
+        }
+    };
+
+    // 天气预报
+    private static final TypeAdapter<ForecastWeather> FORECAST_WEATHER = new TypeAdapter<ForecastWeather>() {
+        @Override
+        public ForecastWeather read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ForecastWeather value = new ForecastWeather();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "cod":
+                        value.setCod(nextString(in));
+                        break;
+                    case "message":
+                        value.setMessage(nextInt(in));
+                        break;
+                    case "cnt":
+                        value.setCnt(nextInt(in));
+                        break;
+                    case "list":
+                        value.setList(readList(in, FORECAST_ITEM));
+                        break;
+                    case "city":
+                        value.setCity(CITY.read(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastWeather value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("cod").value(value.getCod());
+            out.name("message").value(value.getMessage());
+            out.name("cnt").value(value.getCnt());
+            out.name("list");
+            writeList(out, value.getList(), FORECAST_ITEM);
+            out.name("city");
+            CITY.write(out, value.getCity());
+            out.endObject();
+        }
+    };
+
+    // 多城市当前天气
+    private static final TypeAdapter<CurrentWeatherGroup> CURRENT_WEATHER_GROUP = new TypeAdapter<CurrentWeatherGroup>() {
+        @Override
+        public CurrentWeatherGroup read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CurrentWeatherGroup value = new CurrentWeatherGroup();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "cnt":
+                        value.setCnt(nextInt(in));
+                        break;
+                    case "list":
+                        value.setList(readList(in, CURRENT_WEATHER));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, CurrentWeatherGroup value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("cnt").value(value.getCnt());
+            out.name("list");
+            writeList(out, value.getList(), CURRENT_WEATHER);
+            out.endObject();
+        }
+    };
+
+    // 反向地理编码结果
+    private static final TypeAdapter<ReverseGeocodingResponse> REVERSE_GEOCODING = new TypeAdapter<ReverseGeocodingResponse>() {
+        @Override
+        public ReverseGeocodingResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ReverseGeocodingResponse value = new ReverseGeocodingResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name":
+                        value.setCityName(nextString(in));
+                        break;
+                    case "state":
+                        value.setState(nextString(in));
+                        break;
+                    case "country":
+                        value.setCountry(nextString(in));
+                        break;
+                    case "lat":
+                        value.setLatitude(nextDouble(in));
+                        break;
+                    case "lon":
+                        value.setLongitude(nextDouble(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, ReverseGeocodingResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("name").value(value.getCityName());
+            out.name("state").value(value.getState());
+            out.name("country").value(value.getCountry());
+            out.name("lat").value(value.getLatitude());
+            out.name("lon").value(value.getLongitude());
+            out.endObject();
+        }
+    };
+
+    private static final Map<Class<?>, TypeAdapter<?>> ADAPTERS = new HashMap<>();
+
+    static {
+        ADAPTERS.put(CurrentWeather.Coord.class, CURRENT_COORD);
+        ADAPTERS.put(CurrentWeather.Weather.class, CURRENT_CONDITION);
+        ADAPTERS.put(CurrentWeather.Main.class, CURRENT_MAIN);
+        ADAPTERS.put(CurrentWeather.Wind.class, CURRENT_WIND);
+        ADAPTERS.put(CurrentWeather.Clouds.class, CURRENT_CLOUDS);
+        ADAPTERS.put(CurrentWeather.Sys.class, CURRENT_SYS);
+        ADAPTERS.put(CurrentWeather.class, CURRENT_WEATHER);
+        ADAPTERS.put(ForecastWeather.ForecastItem.Main.class, FORECAST_MAIN);
+        ADAPTERS.put(ForecastWeather.ForecastItem.Weather.class, FORECAST_CONDITION);
+        ADAPTERS.put(ForecastWeather.ForecastItem.Clouds.class, FORECAST_CLOUDS);
+        ADAPTERS.put(ForecastWeather.ForecastItem.Wind.class, FORECAST_WIND);
+        ADAPTERS.put(ForecastWeather.ForecastItem.Precipitation.class, FORECAST_PRECIPITATION);
+        ADAPTERS.put(ForecastWeather.ForecastItem.Sys.class, FORECAST_SYS);
+        ADAPTERS.put(ForecastWeather.ForecastItem.class, FORECAST_ITEM);
+        ADAPTERS.put(ForecastWeather.City.Coord.class, CITY_COORD);
+        ADAPTERS.put(ForecastWeather.City.class, CITY);
+        ADAPTERS.put(ForecastWeather.class, FORECAST_WEATHER);
+        ADAPTERS.put(CurrentWeatherGroup.class, CURRENT_WEATHER_GROUP);
+        ADAPTERS.put(ReverseGeocodingResponse.class, REVERSE_GEOCODING);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        // 未注册的类型返回null，交给Gson的默认处理
+        return (TypeAdapter<T>) ADAPTERS.get(type.getRawType());
+    }
+
+    // 读取列表，null返回null
+    private static <E> List<E> readList(JsonReader in, TypeAdapter<E> elementAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<E> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(elementAdapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    private static <E> void writeList(JsonWriter out, List<E> list, TypeAdapter<E> elementAdapter) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (E element : list) {
+            elementAdapter.write(out, element);
+        }
+        out.endArray();
+    }
+
+    // 以下读取方法与Gson默认行为保持一致：遇到null时保留字段默认值
+    private static double nextDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextDouble();
+    }
+
+    private static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+
+    private static long nextLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextLong();
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.weatherapp.network;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按API Key限制请求频率（令牌桶）并统计每日请求配额
+ * 默认API Key由所有未配置自己Key的用户共享，客户端先自我限流，减少服务端返回429
+ */
+public class ApiRateLimiter {
+    private static final String PREF_NAME = "api_quota_prefs";
+    private static final String KEY_DAY_PREFIX = "day_";
+    private static final String KEY_COUNT_PREFIX = "count_";
+
+    // 令牌桶：最多连续发出10个请求，之后每6秒补充一个（每分钟10个）
+    private static final int BUCKET_CAPACITY = 10;
+    private static final long REFILL_INTERVAL_MILLIS = 6 * 1000;
+    // 每个API Key每天最多发出的网络请求数
+    public static final int DAILY_QUOTA = 1000;
+    // 剩余配额低于20%时改为优先使用缓存
+    private static final int LOW_BUDGET_THRESHOLD = DAILY_QUOTA / 5;
+
+    // 单个API Key的限流状态
+    private static class KeyState {
+        double tokens = BUCKET_CAPACITY;
+        long lastRefillAt = SystemClock.elapsedRealtime();
+        // 服务端通过Retry-After要求暂停到的时间（elapsedRealtime），0表示不限制
+        long blockedUntil;
+        // 配额计数对应的日期（yyyyMMdd）和当天已发出的请求数
+        int day;
+        int count;
+    }
+
+    private final SharedPreferences sharedPreferences;
+    private final Map<String, KeyState> states = new HashMap<>();
+
+    ApiRateLimiter(Context context) {
+        this(context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE));
+    }
+
+    // 指定保存配额计数的SharedPreferences
+    ApiRateLimiter(SharedPreferences sharedPreferences) {
+        this.sharedPreferences = sharedPreferences;
+    }
+
+    /**
+     * 尝试取得一个令牌
+     * @param apiKey API Key
+     * @return 0表示已取得令牌；否则为需要等待的毫秒数（令牌不足或被服务端要求暂停）
+     */
+    synchronized long tryAcquire(String apiKey) {
+        KeyState state = stateFor(apiKey);
+        long now = SystemClock.elapsedRealtime();
+        if (state.blockedUntil > now) {
+            return state.blockedUntil - now;
+        }
+        refill(state, now);
+        if (state.tokens >= 1) {
+            state.tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - state.tokens) * REFILL_INTERVAL_MILLIS);
+    }
+
+    /**
+     * 归还一个令牌，用于取得令牌后没有访问服务端的请求（由缓存直接返回）
+     */
+    synchronized void release(String apiKey) {
+        KeyState state = stateFor(apiKey);
+        state.tokens = Math.min(BUCKET_CAPACITY, state.tokens + 1);
+    }
+
+    /**
+     * 记录一次真正发到服务端的请求
+     */
+    synchronized void recordNetworkRequest(String apiKey) {
+        KeyState state = stateFor(apiKey);
+        rollDay(state);
+        state.count++;
+        sharedPreferences.edit()
+                .putInt(KEY_DAY_PREFIX + apiKey, state.day)
+                .putInt(KEY_COUNT_PREFIX + apiKey, state.count)
+                .apply();
+    }
+
+    /**
+     * 服务端返回Retry-After时，在指定时间内不再向服务端发请求
+     */
+    synchronized void blockFor(String apiKey, long millis) {
+        KeyState state = stateFor(apiKey);
+        state.blockedUntil = Math.max(state.blockedUntil, SystemClock.elapsedRealtime() + millis);
+        // 暂停期间不积累令牌
+        state.tokens = 0;
+    }
+
+    // 剩余配额不足或被服务端要求暂停时，优先使用缓存
+    synchronized boolean shouldPreferCache(String apiKey) {
+        KeyState state = stateFor(apiKey);
+        return remaining(state) < LOW_BUDGET_THRESHOLD || state.blockedUntil > SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * 获取API Key今天剩余的请求配额
+     * @param apiKey API Key
+     * @return 剩余请求数
+     */
+    public synchronized int getRemainingDailyQuota(String apiKey) {
+        return remaining(stateFor(apiKey));
+    }
+
+    private int remaining(KeyState state) {
+        rollDay(state);
+        return Math.max(DAILY_QUOTA - state.count, 0);
+    }
+
+    private KeyState stateFor(String apiKey) {
+        KeyState state = states.get(apiKey);
+        if (state == null) {
+            state = new KeyState();
+            // 恢复当天已使用的配额，进程重启后计数不清零
+            state.day = sharedPreferences.getInt(KEY_DAY_PREFIX + apiKey, 0);
+            state.count = sharedPreferences.getInt(KEY_COUNT_PREFIX + apiKey, 0);
+            states.put(apiKey, state);
+        }
+        return state;
+    }
+
+    private static void refill(KeyState state, long now) {
+        long elapsed = now - state.lastRefillAt;
+        if (elapsed > 0) {
+            state.tokens = Math.min(BUCKET_CAPACITY, state.tokens + (double) elapsed / REFILL_INTERVAL_MILLIS);
+            state.lastRefillAt = now;
+        }
+    }
+
+    // 跨天后配额计数清零
+    private static void rollDay(KeyState state) {
+        int today = today();
+        if (state.day != today) {
+            state.day = today;
+            state.count = 0;
+        }
+    }
+
+    private static int today() {
+        Calendar calendar = Calendar.getInstance();
+        return calendar.get(Calendar.YEAR) * 10000
+                + (calendar.get(Calendar.MONTH) + 1) * 100
+                + calendar.get(Calendar.DAY_OF_MONTH);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.weatherapp.network;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 网络拦截器：按接口改写响应的Cache-Control，使OkHttp缓存按照天气数据的更新频率判断新鲜度
+ */
+class CachePolicyInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        EndpointCachePolicy policy = EndpointCachePolicy.forUrl(request.url());
+        if (policy == null || !"GET".equals(request.method()) || !response.isSuccessful()) {
+            return response;
+        }
+
+        // 忽略服务端返回的缓存头，统一使用本地策略
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .removeHeader("Expires")
+                .header("Cache-Control", "public, max-age=" + policy.maxAgeSeconds)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.weatherapp.network;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按接口的熔断器：连续失败达到阈值后打开，打开期间不再访问服务端（由缓存提供数据），
+ * 冷却时间过后放行一个试探请求，成功则关闭，失败则重新打开
+ */
+public class CircuitBreaker {
+    private static final String TAG = "CircuitBreaker";
+    // 连续失败3次后打开
+    private static final int FAILURE_THRESHOLD = 3;
+    // 打开后30秒再试探
+    private static final long OPEN_DURATION_MILLIS = 30 * 1000;
+
+    public enum State {
+        // 正常放行
+        CLOSED,
+        // 拒绝请求
+        OPEN,
+        // 冷却结束，只放行一个试探请求
+        HALF_OPEN
+    }
+
+    // 单个接口的熔断状态
+    private static class Circuit {
+        State state = State.CLOSED;
+        int consecutiveFailures;
+        long openedAt;
+        boolean trialInFlight;
+    }
+
+    private final Map<EndpointCachePolicy, Circuit> circuits = new EnumMap<>(EndpointCachePolicy.class);
+
+    CircuitBreaker() {
+        for (EndpointCachePolicy endpoint : EndpointCachePolicy.values()) {
+            circuits.put(endpoint, new Circuit());
+        }
+    }
+
+    /**
+     * 判断是否允许向服务端发出请求
+     * @param endpoint 接口
+     * @return 允许时返回true；熔断打开或试探请求进行中时返回false
+     */
+    synchronized boolean allowRequest(EndpointCachePolicy endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        if (circuit.state == State.OPEN) {
+            if (SystemClock.elapsedRealtime() - circuit.openedAt < OPEN_DURATION_MILLIS) {
+                return false;
+            }
+            transition(endpoint, circuit, State.HALF_OPEN);
+        }
+        if (circuit.state == State.HALF_OPEN) {
+            if (circuit.trialInFlight) {
+                return false;
+            }
+            circuit.trialInFlight = true;
+        }
+        return true;
+    }
+
+    // 请求成功：清零失败计数并关闭熔断
+    synchronized void recordSuccess(EndpointCachePolicy endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        circuit.consecutiveFailures = 0;
+        circuit.trialInFlight = false;
+        if (circuit.state != State.CLOSED) {
+            transition(endpoint, circuit, State.CLOSED);
+        }
+    }
+
+    // 请求失败：试探失败或连续失败达到阈值时打开熔断
+    synchronized void recordFailure(EndpointCachePolicy endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        circuit.consecutiveFailures++;
+        circuit.trialInFlight = false;
+        if (circuit.state == State.HALF_OPEN || circuit.consecutiveFailures >= FAILURE_THRESHOLD) {
+            circuit.openedAt = SystemClock.elapsedRealtime();
+            if (circuit.state != State.OPEN) {
+                transition(endpoint, circuit, State.OPEN);
+            }
+        }
+    }
+
+    // 请求被取消等无法判断结果的情况，只释放试探名额
+    synchronized void recordIgnored(EndpointCachePolicy endpoint) {
+        circuits.get(endpoint).trialInFlight = false;
+    }
+
+    /**
+     * 获取各接口当前的熔断状态（用于诊断）
+     * @return 接口名称到熔断状态的映射
+     */
+    public synchronized Map<String, State> getStates() {
+        Map<String, State> states = new LinkedHashMap<>();
+        for (Map.Entry<EndpointCachePolicy, Circuit> entry : circuits.entrySet()) {
+            states.put(entry.getKey().name(), entry.getValue().state);
+        }
+        return states;
+    }
+
+    private static void transition(EndpointCachePolicy endpoint, Circuit circuit, State state) {
+        Log.d(TAG, endpoint.name() + ": " + circuit.state + " -> " + state);
+        circuit.state = state;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.weatherapp.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 应用拦截器：熔断打开时直接失败，不再访问出错的接口
+ * 需要放在StaleIfErrorInterceptor之后，熔断期间由它回退到缓存数据；只读缓存的回退请求直接放行
+ */
+class CircuitBreakerInterceptor implements Interceptor {
+    private static final String TAG = "CircuitBreakerIntercept";
+
+    private final CircuitBreaker circuitBreaker;
+
+    CircuitBreakerInterceptor(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        EndpointCachePolicy policy = EndpointCachePolicy.forUrl(request.url());
+        // 只读缓存的请求（StaleIfErrorInterceptor的回退）不会访问接口，熔断打开时也要放行
+        if (policy == null || !"GET".equals(request.method()) || request.cacheControl().onlyIfCached()) {
+            return chain.proceed(request);
+        }
+
+        if (!circuitBreaker.allowRequest(policy)) {
+            Log.w(TAG, "Circuit open, rejecting " + request.url().encodedPath());
+            throw new IOException("服务暂时不可用，请稍后再试");
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (RateLimitInterceptor.RateLimitedException e) {
+            // 被本地限流的请求没有到达服务端，不计入接口的成败
+            circuitBreaker.recordIgnored(policy);
+            throw e;
+        } catch (IOException e) {
+            if (chain.call().isCanceled()) {
+                circuitBreaker.recordIgnored(policy);
+            } else {
+                circuitBreaker.recordFailure(policy);
+            }
+            throw e;
+        }
+
+        if (response.code() >= 500) {
+            circuitBreaker.recordFailure(policy);
+        } else if (response.networkResponse() != null) {
+            circuitBreaker.recordSuccess(policy);
+        } else {
+            // 直接由缓存返回，无法判断接口是否恢复
+            circuitBreaker.recordIgnored(policy);
+        }
+        return response;
+    }
+}
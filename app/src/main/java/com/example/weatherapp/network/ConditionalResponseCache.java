@@ -0,0 +1,101 @@
+package com.example.weatherapp.network;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.net.HttpURLConnection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 按请求键保存响应的校验器（ETag / Last-Modified）和已解析的结果
+ * 再次请求时带上If-None-Match / If-Modified-Since，服务端返回304时直接复用已解析的对象，
+ * 既不重新下载也不重新反序列化
+ */
+class ConditionalResponseCache<T> {
+    private static final String TAG = "ConditionalCache";
+    // 最多保存的位置数
+    private static final int MAX_ENTRIES = 8;
+
+    // 一个请求键对应的校验器和已解析结果
+    static class Entry<T> {
+        final String etag;
+        final String lastModified;
+        final T body;
+        // 最近一次从服务端确认有效的时间（elapsedRealtime）
+        volatile long validatedAt;
+
+        Entry(String etag, String lastModified, T body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+            this.validatedAt = SystemClock.elapsedRealtime();
+        }
+
+        long ageSeconds() {
+            return (SystemClock.elapsedRealtime() - validatedAt) / 1000;
+        }
+    }
+
+    // 按访问顺序淘汰最久未使用的位置
+    private final Map<String, Entry<T>> entries = new LinkedHashMap<String, Entry<T>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    synchronized Entry<T> get(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void put(String key, Entry<T> entry) {
+        entries.put(key, entry);
+    }
+
+    /**
+     * 包装回调：200时保存校验器和结果，304时把已保存的结果作为成功响应交给调用方
+     * @param key 请求键
+     * @param callback 调用方的回调
+     * @return 包装后的回调
+     */
+    Callback<T> wrap(final String key, final Callback<T> callback) {
+        return new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    Entry<T> entry = get(key);
+                    if (entry != null) {
+                        Log.d(TAG, "Not modified, reusing parsed response for " + key);
+                        entry.validatedAt = SystemClock.elapsedRealtime();
+                        okhttp3.Response raw = response.raw().newBuilder()
+                                .code(HttpURLConnection.HTTP_OK)
+                                .message("Not Modified")
+                                .body(null)
+                                .build();
+                        callback.onResponse(call, Response.success(entry.body, raw));
+                        return;
+                    }
+                } else if (response.isSuccessful() && response.body() != null
+                        && response.raw().networkResponse() != null) {
+                    // 只记录真正来自服务端的响应，磁盘缓存返回的响应不更新确认时间
+                    String etag = response.headers().get("ETag");
+                    String lastModified = response.headers().get("Last-Modified");
+                    if (etag != null || lastModified != null) {
+                        put(key, new Entry<>(etag, lastModified, response.body()));
+                    }
+                }
+                callback.onResponse(call, response);
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                callback.onFailure(call, t);
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.weatherapp.network;
+
+import okhttp3.HttpUrl;
+
+/**
+ * 各个OpenWeatherMap接口的缓存策略
+ * 新鲜期按照接口在上游的更新频率设置，不依赖服务端返回的缓存头
+ */
+enum EndpointCachePolicy {
+    // 当前天气：上游大约每10分钟更新一次观测数据，网络异常时最多回退到3小时前的数据
+    CURRENT_WEATHER("/data/2.5/weather", 10 * 60, 3 * 60 * 60),
+    // 多城市当前天气：与单城市当前天气相同
+    CURRENT_WEATHER_GROUP("/data/2.5/group", 10 * 60, 3 * 60 * 60),
+    // 5天预报：上游每3小时生成一轮预报，这里取1小时以便尽快拿到新一轮结果，网络异常时最多回退到1天前的数据
+    FORECAST("/data/2.5/forecast", 60 * 60, 24 * 60 * 60),
+    // 反向地理编码：经纬度对应的城市名称几乎不会变化
+    REVERSE_GEOCODING("/geo/1.0/reverse", 7 * 24 * 60 * 60, 30 * 24 * 60 * 60);
+
+    final String path;
+    // 缓存新鲜期（秒）
+    final int maxAgeSeconds;
+    // 网络失败时允许使用的过期缓存时长（秒）
+    final int maxStaleSeconds;
+
+    EndpointCachePolicy(String path, int maxAgeSeconds, int maxStaleSeconds) {
+        this.path = path;
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.maxStaleSeconds = maxStaleSeconds;
+    }
+
+    /**
+     * 根据请求地址查找对应的缓存策略
+     * @param url 请求地址
+     * @return 对应的缓存策略，未知接口返回null
+     */
+    static EndpointCachePolicy forUrl(HttpUrl url) {
+        String path = url.encodedPath();
+        for (EndpointCachePolicy policy : values()) {
+            if (policy.path.equals(path)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
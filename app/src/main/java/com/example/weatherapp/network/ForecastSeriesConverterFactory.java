@@ -0,0 +1,31 @@
+package com.example.weatherapp.network;
+
+import com.example.weatherapp.model.ForecastSeries;
+import com.google.gson.stream.JsonReader;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Retrofit转换器：返回类型为ForecastSeries时使用流式解析器，其他类型交给后续的转换器
+ */
+class ForecastSeriesConverterFactory extends Converter.Factory {
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type != ForecastSeries.class) {
+            return null;
+        }
+        return (Converter<ResponseBody, ForecastSeries>) body -> {
+            try (JsonReader reader = new JsonReader(body.charStream())) {
+                return ForecastSeriesParser.parse(reader);
+            } finally {
+                body.close();
+            }
+        };
+    }
+}
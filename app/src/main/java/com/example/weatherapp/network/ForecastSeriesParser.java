@@ -0,0 +1,243 @@
+package com.example.weatherapp.network;
+
+import com.example.weatherapp.model.ForecastSeries;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * 基于JsonReader的流式解析器，把/data/2.5/forecast的响应直接填充到列式的ForecastSeries中
+ * 解析过程中不创建ForecastItem等中间对象，重复出现的描述和图标字符串只保留一份
+ */
+public final class ForecastSeriesParser {
+
+    private ForecastSeriesParser() {
+    }
+
+    /**
+     * 解析天气预报响应
+     * @param reader 指向响应根对象的JsonReader
+     * @return 解析后的列式预报序列
+     * @throws IOException 读取或格式错误时抛出
+     */
+    public static ForecastSeries parse(JsonReader reader) throws IOException {
+        ForecastSeries.Builder builder = new ForecastSeries.Builder();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "cnt":
+                    // cnt出现在list之前，可以据此一次性分配好数组
+                    builder.ensureCapacity(reader.nextInt());
+                    break;
+                case "list":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        parseItem(reader, builder);
+                    }
+                    reader.endArray();
+                    break;
+                case "city":
+                    parseCity(reader, builder);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return builder.build();
+    }
+
+    private static void parseItem(JsonReader reader, ForecastSeries.Builder builder) throws IOException {
+        int index = builder.add(0);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "dt":
+                    builder.setEpochSeconds(index, reader.nextLong());
+                    break;
+                case "main":
+                    parseMain(reader, builder, index);
+                    break;
+                case "weather":
+                    parseWeather(reader, builder, index);
+                    break;
+                case "pop":
+                    builder.setPop(index, reader.nextDouble());
+                    break;
+                case "rain":
+                    builder.setRain3h(index, parseThreeHour(reader));
+                    break;
+                case "snow":
+                    builder.setSnow3h(index, parseThreeHour(reader));
+                    break;
+                case "wind":
+                    parseWind(reader, builder, index);
+                    break;
+                case "sys":
+                    parseSys(reader, builder, index);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void parseMain(JsonReader reader, ForecastSeries.Builder builder, int index) throws IOException {
+        // 与对象树一致：有main时缺少的温度字段按0处理
+        builder.setTemperatures(index, 0, 0, 0);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "temp":
+                    builder.setTemperature(index, reader.nextDouble());
+                    break;
+                case "temp_min":
+                    builder.setMinTemperature(index, reader.nextDouble());
+                    break;
+                case "temp_max":
+                    builder.setMaxTemperature(index, reader.nextDouble());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+    }
+
+    // 只取第一个天气状况，与界面展示保持一致
+    private static void parseWeather(JsonReader reader, ForecastSeries.Builder builder, int index) throws IOException {
+        reader.beginArray();
+        boolean first = true;
+        while (reader.hasNext()) {
+            if (!first) {
+                reader.skipValue();
+                continue;
+            }
+            first = false;
+            builder.setConditionCode(index, 0);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+                switch (name) {
+                    case "id":
+                        builder.setConditionCode(index, reader.nextInt());
+                        break;
+                    case "description":
+                        builder.setDescription(index, reader.nextString());
+                        break;
+                    case "icon":
+                        builder.setIcon(index, reader.nextString());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+    }
+
+    // rain/snow对象中的"3h"字段，没有该字段时为0
+    private static double parseThreeHour(JsonReader reader) throws IOException {
+        double amount = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("3h".equals(name) && reader.peek() != JsonToken.NULL) {
+                amount = reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return amount;
+    }
+
+    private static void parseWind(JsonReader reader, ForecastSeries.Builder builder, int index) throws IOException {
+        builder.setWind(index, 0, 0);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "speed":
+                    builder.setWindSpeed(index, reader.nextDouble());
+                    break;
+                case "deg":
+                    builder.setWindDegree(index, reader.nextInt());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void parseSys(JsonReader reader, ForecastSeries.Builder builder, int index) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("pod".equals(name) && reader.peek() != JsonToken.NULL) {
+                builder.setPartOfDay(index, reader.nextString());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void parseCity(JsonReader reader, ForecastSeries.Builder builder) throws IOException {
+        String cityName = null;
+        int timezoneOffsetSeconds = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "name":
+                    cityName = reader.nextString();
+                    break;
+                case "timezone":
+                    timezoneOffsetSeconds = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        builder.setCity(cityName, timezoneOffsetSeconds);
+    }
+}
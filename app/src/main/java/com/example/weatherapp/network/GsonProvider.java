@@ -0,0 +1,18 @@
+package com.example.weatherapp.network;
+
+import com.example.weatherapp.model.ModelTypeAdapterFactory;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * 全局共享的Gson实例，模型类通过手写的TypeAdapter解析，不走反射
+ */
+public class GsonProvider {
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+
+    public static Gson get() {
+        return GSON;
+    }
+}
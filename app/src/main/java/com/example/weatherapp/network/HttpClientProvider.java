@@ -0,0 +1,127 @@
+package com.example.weatherapp.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.util.Log;
+
+import com.example.weatherapp.BuildConfig;
+import com.example.weatherapp.utils.PreferencesHelper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 全局共享的OkHttpClient
+ * Retrofit和Glide都从这个客户端派生，共用同一个调度器和连接池，
+ * 到openweathermap.org的连接和TLS会话可以在两者之间复用
+ */
+public class HttpClientProvider {
+    private static final String TAG = "HttpClientProvider";
+
+    // 启动时预先建立连接的地址：天气接口和天气图标
+    private static final String[] PRECONNECT_URLS = {
+            WeatherApiService.BASE_URL,
+            "https://openweathermap.org/"
+    };
+
+    private static volatile OkHttpClient client;
+
+    private HttpClientProvider() {
+    }
+
+    /**
+     * 获取共享的基础客户端（不带缓存和拦截器）
+     * 需要缓存或拦截器时使用newBuilder()派生，派生的客户端仍共用调度器和连接池
+     *
+     * @return 共享的OkHttpClient
+     */
+    public static OkHttpClient get() {
+        if (client == null) {
+            synchronized (HttpClientProvider.class) {
+                if (client == null) {
+                    client = createClient();
+                }
+            }
+        }
+        return client;
+    }
+
+    private static OkHttpClient createClient() {
+        // 只访问少数几个主机：总并发16，每个主机最多6个（天气数据3个并行请求加上图标）
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(16);
+        dispatcher.setMaxRequestsPerHost(6);
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                // 空闲连接保留5分钟，与天气数据的软过期时间一致，刷新时可以直接复用
+                .connectionPool(new ConnectionPool(6, 5, TimeUnit.MINUTES))
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(15, TimeUnit.SECONDS)
+                .writeTimeout(15, TimeUnit.SECONDS);
+        // 首字节时间只在debug构建中记录，release构建不为每个请求创建监听器
+        if (BuildConfig.DEBUG) {
+            builder.eventListenerFactory(TtfbEventListener.FACTORY);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 预先建立到天气接口和图标服务器的连接（DNS、TCP、TLS），
+     * 应用启动时与定位并行执行，首次获取天气时直接复用连接池中的连接
+     * 设置中关闭了预连接、没有可用网络或当前网络按流量计费时跳过
+     *
+     * @param context 上下文
+     */
+    public static void preconnect(Context context) {
+        if (!new PreferencesHelper(context).isPreconnectEnabled()) {
+            Log.d(TAG, "Preconnect disabled");
+            return;
+        }
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null) {
+            return;
+        }
+        NetworkInfo activeNetwork = connectivityManager.getActiveNetworkInfo();
+        if (activeNetwork == null || !activeNetwork.isConnected()) {
+            Log.d(TAG, "Preconnect skipped: no network");
+            return;
+        }
+        if (connectivityManager.isActiveNetworkMetered()) {
+            Log.d(TAG, "Preconnect skipped: metered network");
+            return;
+        }
+        for (String url : PRECONNECT_URLS) {
+            preconnect(get(), url);
+        }
+    }
+
+    // 向指定地址发送HEAD请求，连接建立后留在客户端的连接池中
+    static void preconnect(OkHttpClient client, String url) {
+        Request request = new Request.Builder()
+                .url(url)
+                .head()
+                .build();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                Log.d(TAG, "Preconnected to " + call.request().url().host());
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                Log.w(TAG, "Preconnect to " + call.request().url().host() + " failed: " + e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.weatherapp.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 应用拦截器：按API Key限流并统计每日配额
+ * 配额不足时优先使用缓存；服务端返回429时按Retry-After暂停，并尽量用缓存响应代替错误
+ * 需要放在StaleIfErrorInterceptor之后，限流失败抛出的异常由它回退到过期缓存；只读缓存的回退请求不限流
+ */
+class RateLimitInterceptor implements Interceptor {
+    private static final String TAG = "RateLimitInterceptor";
+    // 令牌不足时最多在请求线程上等待的时间，超过则直接失败
+    private static final long MAX_WAIT_MILLIS = 2000;
+    // 服务端未给出Retry-After时的默认暂停时间
+    private static final long DEFAULT_RETRY_AFTER_MILLIS = 60 * 1000;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * 请求被本地限流拦下，没有到达服务端
+     */
+    static class RateLimitedException extends IOException {
+        RateLimitedException(String message) {
+            super(message);
+        }
+    }
+
+    private final ApiRateLimiter rateLimiter;
+
+    RateLimitInterceptor(ApiRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        EndpointCachePolicy policy = EndpointCachePolicy.forUrl(request.url());
+        String apiKey = request.url().queryParameter("appid");
+        // 只读缓存的请求（包括限流后回退到缓存的请求）不会访问服务端，不限流也不计入配额
+        if (policy == null || apiKey == null || !"GET".equals(request.method())
+                || request.cacheControl().onlyIfCached()) {
+            return chain.proceed(request);
+        }
+
+        // 配额不足时先尝试缓存，哪怕已经过了新鲜期
+        if (rateLimiter.shouldPreferCache(apiKey)) {
+            Response cached = StaleIfErrorInterceptor.proceedFromCache(chain, request, policy.maxStaleSeconds);
+            if (cached != null) {
+                Log.d(TAG, "Budget low, serving cache for " + request.url().encodedPath());
+                return cached;
+            }
+        }
+
+        acquire(apiKey);
+        Response response = chain.proceed(request);
+        if (response.networkResponse() != null) {
+            rateLimiter.recordNetworkRequest(apiKey);
+        } else {
+            // 直接由缓存返回，没有访问服务端，归还令牌
+            rateLimiter.release(apiKey);
+        }
+
+        if (response.code() == HTTP_TOO_MANY_REQUESTS) {
+            long retryAfterMillis = parseRetryAfter(response.header("Retry-After"));
+            Log.w(TAG, "Rate limited by server, pausing requests for " + retryAfterMillis + "ms");
+            rateLimiter.blockFor(apiKey, retryAfterMillis);
+            // 再次proceed之前先关闭429响应，没有缓存时返回读出的副本
+            Response error = StaleIfErrorInterceptor.bufferAndClose(response);
+            Response cached = StaleIfErrorInterceptor.proceedFromCache(chain, request, policy.maxStaleSeconds);
+            if (cached != null) {
+                return cached;
+            }
+            return error;
+        }
+        return response;
+    }
+
+    // 取得令牌，需要等待的时间较短时在当前线程等待，否则直接失败
+    private void acquire(String apiKey) throws IOException {
+        long waitMillis;
+        while ((waitMillis = rateLimiter.tryAcquire(apiKey)) > 0) {
+            if (waitMillis > MAX_WAIT_MILLIS) {
+                throw new RateLimitedException("请求过于频繁，请稍后再试");
+            }
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for rate limit");
+            }
+        }
+    }
+
+    // Retry-After只处理秒数格式，无法解析时使用默认值
+    private static long parseRetryAfter(String value) {
+        if (value != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Unsupported Retry-After value: " + value);
+            }
+        }
+        return DEFAULT_RETRY_AFTER_MILLIS;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.weatherapp.network;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 限制同时进行的请求数，超出的请求排队，前面的请求完成后依次发出
+ */
+class RequestGate {
+    private final int maxConcurrent;
+    private int running;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+
+    RequestGate(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * 发起请求，已达到并发上限时排队等待
+     * @param factory 创建Retrofit调用的工厂，轮到该请求时才创建
+     * @param callback 结果回调
+     */
+    <T> void enqueue(final SingleFlight.CallFactory<T> factory, final Callback<T> callback) {
+        Runnable start = () -> factory.create().enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                release();
+                callback.onResponse(call, response);
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                release();
+                callback.onFailure(call, t);
+            }
+        });
+        synchronized (this) {
+            if (running >= maxConcurrent) {
+                waiting.add(start);
+                return;
+            }
+            running++;
+        }
+        start.run();
+    }
+
+    // 一个请求完成，发出排队中的下一个
+    private void release() {
+        Runnable next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                running--;
+                return;
+            }
+        }
+        next.run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.weatherapp.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 应用拦截器：GET请求遇到网络错误或5xx时按带随机抖动的指数退避重试
+ * 只重试幂等的GET请求，被本地限流、已取消或只读缓存的请求不重试
+ */
+class RetryInterceptor implements Interceptor {
+    private static final String TAG = "RetryInterceptor";
+    // 最多重试2次（共3次尝试）
+    private static final int MAX_RETRIES = 2;
+    // 退避基数和上限：第n次重试在[0, min(上限, 基数 * 2^n))内随机等待
+    private static final long BASE_DELAY_MILLIS = 500;
+    private static final long MAX_DELAY_MILLIS = 4000;
+
+    private final Random random = new Random();
+    private final AtomicLong retryCount = new AtomicLong();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // 只读缓存的请求没有缓存时返回的504是OkHttp生成的，不是服务端错误，不重试
+        if (!"GET".equals(request.method()) || request.cacheControl().onlyIfCached()
+                || EndpointCachePolicy.forUrl(request.url()) == null) {
+            return chain.proceed(request);
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (RateLimitInterceptor.RateLimitedException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= MAX_RETRIES || chain.call().isCanceled()) {
+                    throw e;
+                }
+                Log.w(TAG, "Request failed, retrying " + request.url().encodedPath() + ": " + e.getMessage());
+                backOff(attempt);
+                continue;
+            }
+
+            if (response.code() < 500 || attempt >= MAX_RETRIES) {
+                return response;
+            }
+            Log.w(TAG, "Server error " + response.code() + ", retrying " + request.url().encodedPath());
+            response.close();
+            backOff(attempt);
+        }
+    }
+
+    // 全抖动的指数退避，避免大量客户端同时重试
+    private void backOff(int attempt) throws IOException {
+        retryCount.incrementAndGet();
+        long ceiling = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << attempt);
+        long delay;
+        synchronized (random) {
+            delay = (long) (random.nextDouble() * ceiling);
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off");
+        }
+    }
+
+    // 获取累计的重试次数
+    long getRetryCount() {
+        return retryCount.get();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.weatherapp.network;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 合并相同的并发请求：同一个key的请求未完成前只发出一次网络调用，
+ * 期间到达的调用方都挂到这次调用上，并收到同一个结果
+ */
+public class SingleFlight {
+    private static final String TAG = "SingleFlight";
+
+    /**
+     * 延迟创建Retrofit调用，只有真正需要发出请求时才创建
+     */
+    public interface CallFactory<T> {
+        Call<T> create();
+    }
+
+    /**
+     * 调用方持有的请求句柄，取消后不再收到回调；
+     * 所有调用方都取消后，底层的网络调用也会被取消
+     */
+    public interface Subscription {
+        void cancel();
+    }
+
+    // 一次正在进行的网络调用及等待结果的回调
+    private static class Flight<T> {
+        final Call<T> call;
+        final List<Callback<T>> callbacks = new ArrayList<>();
+
+        Flight(Call<T> call) {
+            this.call = call;
+        }
+    }
+
+    private final Map<String, Flight<?>> inFlight = new HashMap<>();
+    // 命中：挂到已有调用上的请求数；未命中：真正发出的网络调用数
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * 发起请求，如果相同key的请求正在进行则直接等待其结果
+     * @param key 请求键（接口 + 量化后的坐标）
+     * @param factory 创建Retrofit调用的工厂
+     * @param callback 结果回调
+     * @return 请求句柄，用于取消
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Subscription enqueue(final String key, CallFactory<T> factory, final Callback<T> callback) {
+        final Flight<T> flight;
+        boolean isNewFlight = false;
+        synchronized (this) {
+            Flight<T> existing = (Flight<T>) inFlight.get(key);
+            if (existing != null) {
+                flight = existing;
+                hitCount.incrementAndGet();
+                Log.d(TAG, "Joined in-flight request: " + key);
+            } else {
+                flight = new Flight<>(factory.create());
+                inFlight.put(key, flight);
+                missCount.incrementAndGet();
+                isNewFlight = true;
+            }
+            flight.callbacks.add(callback);
+        }
+
+        if (isNewFlight) {
+            flight.call.enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(Call<T> call, Response<T> response) {
+                    for (Callback<T> waiting : complete(key, flight)) {
+                        waiting.onResponse(call, response);
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<T> call, Throwable t) {
+                    for (Callback<T> waiting : complete(key, flight)) {
+                        waiting.onFailure(call, t);
+                    }
+                }
+            });
+        }
+        return () -> detach(key, flight, callback);
+    }
+
+    // 取消一个调用方：移除它的回调，没有调用方等待时取消网络调用
+    private <T> void detach(String key, Flight<T> flight, Callback<T> callback) {
+        boolean cancelCall = false;
+        synchronized (this) {
+            if (!flight.callbacks.remove(callback)) {
+                return;
+            }
+            if (flight.callbacks.isEmpty() && inFlight.get(key) == flight) {
+                inFlight.remove(key);
+                cancelCall = true;
+            }
+        }
+        if (cancelCall) {
+            Log.d(TAG, "Cancelled in-flight request: " + key);
+            flight.call.cancel();
+        }
+    }
+
+    // 请求完成：从进行中列表移除，返回所有等待的回调
+    private synchronized <T> List<Callback<T>> complete(String key, Flight<T> flight) {
+        if (inFlight.get(key) == flight) {
+            inFlight.remove(key);
+        }
+        List<Callback<T>> callbacks = new ArrayList<>(flight.callbacks);
+        // 完成后句柄的取消不再有意义
+        flight.callbacks.clear();
+        return callbacks;
+    }
+
+    // 获取被合并掉的请求数
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    // 获取真正发出的网络请求数
+    public long getMissCount() {
+        return missCount.get();
+    }
+}
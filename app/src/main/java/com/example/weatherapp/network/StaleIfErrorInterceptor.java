@@ -0,0 +1,95 @@
+package com.example.weatherapp.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * 应用拦截器：网络请求失败或服务端出错时，回退到磁盘缓存中的过期数据（stale-if-error）
+ */
+class StaleIfErrorInterceptor implements Interceptor {
+    private static final String TAG = "StaleIfErrorInterceptor";
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        EndpointCachePolicy policy = EndpointCachePolicy.forUrl(request.url());
+        if (policy == null || !"GET".equals(request.method())) {
+            return chain.proceed(request);
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            Response cached = proceedFromCache(chain, request, policy.maxStaleSeconds);
+            if (cached != null) {
+                Log.w(TAG, "Network failed, serving stale cache for " + request.url().encodedPath() + ": " + e.getMessage());
+                return cached;
+            }
+            throw e;
+        }
+
+        if (response.code() >= 500) {
+            // 前一个响应未关闭时OkHttp不允许再次proceed（只读缓存的请求也一样），先读出错误响应再尝试缓存
+            Response error = bufferAndClose(response);
+            Response cached = proceedFromCache(chain, request, policy.maxStaleSeconds);
+            if (cached != null) {
+                Log.w(TAG, "Server error " + error.code() + ", serving stale cache for " + request.url().encodedPath());
+                return cached;
+            }
+            return error;
+        }
+        return response;
+    }
+
+    /**
+     * 读出响应体并关闭原响应，返回响应体保存在内存中的副本
+     * 同一个拦截器中需要再次调用chain.proceed时使用，错误响应的响应体很小
+     * @param response 原响应，调用后已关闭
+     * @return 内容相同的响应
+     */
+    static Response bufferAndClose(Response response) throws IOException {
+        try (ResponseBody body = response.body()) {
+            if (body == null) {
+                return response;
+            }
+            return response.newBuilder()
+                    .body(ResponseBody.create(body.bytes(), body.contentType()))
+                    .build();
+        }
+    }
+
+    /**
+     * 只从缓存读取响应，允许使用过期数据
+     * @param chain 拦截器链
+     * @param request 原始请求
+     * @param maxStaleSeconds 允许的最大过期时长（秒）
+     * @return 缓存中的响应，没有可用缓存时返回null
+     */
+    static Response proceedFromCache(Chain chain, Request request, int maxStaleSeconds) throws IOException {
+        // 带条件头的请求OkHttp不会从缓存读取，回退缓存时去掉条件头
+        Request cacheRequest = request.newBuilder()
+                .removeHeader("If-None-Match")
+                .removeHeader("If-Modified-Since")
+                .cacheControl(new CacheControl.Builder()
+                        .onlyIfCached()
+                        .maxStale(maxStaleSeconds, TimeUnit.SECONDS)
+                        .build())
+                .build();
+        Response cached = chain.proceed(cacheRequest);
+        if (cached.isSuccessful()) {
+            return cached;
+        }
+        // 没有可用缓存时OkHttp返回504
+        cached.close();
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.weatherapp.network;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+/**
+ * 记录每次请求的首字节时间（TTFB），以及是否新建了连接，用于对比预连接前后的效果
+ * 只在debug构建中挂到共享客户端上
+ * 每个请求创建一个实例，只在该请求的线程中使用
+ */
+class TtfbEventListener extends EventListener {
+    private static final String TAG = "Ttfb";
+
+    static final EventListener.Factory FACTORY = call -> new TtfbEventListener();
+
+    private long callStartAt;
+    private long connectStartAt;
+    private long connectMillis = -1;
+
+    @Override
+    public void callStart(Call call) {
+        callStartAt = SystemClock.elapsedRealtime();
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStartAt = SystemClock.elapsedRealtime();
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        connectMillis = SystemClock.elapsedRealtime() - connectStartAt;
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        long ttfb = SystemClock.elapsedRealtime() - callStartAt;
+        String connection = connectMillis >= 0 ? "new connection " + connectMillis + "ms" : "reused connection";
+        Log.d(TAG, call.request().url().host() + call.request().url().encodedPath()
+                + " TTFB " + ttfb + "ms (" + connection + ")");
+    }
+}
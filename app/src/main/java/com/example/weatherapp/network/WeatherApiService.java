@@ -1,11 +1,13 @@
 package com.example.weatherapp.network;
 
 import com.example.weatherapp.model.CurrentWeather;
-import com.example.weatherapp.model.ForecastWeather;
+import com.example.weatherapp.model.CurrentWeatherGroup;
+import com.example.weatherapp.model.ForecastSeries;
 import com.example.weatherapp.model.ReverseGeocodingResponse;
 
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Query;
 
 public interface WeatherApiService {
@@ -20,14 +22,38 @@ public interface WeatherApiService {
             @Query("appid") String apiKey
     );
 
-    // 获取5天天气预报数据，每3小时更新一次
+    // 获取5天天气预报数据，每3小时更新一次，直接解析为列式的ForecastSeries
     @GET("data/2.5/forecast")
-    Call<ForecastWeather> getForecastWeather(
+    Call<ForecastSeries> getForecastSeries(
             @Query("lat") double latitude,
             @Query("lon") double longitude,
             @Query("appid") String apiKey
     );
 
+    // 一次获取多个城市的当前天气，id为逗号分隔的城市ID，每次最多20个
+    @GET("data/2.5/group")
+    Call<CurrentWeatherGroup> getCurrentWeatherGroup(
+            @Query("id") String cityIds,
+            @Query("appid") String apiKey
+    );
+
+    // 按城市ID获取5天天气预报数据
+    @GET("data/2.5/forecast")
+    Call<ForecastSeries> getForecastSeriesByCityId(
+            @Query("id") int cityId,
+            @Query("appid") String apiKey
+    );
+
+    // 条件获取5天天气预报数据：带上次响应的校验器，未变化时服务端返回304
+    @GET("data/2.5/forecast")
+    Call<ForecastSeries> getForecastSeriesConditional(
+            @Query("lat") double latitude,
+            @Query("lon") double longitude,
+            @Query("appid") String apiKey,
+            @Header("If-None-Match") String etag,
+            @Header("If-Modified-Since") String lastModified
+    );
+
     // 反向地理编码（通过经纬度获取位置信息）
     @GET("data/2.5/weather")
     Call<CurrentWeather> getLocationInfo(
@@ -1,32 +1,80 @@
 package com.example.weatherapp.network;
 
+import android.content.Context;
+
 import com.example.weatherapp.model.CurrentWeather;
-import com.example.weatherapp.model.ForecastWeather;
+import com.example.weatherapp.model.CurrentWeatherGroup;
+import com.example.weatherapp.model.ForecastSeries;
 import com.example.weatherapp.model.ReverseGeocodingResponse;
+import com.example.weatherapp.utils.LocationCell;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
 import retrofit2.Call;
+import retrofit2.Callback;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 public class WeatherRepository {
+    // HTTP响应缓存目录及大小
+    private static final String HTTP_CACHE_DIR = "http_cache";
+    private static final long HTTP_CACHE_SIZE = 10 * 1024 * 1024; // 10MB
+    // group接口一次最多查询的城市数
+    public static final int MAX_CITIES_PER_GROUP = 20;
+    // 多城市模式下同时进行的预报请求数上限
+    private static final int MAX_CONCURRENT_FORECASTS = 3;
+
     private static WeatherRepository instance;
     private WeatherApiService weatherApiService;
     private String apiKey;
+    // 合并相同位置的并发请求
+    private final SingleFlight singleFlight = new SingleFlight();
+    // 按API Key限流并统计每日配额
+    private final ApiRateLimiter rateLimiter;
+    // 按接口熔断，以及GET请求的退避重试
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final RetryInterceptor retryInterceptor = new RetryInterceptor();
+    // 天气预报的校验器和已解析结果，用于条件请求
+    private final ConditionalResponseCache<ForecastSeries> forecastValidators = new ConditionalResponseCache<>();
+    // 多城市预报请求的并发限制
+    private final RequestGate forecastGate = new RequestGate(MAX_CONCURRENT_FORECASTS);
+
+    private WeatherRepository(Context context) {
+        // 从共享客户端派生带磁盘缓存的OkHttpClient（共用连接池），缓存新鲜度按接口单独设置
+        Cache cache = new Cache(new File(context.getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_SIZE);
+        rateLimiter = new ApiRateLimiter(context);
+        OkHttpClient okHttpClient = HttpClientProvider.get().newBuilder()
+                .cache(cache)
+                .addInterceptor(new StaleIfErrorInterceptor())
+                // 熔断、重试和限流都放在stale-if-error之后，被拒绝或最终失败的请求可以回退到过期缓存
+                // 熔断按重试后的最终结果计数，每次重试都要重新取得令牌
+                .addInterceptor(new CircuitBreakerInterceptor(circuitBreaker))
+                .addInterceptor(retryInterceptor)
+                .addInterceptor(new RateLimitInterceptor(rateLimiter))
+                .addNetworkInterceptor(new CachePolicyInterceptor())
+                .build();
 
-    private WeatherRepository() {
         // 创建Retrofit实例
         Retrofit retrofit = new Retrofit.Builder()
                 .baseUrl(WeatherApiService.BASE_URL)
-                .addConverterFactory(GsonConverterFactory.create())
+                .client(okHttpClient)
+                // ForecastSeries使用流式解析，需要放在Gson转换器之前
+                .addConverterFactory(new ForecastSeriesConverterFactory())
+                .addConverterFactory(GsonConverterFactory.create(GsonProvider.get()))
                 .build();
 
         // 创建API服务
         weatherApiService = retrofit.create(WeatherApiService.class);
     }
 
-    public static synchronized WeatherRepository getInstance() {
+    public static synchronized WeatherRepository getInstance(Context context) {
         if (instance == null) {
-            instance = new WeatherRepository();
+            instance = new WeatherRepository(context.getApplicationContext());
         }
         return instance;
     }
@@ -51,9 +99,9 @@ public class WeatherRepository {
         return weatherApiService.getCurrentWeather(latitude, longitude, getApiKey());
     }
 
-    // 获取天气预报数据
-    public Call<ForecastWeather> getForecastWeather(double latitude, double longitude) {
-        return weatherApiService.getForecastWeather(latitude, longitude, getApiKey());
+    // 获取列式存储的天气预报数据
+    public Call<ForecastSeries> getForecastSeries(double latitude, double longitude) {
+        return weatherApiService.getForecastSeries(latitude, longitude, getApiKey());
     }
 
     // 获取位置信息（通过经纬度获取城市名称等）
@@ -65,4 +113,99 @@ public class WeatherRepository {
     public Call<ReverseGeocodingResponse[]> getReverseGeocodingInfo(double latitude, double longitude) {
         return weatherApiService.getReverseGeocodingInfo(latitude, longitude, 1, getApiKey());
     }
-}
\ No newline at end of file
+
+    // 获取当前天气数据（同一位置的并发请求只发出一次，返回的句柄可用于取消）
+    public SingleFlight.Subscription fetchCurrentWeather(final double latitude, final double longitude, Callback<CurrentWeather> callback) {
+        return singleFlight.enqueue(requestKey("weather", latitude, longitude),
+                () -> getCurrentWeather(latitude, longitude), callback);
+    }
+
+    // 获取天气预报数据（同一位置的并发请求只发出一次，返回的句柄可用于取消）
+    // 磁盘缓存过了新鲜期后改用条件请求，预报未变化时直接复用上次解析的结果
+    public SingleFlight.Subscription fetchForecastSeries(final double latitude, final double longitude, Callback<ForecastSeries> callback) {
+        final String key = requestKey("forecast", latitude, longitude);
+        return singleFlight.enqueue(key,
+                () -> getForecastSeriesConditional(key, latitude, longitude),
+                forecastValidators.wrap(key, callback));
+    }
+
+    // 新鲜期内不带校验器，由磁盘缓存直接返回；带校验器的请求会绕过磁盘缓存
+    private Call<ForecastSeries> getForecastSeriesConditional(String key, double latitude, double longitude) {
+        ConditionalResponseCache.Entry<ForecastSeries> entry = forecastValidators.get(key);
+        if (entry == null || entry.ageSeconds() < EndpointCachePolicy.FORECAST.maxAgeSeconds) {
+            return getForecastSeries(latitude, longitude);
+        }
+        return weatherApiService.getForecastSeriesConditional(latitude, longitude, getApiKey(),
+                entry.etag, entry.lastModified);
+    }
+
+    // 获取反向地理编码信息（同一位置的并发请求只发出一次，返回的句柄可用于取消）
+    public SingleFlight.Subscription fetchReverseGeocodingInfo(final double latitude, final double longitude, Callback<ReverseGeocodingResponse[]> callback) {
+        return singleFlight.enqueue(requestKey("geocode", latitude, longitude),
+                () -> getReverseGeocodingInfo(latitude, longitude), callback);
+    }
+
+    // 批量获取多个城市的当前天气：每20个城市合并为一次group请求，每一批的结果分别回调
+    public void fetchCurrentWeatherForCities(List<Integer> cityIds, Callback<CurrentWeatherGroup> callback) {
+        for (final String ids : groupIdBatches(cityIds)) {
+            singleFlight.enqueue("group:" + ids,
+                    () -> weatherApiService.getCurrentWeatherGroup(ids, getApiKey()), callback);
+        }
+    }
+
+    // 城市ID按group接口的上限分批，每批为逗号分隔的字符串
+    static List<String> groupIdBatches(List<Integer> cityIds) {
+        List<String> batches = new ArrayList<>();
+        for (int start = 0; start < cityIds.size(); start += MAX_CITIES_PER_GROUP) {
+            batches.add(joinIds(cityIds.subList(start, Math.min(start + MAX_CITIES_PER_GROUP, cityIds.size()))));
+        }
+        return batches;
+    }
+
+    // 按城市ID获取天气预报，同时进行的请求数受限，其余排队
+    public void fetchForecastSeriesByCityId(final int cityId, Callback<ForecastSeries> callback) {
+        forecastGate.enqueue(() -> weatherApiService.getForecastSeriesByCityId(cityId, getApiKey()), callback);
+    }
+
+    // 城市ID列表转为逗号分隔的字符串
+    private static String joinIds(List<Integer> cityIds) {
+        StringBuilder builder = new StringBuilder();
+        for (Integer cityId : cityIds) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(cityId);
+        }
+        return builder.toString();
+    }
+
+    // 获取当前API Key今天剩余的请求配额
+    public int getRemainingDailyQuota() {
+        return rateLimiter.getRemainingDailyQuota(getApiKey());
+    }
+
+    // 获取累计的自动重试次数
+    public long getRetryCount() {
+        return retryInterceptor.getRetryCount();
+    }
+
+    // 获取各接口当前的熔断状态
+    public Map<String, CircuitBreaker.State> getCircuitBreakerStates() {
+        return circuitBreaker.getStates();
+    }
+
+    // 获取被合并掉的重复请求数
+    public long getCoalescedRequestCount() {
+        return singleFlight.getHitCount();
+    }
+
+    // 获取实际发出的网络请求数
+    public long getIssuedRequestCount() {
+        return singleFlight.getMissCount();
+    }
+
+    // 请求键：接口名 + 量化后的坐标网格
+    private static String requestKey(String endpoint, double latitude, double longitude) {
+        return endpoint + ":" + LocationCell.key(latitude, longitude);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.weatherapp.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 离线城市搜索索引
+ * 城市列表随应用打包在assets/cities.tsv中，每个城市生成三种搜索键：中文名、连写的拼音/拉丁名、音节首字母，
+ * 所有键排好序放在一个数组里，按前缀搜索时二分查找起点后顺序扫描，不需要访问网络
+ * 注意：首次调用getInstance会读取assets，应在后台线程调用
+ */
+public class CityIndex {
+    private static final String TAG = "CityIndex";
+    private static final String ASSET_FILE = "cities.tsv";
+
+    private static volatile CityIndex instance;
+
+    /**
+     * 城市信息
+     */
+    public static class City {
+        private final String name;
+        private final String latinName;
+        private final String country;
+        private final double latitude;
+        private final double longitude;
+
+        City(String name, String latinName, String country, double latitude, double longitude) {
+            this.name = name;
+            this.latinName = latinName;
+            this.country = country;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // 拼音或拉丁名（音节以空格分隔）
+        public String getLatinName() {
+            return latinName;
+        }
+
+        public String getCountry() {
+            return country;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+    }
+
+    private final City[] cities;
+    // 排好序的搜索键，以及每个键对应的城市下标
+    private final String[] keys;
+    private final int[] keyCities;
+
+    private CityIndex(List<City> cityList) {
+        cities = cityList.toArray(new City[0]);
+
+        List<String> keyList = new ArrayList<>(cities.length * 3);
+        List<Integer> cityRefs = new ArrayList<>(cities.length * 3);
+        for (int i = 0; i < cities.length; i++) {
+            String[] syllables = cities[i].latinName.split(" ");
+            StringBuilder compact = new StringBuilder();
+            StringBuilder initials = new StringBuilder();
+            for (String syllable : syllables) {
+                compact.append(syllable);
+                initials.append(syllable.charAt(0));
+            }
+            keyList.add(cities[i].name);
+            cityRefs.add(i);
+            keyList.add(compact.toString());
+            cityRefs.add(i);
+            if (syllables.length > 1) {
+                keyList.add(initials.toString());
+                cityRefs.add(i);
+            }
+        }
+
+        // 按键排序，键和城市下标一起移动
+        Integer[] order = new Integer[keyList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> keyList.get(a).compareTo(keyList.get(b)));
+        keys = new String[order.length];
+        keyCities = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = keyList.get(order[i]);
+            keyCities[i] = cityRefs.get(order[i]);
+        }
+    }
+
+    /**
+     * 获取单例实例，首次调用时读取并建立索引
+     *
+     * @param context 上下文
+     * @return CityIndex实例
+     */
+    public static CityIndex getInstance(Context context) {
+        if (instance == null) {
+            synchronized (CityIndex.class) {
+                if (instance == null) {
+                    instance = new CityIndex(loadCities(context.getApplicationContext()));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 按前缀搜索城市，支持中文名、拼音/拉丁名（忽略大小写和空格）和拼音首字母
+     *
+     * @param query 搜索内容
+     * @param limit 最多返回的城市数
+     * @return 匹配的城市，按搜索键排序，没有匹配时返回空列表
+     */
+    public List<City> search(String query, int limit) {
+        String prefix = normalize(query);
+        List<City> results = new ArrayList<>();
+        if (prefix.isEmpty()) {
+            return results;
+        }
+        for (int i = lowerBound(prefix); i < keys.length && results.size() < limit; i++) {
+            if (!keys[i].startsWith(prefix)) {
+                break;
+            }
+            // 同一个城市可能有多个键匹配，只返回一次
+            City city = cities[keyCities[i]];
+            if (!results.contains(city)) {
+                results.add(city);
+            }
+        }
+        return results;
+    }
+
+    // 第一个不小于prefix的键的位置
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // 转小写并去掉空格和撇号，"Bei Jing"、"bei'jing"都视为"beijing"
+    private static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(query.length());
+        String lower = query.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c != ' ' && c != '\'') {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    // 读取assets中的城市列表，格式：名称\t拼音/拉丁名\t国家\t纬度\t经度，#开头为注释
+    private static List<City> loadCities(Context context) {
+        List<City> cityList = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(context.getAssets().open(ASSET_FILE), "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length < 5) {
+                    Log.w(TAG, "Skipping malformed city line: " + line);
+                    continue;
+                }
+                try {
+                    cityList.add(new City(fields[0], fields[1].toLowerCase(Locale.ROOT), fields[2],
+                            Double.parseDouble(fields[3]), Double.parseDouble(fields[4])));
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Skipping city with invalid coordinates: " + line);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to load city list", e);
+        }
+        Log.d(TAG, "Loaded " + cityList.size() + " cities");
+        return cityList;
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.weatherapp.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.example.weatherapp.model.ForecastSeries;
+
+/**
+ * 本地天气预报存储（SQLite）
+ * 以位置网格和预报时间为主键保存每条预报，支持按时间范围查询，
+ * 界面和以后的桌面小部件可以不经过网络直接读取预报
+ * 注意：所有方法都会访问数据库，应在后台线程调用
+ */
+public class ForecastStore extends SQLiteOpenHelper {
+    private static final String TAG = "ForecastStore";
+    private static final String DATABASE_NAME = "forecast.db";
+    private static final int DATABASE_VERSION = 3;
+
+    private static final String TABLE_FORECAST = "forecast";
+
+    // 保留策略：已过去超过6小时的预报删除，超过2天未刷新的数据删除
+    private static final long RETENTION_PAST_SECONDS = 6 * 60 * 60;
+    private static final long RETENTION_FETCHED_MILLIS = 2 * 24 * 60 * 60 * 1000L;
+
+    private static volatile ForecastStore instance;
+
+    private ForecastStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    /**
+     * 获取单例实例
+     *
+     * @param context 上下文
+     * @return ForecastStore实例
+     */
+    public static ForecastStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ForecastStore.class) {
+                if (instance == null) {
+                    instance = new ForecastStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        // 主键(cell, dt)自带索引，按网格和时间范围查询直接走主键索引
+        // 只保存ForecastSeries中的字段，没有数据的字段为NULL，降水概率pop为百分比
+        db.execSQL("CREATE TABLE " + TABLE_FORECAST + " ("
+                + "cell INTEGER NOT NULL, "
+                + "dt INTEGER NOT NULL, "
+                + "temp REAL, "
+                + "temp_min REAL, "
+                + "temp_max REAL, "
+                + "weather_id INTEGER, "
+                + "description TEXT, "
+                + "icon TEXT, "
+                + "wind_speed REAL, "
+                + "wind_deg INTEGER, "
+                + "pop INTEGER, "
+                + "pod TEXT, "
+                + "rain_3h REAL, "
+                + "snow_3h REAL, "
+                + "fetched_at INTEGER NOT NULL, "
+                + "PRIMARY KEY (cell, dt))");
+        // 清理过期数据时按获取时间删除
+        db.execSQL("CREATE INDEX idx_forecast_fetched_at ON " + TABLE_FORECAST + " (fetched_at)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 预报数据可以随时重新获取，升级时直接重建
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_FORECAST);
+        onCreate(db);
+    }
+
+    /**
+     * 保存一次获取到的天气预报，所有条目在同一个事务中批量写入，已有的相同时间条目会被替换
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @param forecast  天气预报
+     */
+    public void saveForecast(double latitude, double longitude, ForecastSeries forecast) {
+        if (forecast == null || forecast.size() == 0) {
+            return;
+        }
+        long cell = LocationCell.key(latitude, longitude);
+        long fetchedAt = System.currentTimeMillis();
+
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_FORECAST
+                + " (cell, dt, temp, temp_min, temp_max, weather_id, description, icon, "
+                + "wind_speed, wind_deg, pop, pod, rain_3h, snow_3h, fetched_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < forecast.size(); i++) {
+                statement.clearBindings();
+                statement.bindLong(1, cell);
+                statement.bindLong(2, forecast.getEpochSeconds(i));
+                bindFloat(statement, 3, forecast.getTemperature(i));
+                bindFloat(statement, 4, forecast.getMinTemperature(i));
+                bindFloat(statement, 5, forecast.getMaxTemperature(i));
+                if (forecast.hasCondition(i)) {
+                    statement.bindLong(6, forecast.getConditionCode(i));
+                    bindString(statement, 7, forecast.getDescription(i));
+                    bindString(statement, 8, forecast.getIcon(i));
+                }
+                if (!Float.isNaN(forecast.getWindSpeed(i))) {
+                    statement.bindDouble(9, forecast.getWindSpeed(i));
+                    statement.bindLong(10, forecast.getWindDegree(i));
+                }
+                statement.bindLong(11, forecast.getPopPercent(i));
+                bindString(statement, 12, podOf(forecast.getPartOfDay(i)));
+                bindFloat(statement, 13, forecast.getRain3h(i));
+                bindFloat(statement, 14, forecast.getSnow3h(i));
+                statement.bindLong(15, fetchedAt);
+                statement.executeInsert();
+            }
+            pruneInTransaction(db, fetchedAt);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+        Log.d(TAG, "Saved " + forecast.size() + " forecast items for cell " + cell);
+    }
+
+    /**
+     * 查询某个位置在时间范围内的预报，按时间升序返回
+     * 数据库中不保存城市信息，返回的序列没有城市时区
+     *
+     * @param latitude         纬度
+     * @param longitude        经度
+     * @param fromEpochSeconds 起始时间（Unix秒，包含）
+     * @param toEpochSeconds   结束时间（Unix秒，包含）
+     * @return 预报序列，没有数据时返回空序列
+     */
+    public ForecastSeries queryRange(double latitude, double longitude,
+                                     long fromEpochSeconds, long toEpochSeconds) {
+        long cell = LocationCell.key(latitude, longitude);
+        SQLiteDatabase db = getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT dt, temp, temp_min, temp_max, weather_id, description, icon, "
+                        + "wind_speed, wind_deg, pop, pod, rain_3h, snow_3h FROM " + TABLE_FORECAST
+                        + " WHERE cell = ? AND dt BETWEEN ? AND ? ORDER BY dt",
+                new String[]{String.valueOf(cell), String.valueOf(fromEpochSeconds), String.valueOf(toEpochSeconds)});
+        if (cursor == null) {
+            return new ForecastSeries.Builder(0).build();
+        }
+        ForecastSeries.Builder builder = new ForecastSeries.Builder(cursor.getCount());
+        try {
+            while (cursor.moveToNext()) {
+                readItem(cursor, builder);
+            }
+        } finally {
+            cursor.close();
+        }
+        return builder.build();
+    }
+
+    /**
+     * 按保留策略删除过期的预报
+     */
+    public void prune() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            pruneInTransaction(db, System.currentTimeMillis());
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void pruneInTransaction(SQLiteDatabase db, long nowMillis) {
+        long pastCutoff = nowMillis / 1000 - RETENTION_PAST_SECONDS;
+        long fetchedCutoff = nowMillis - RETENTION_FETCHED_MILLIS;
+        int deleted = db.delete(TABLE_FORECAST, "dt < ? OR fetched_at < ?",
+                new String[]{String.valueOf(pastCutoff), String.valueOf(fetchedCutoff)});
+        if (deleted > 0) {
+            Log.d(TAG, "Pruned " + deleted + " expired forecast items");
+        }
+    }
+
+    private static void readItem(Cursor cursor, ForecastSeries.Builder builder) {
+        int index = builder.add(cursor.getLong(0));
+        if (!cursor.isNull(1)) {
+            builder.setTemperature(index, cursor.getDouble(1));
+        }
+        if (!cursor.isNull(2)) {
+            builder.setMinTemperature(index, cursor.getDouble(2));
+        }
+        if (!cursor.isNull(3)) {
+            builder.setMaxTemperature(index, cursor.getDouble(3));
+        }
+        if (!cursor.isNull(4)) {
+            builder.setCondition(index, cursor.getInt(4), cursor.getString(5), cursor.getString(6));
+        }
+        if (!cursor.isNull(7)) {
+            builder.setWind(index, cursor.getDouble(7), cursor.getInt(8));
+        }
+        builder.setPop(index, cursor.getInt(9) / 100.0);
+        builder.setPartOfDay(index, cursor.getString(10));
+        if (!cursor.isNull(11)) {
+            builder.setRain3h(index, cursor.getDouble(11));
+        }
+        if (!cursor.isNull(12)) {
+            builder.setSnow3h(index, cursor.getDouble(12));
+        }
+    }
+
+    // 与API的pod字段一致："d"为白天，"n"为夜间，未知时为null
+    private static String podOf(byte partOfDay) {
+        switch (partOfDay) {
+            case ForecastSeries.PART_OF_DAY_DAY:
+                return "d";
+            case ForecastSeries.PART_OF_DAY_NIGHT:
+                return "n";
+            default:
+                return null;
+        }
+    }
+
+    // NaN表示没有数据，保存为NULL
+    private static void bindFloat(SQLiteStatement statement, int index, float value) {
+        if (Float.isNaN(value)) {
+            statement.bindNull(index);
+        } else {
+            statement.bindDouble(index, value);
+        }
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.weatherapp.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.weatherapp.model.ReverseGeocodingResponse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 反向地理编码结果的本地缓存
+ * 以LocationCell网格为索引保存已解析过的坐标，查询时只检查距离阈值覆盖到的相邻网格，
+ * 阈值内有已解析的点就直接返回其结果，不再访问网络
+ *
+ * 文件格式（大端序）：魔数(int) 版本(short) 条目数(int)，
+ * 之后每个条目：查询纬度(double) 查询经度(double) 城市名称(UTF) 省/州(UTF) 国家(UTF) 结果纬度(double) 结果经度(double)
+ */
+public class GeocodeCache {
+    private static final String TAG = "GeocodeCache";
+    private static final String FILE_NAME = "geocode_cache.bin";
+    private static final int MAGIC = 0x47454F43; // "GEOC"
+    private static final short VERSION = 1;
+
+    // 距离阈值：2公里内的点视为同一个城市
+    private static final double DISTANCE_THRESHOLD_KM = 2.0;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    // 每度纬度的距离（公里）
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    // 最多保存的条目数，超过时淘汰最早的
+    private static final int MAX_ENTRIES = 512;
+
+    private static volatile GeocodeCache instance;
+
+    // 一个已解析的坐标
+    private static class Entry {
+        final double latitude;
+        final double longitude;
+        final ReverseGeocodingResponse response;
+
+        Entry(double latitude, double longitude, ReverseGeocodingResponse response) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.response = response;
+        }
+    }
+
+    private final File file;
+    // 网格键 -> 该网格内的条目
+    private final Map<Long, List<Entry>> grid = new HashMap<>();
+    // 按加入顺序保存，用于淘汰
+    private final ArrayDeque<Entry> insertionOrder = new ArrayDeque<>();
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+
+    private GeocodeCache(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        load();
+    }
+
+    /**
+     * 获取单例实例
+     *
+     * @param context 上下文
+     * @return GeocodeCache实例
+     */
+    public static GeocodeCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (GeocodeCache.class) {
+                if (instance == null) {
+                    instance = new GeocodeCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 查找距离阈值内最近的已解析结果
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @return 反向地理编码结果，阈值内没有已解析的点时返回null
+     */
+    public synchronized ReverseGeocodingResponse lookup(double latitude, double longitude) {
+        int latIndex = LocationCell.latitudeIndex(latitude);
+        int lonIndex = LocationCell.longitudeIndex(longitude);
+        // 阈值覆盖的网格数：纬度方向固定，经度方向随纬度升高而增加
+        double cellHeightKm = LocationCell.CELL_SIZE_DEGREES * KM_PER_DEGREE;
+        double cellWidthKm = Math.max(cellHeightKm * Math.cos(Math.toRadians(latitude)), 1e-3);
+        int latSpan = (int) Math.ceil(DISTANCE_THRESHOLD_KM / cellHeightKm);
+        int lonSpan = (int) Math.min(Math.ceil(DISTANCE_THRESHOLD_KM / cellWidthKm), 180 / LocationCell.CELL_SIZE_DEGREES);
+
+        Entry nearest = null;
+        double nearestDistance = DISTANCE_THRESHOLD_KM;
+        for (int i = latIndex - latSpan; i <= latIndex + latSpan; i++) {
+            for (int j = lonIndex - lonSpan; j <= lonIndex + lonSpan; j++) {
+                List<Entry> entries = grid.get(LocationCell.key(i, j));
+                if (entries == null) {
+                    continue;
+                }
+                for (Entry entry : entries) {
+                    double distance = distanceKm(latitude, longitude, entry.latitude, entry.longitude);
+                    if (distance <= nearestDistance) {
+                        nearest = entry;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+        }
+        return nearest != null ? nearest.response : null;
+    }
+
+    /**
+     * 保存一次网络解析的结果，并在后台写入文件
+     *
+     * @param latitude  查询的纬度
+     * @param longitude 查询的经度
+     * @param response  反向地理编码结果
+     */
+    public void put(double latitude, double longitude, ReverseGeocodingResponse response) {
+        if (response == null || response.getCityName() == null) {
+            return;
+        }
+        final List<Entry> snapshot;
+        synchronized (this) {
+            add(new Entry(latitude, longitude, response));
+            snapshot = new ArrayList<>(insertionOrder);
+        }
+        writeExecutor.execute(() -> write(snapshot));
+    }
+
+    private void add(Entry entry) {
+        long key = LocationCell.key(entry.latitude, entry.longitude);
+        List<Entry> entries = grid.get(key);
+        if (entries == null) {
+            entries = new ArrayList<>(1);
+            grid.put(key, entries);
+        }
+        entries.add(entry);
+        insertionOrder.addLast(entry);
+        if (insertionOrder.size() > MAX_ENTRIES) {
+            Entry eldest = insertionOrder.removeFirst();
+            long eldestKey = LocationCell.key(eldest.latitude, eldest.longitude);
+            List<Entry> eldestCell = grid.get(eldestKey);
+            eldestCell.remove(eldest);
+            if (eldestCell.isEmpty()) {
+                grid.remove(eldestKey);
+            }
+        }
+    }
+
+    // 等距圆柱投影近似距离，阈值只有几公里，误差可以忽略
+    private static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double x = Math.toRadians(lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return Math.sqrt(x * x + y * y) * EARTH_RADIUS_KM;
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                Log.w(TAG, "Unknown geocode cache format, ignoring");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                double latitude = in.readDouble();
+                double longitude = in.readDouble();
+                ReverseGeocodingResponse response = new ReverseGeocodingResponse();
+                response.setCityName(readNullableUtf(in));
+                response.setState(readNullableUtf(in));
+                response.setCountry(readNullableUtf(in));
+                response.setLatitude(in.readDouble());
+                response.setLongitude(in.readDouble());
+                add(new Entry(latitude, longitude, response));
+            }
+            Log.d(TAG, "Loaded " + count + " geocode entries");
+        } catch (IOException e) {
+            // 文件损坏时保留已读出的条目，下次写入时会覆盖
+            Log.w(TAG, "Failed to load geocode cache: " + e.getMessage());
+        }
+    }
+
+    private void write(List<Entry> entries) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeDouble(entry.latitude);
+                out.writeDouble(entry.longitude);
+                writeNullableUtf(out, entry.response.getCityName());
+                writeNullableUtf(out, entry.response.getState());
+                writeNullableUtf(out, entry.response.getCountry());
+                out.writeDouble(entry.response.getLatitude());
+                out.writeDouble(entry.response.getLongitude());
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write geocode cache", e);
+            tempFile.delete();
+            return;
+        }
+        // 先写临时文件再重命名，写入中断时不会破坏旧文件
+        if (!tempFile.renameTo(file)) {
+            Log.e(TAG, "Failed to replace geocode cache file");
+            tempFile.delete();
+        }
+    }
+
+    private static String readNullableUtf(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullableUtf(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.weatherapp.utils;
+
+/**
+ * 位置网格工具类，把经纬度量化到固定大小的网格中
+ * 同一网格内的坐标视为同一个位置，用于请求合并和本地缓存的键
+ */
+public class LocationCell {
+    // 网格大小：0.01度，约1.1公里
+    public static final double CELL_SIZE_DEGREES = 0.01;
+
+    /**
+     * 获取纬度所在的网格行号
+     * @param latitude 纬度
+     * @return 网格行号
+     */
+    public static int latitudeIndex(double latitude) {
+        return (int) Math.floor(latitude / CELL_SIZE_DEGREES);
+    }
+
+    /**
+     * 获取经度所在的网格列号
+     * @param longitude 经度
+     * @return 网格列号
+     */
+    public static int longitudeIndex(double longitude) {
+        return (int) Math.floor(longitude / CELL_SIZE_DEGREES);
+    }
+
+    /**
+     * 根据网格行列号生成网格键
+     * @param latIndex 网格行号
+     * @param lonIndex 网格列号
+     * @return 网格键
+     */
+    public static long key(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 获取经纬度所在网格的键
+     * @param latitude 纬度
+     * @param longitude 经度
+     * @return 网格键
+     */
+    public static long key(double latitude, double longitude) {
+        return key(latitudeIndex(latitude), longitudeIndex(longitude));
+    }
+}
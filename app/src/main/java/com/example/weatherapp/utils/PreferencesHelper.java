@@ -3,6 +3,9 @@ package com.example.weatherapp.utils;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class PreferencesHelper {
     private static final String PREF_NAME = "weather_app_prefs";
     private static final String KEY_LATITUDE = "latitude";
@@ -12,6 +15,13 @@ public class PreferencesHelper {
     private static final String KEY_HAS_CACHED_LOCATION = "has_cached_location";
     private static final String KEY_API_KEY = "api_key";
     private static final String KEY_FIRST_LAUNCH = "first_launch";
+    private static final String KEY_SAVED_CITY_IDS = "saved_city_ids";
+    private static final String KEY_MANUAL_LOCATION = "manual_location";
+    private static final String KEY_PRECONNECT_ENABLED = "preconnect_enabled";
+
+    // 天气数据的软过期时间（5分钟）和硬过期时间（3小时）
+    public static final long SOFT_TTL_MILLIS = 5 * 60 * 1000;
+    public static final long HARD_TTL_MILLIS = 3 * 60 * 60 * 1000;
 
     private final SharedPreferences sharedPreferences;
 
@@ -78,15 +88,23 @@ public class PreferencesHelper {
         editor.apply();
     }
 
-    // 检查是否需要更新天气数据（超过5分钟）
+    // 检查是否需要更新天气数据（超过软过期时间）
     public boolean isWeatherDataExpired() {
         long lastUpdateTime = getLastUpdateTime();
         if (lastUpdateTime == 0) {
             return true; // 从未更新过，需要更新
         }
-        long currentTime = System.currentTimeMillis();
-        long timeDifference = currentTime - lastUpdateTime;
-        return timeDifference > 5 * 60 * 1000; // 5分钟
+        return isBeyondSoftTtl(System.currentTimeMillis() - lastUpdateTime);
+    }
+
+    // 数据年龄超过软过期时间：仍可展示，但需要在后台重新获取
+    public static boolean isBeyondSoftTtl(long ageMillis) {
+        return ageMillis > SOFT_TTL_MILLIS;
+    }
+
+    // 数据年龄超过硬过期时间：不能再展示给用户
+    public static boolean isBeyondHardTtl(long ageMillis) {
+        return ageMillis > HARD_TTL_MILLIS;
     }
     
     // 保存API key
@@ -118,4 +136,75 @@ public class PreferencesHelper {
         editor.putBoolean(KEY_FIRST_LAUNCH, false);
         editor.apply();
     }
+
+    // 设置是否使用手动选择的城市（为true时不再使用GPS定位覆盖位置）
+    public void setManualLocation(boolean manual) {
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putBoolean(KEY_MANUAL_LOCATION, manual);
+        editor.apply();
+    }
+
+    // 检查当前位置是否为手动选择的城市
+    public boolean isManualLocation() {
+        return sharedPreferences.getBoolean(KEY_MANUAL_LOCATION, false);
+    }
+
+    // 设置启动时是否预先建立到天气接口的连接
+    public void setPreconnectEnabled(boolean enabled) {
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putBoolean(KEY_PRECONNECT_ENABLED, enabled);
+        editor.apply();
+    }
+
+    // 检查启动时是否预先建立连接，默认开启
+    public boolean isPreconnectEnabled() {
+        return sharedPreferences.getBoolean(KEY_PRECONNECT_ENABLED, true);
+    }
+
+    // 获取保存的城市ID列表（按添加顺序）
+    public List<Integer> getSavedCityIds() {
+        List<Integer> cityIds = new ArrayList<>();
+        String saved = sharedPreferences.getString(KEY_SAVED_CITY_IDS, "");
+        if (saved.isEmpty()) {
+            return cityIds;
+        }
+        for (String id : saved.split(",")) {
+            try {
+                cityIds.add(Integer.parseInt(id));
+            } catch (NumberFormatException e) {
+                // 忽略无法解析的条目
+            }
+        }
+        return cityIds;
+    }
+
+    // 添加保存的城市，已存在时不重复添加
+    public void addSavedCity(int cityId) {
+        List<Integer> cityIds = getSavedCityIds();
+        if (!cityIds.contains(cityId)) {
+            cityIds.add(cityId);
+            saveCityIds(cityIds);
+        }
+    }
+
+    // 移除保存的城市
+    public void removeSavedCity(int cityId) {
+        List<Integer> cityIds = getSavedCityIds();
+        if (cityIds.remove(Integer.valueOf(cityId))) {
+            saveCityIds(cityIds);
+        }
+    }
+
+    private void saveCityIds(List<Integer> cityIds) {
+        StringBuilder builder = new StringBuilder();
+        for (Integer cityId : cityIds) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(cityId);
+        }
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putString(KEY_SAVED_CITY_IDS, builder.toString());
+        editor.apply();
+    }
 }
\ No newline at end of file
@@ -2,17 +2,23 @@ package com.example.weatherapp.utils;
 
 import android.util.Log;
 
+import java.text.DateFormatSymbols;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.TimeZone;
 
 /**
  * 时间工具类，用于处理应用中的时间格式化和解析
+ *
+ * API返回的时间格式固定为"yyyy-MM-dd HH:mm:ss"，按字符位置直接解析，不创建SimpleDateFormat；
+ * 需要格式化器和星期名称时使用每个线程各自缓存的实例，可以在后台线程调用。
+ * 不符合固定格式的字符串仍交给SimpleDateFormat处理，结果与原来一致
  */
 public class TimeUtils {
     private static final String TAG = "TimeUtils";
-    
+
     // API返回的时间格式
     private static final String API_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
     // 显示时间格式（小时:分钟）
@@ -24,13 +30,59 @@ public class TimeUtils {
     // 仅日期格式（年-月-日）
     private static final String DATE_ONLY_FORMAT = "yyyy-MM-dd";
 
+    // API时间字符串的长度及各字段的起始位置
+    private static final int API_DATE_LENGTH = 19;
+    private static final int DATE_END = 10;
+    private static final int TIME_START = 11;
+    private static final int MINUTE_END = 16;
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    // 每个线程缓存的"月-日 星期几"标签数量，预报最多覆盖6天
+    private static final int WEEK_LABEL_SLOTS = 16;
+
+    /**
+     * 每个线程各自持有的格式化状态，避免共享SimpleDateFormat带来的同步和每次调用的创建开销
+     */
+    private static final class ThreadState {
+        // 解析结果：年、月、日、时、分、秒
+        final int[] fields = new int[6];
+        Locale locale;
+        SimpleDateFormat timeFormat;
+        // 星期名称，下标为Calendar.SUNDAY..SATURDAY
+        String[] weekdays;
+        // 按日期（yyyyMMdd）直接映射的"月-日 星期几"标签
+        final int[] weekLabelKeys = new int[WEEK_LABEL_SLOTS];
+        final String[] weekLabels = new String[WEEK_LABEL_SLOTS];
+
+        // 默认语言变化时重建格式化器和标签
+        void ensureLocale() {
+            Locale current = Locale.getDefault();
+            if (current.equals(locale)) {
+                return;
+            }
+            locale = current;
+            timeFormat = new SimpleDateFormat(TIME_FORMAT, current);
+            weekdays = new DateFormatSymbols(current).getWeekdays();
+            for (int i = 0; i < WEEK_LABEL_SLOTS; i++) {
+                weekLabelKeys[i] = 0;
+                weekLabels[i] = null;
+            }
+        }
+    }
+
+    private static final ThreadLocal<ThreadState> THREAD_STATE = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            return new ThreadState();
+        }
+    };
+
     /**
      * 格式化当前时间为小时:分钟格式
      * @return 格式化后的时间字符串
      */
     public static String formatCurrentTime() {
-        SimpleDateFormat timeFormat = new SimpleDateFormat(TIME_FORMAT, Locale.getDefault());
-        return timeFormat.format(new Date());
+        return formatTime(System.currentTimeMillis());
     }
 
     /**
@@ -39,8 +91,11 @@ public class TimeUtils {
      * @return 格式化后的时间字符串
      */
     public static String formatTime(long timestamp) {
-        SimpleDateFormat timeFormat = new SimpleDateFormat(TIME_FORMAT, Locale.getDefault());
-        return timeFormat.format(new Date(timestamp));
+        ThreadState state = THREAD_STATE.get();
+        state.ensureLocale();
+        // 默认时区每次重新读取，系统时区变化后立即生效
+        state.timeFormat.setTimeZone(TimeZone.getDefault());
+        return state.timeFormat.format(new Date(timestamp));
     }
 
     /**
@@ -49,6 +104,10 @@ public class TimeUtils {
      * @return 格式化后的日期时间字符串
      */
     public static String formatApiDateTime(String dateTimeStr) {
+        if (parseFields(dateTimeStr, THREAD_STATE.get().fields)) {
+            // "yyyy-MM-dd HH:mm:ss"中的"MM-dd HH:mm"部分
+            return dateTimeStr.substring(DATE_END - 5, MINUTE_END);
+        }
         try {
             SimpleDateFormat inputFormat = new SimpleDateFormat(API_DATE_FORMAT, Locale.getDefault());
             Date date = inputFormat.parse(dateTimeStr);
@@ -60,12 +119,41 @@ public class TimeUtils {
         }
     }
 
+    /**
+     * 从API返回的日期时间字符串中提取时间部分（小时:分钟）
+     * @param dateTimeStr API返回的日期时间字符串
+     * @return 格式化后的时间字符串，无法解析时返回原字符串中空格后的前5个字符
+     */
+    public static String formatApiTime(String dateTimeStr) {
+        if (parseFields(dateTimeStr, THREAD_STATE.get().fields)) {
+            return dateTimeStr.substring(TIME_START, MINUTE_END);
+        }
+        try {
+            SimpleDateFormat inputFormat = new SimpleDateFormat(API_DATE_FORMAT, Locale.getDefault());
+            SimpleDateFormat outputFormat = new SimpleDateFormat(TIME_FORMAT, Locale.getDefault());
+            return outputFormat.format(inputFormat.parse(dateTimeStr));
+        } catch (ParseException e) {
+            // 如果解析失败，返回原始时间的一部分
+            String[] parts = dateTimeStr.split(" ");
+            if (parts.length > 1 && parts[1].length() >= 5) {
+                return parts[1].substring(0, 5);
+            }
+            return dateTimeStr;
+        }
+    }
+
     /**
      * 将API返回的日期时间格式转换为日期加星期格式（月-日 星期几）
+     * 同一天的标签在每个线程中缓存，重复调用不再计算
      * @param dateTimeStr API返回的日期时间字符串
      * @return 格式化后的日期字符串
      */
     public static String formatDateWithWeek(String dateTimeStr) {
+        ThreadState state = THREAD_STATE.get();
+        int[] fields = state.fields;
+        if (parseFields(dateTimeStr, fields)) {
+            return weekLabel(state, fields[0], fields[1], fields[2]);
+        }
         try {
             SimpleDateFormat inputFormat = new SimpleDateFormat(API_DATE_FORMAT, Locale.getDefault());
             Date date = inputFormat.parse(dateTimeStr);
@@ -77,12 +165,47 @@ public class TimeUtils {
         }
     }
 
+    /**
+     * 将日期格式化为日期加星期格式（月-日 星期几）
+     * @param epochDay 距1970-01-01的天数
+     * @return 格式化后的日期字符串
+     */
+    public static String formatEpochDayWithWeek(long epochDay) {
+        ThreadState state = THREAD_STATE.get();
+        int[] fields = state.fields;
+        civilFromDays(epochDay, fields);
+        return weekLabel(state, fields[0], fields[1], fields[2]);
+    }
+
+    /**
+     * 将时间戳按指定的UTC偏移格式化为月-日 小时:分钟格式
+     * @param epochSeconds 时间戳（秒）
+     * @param offsetSeconds 相对UTC的偏移（秒），例如预报城市的时区
+     * @return 格式化后的日期时间字符串
+     */
+    public static String formatLocalDateTime(long epochSeconds, int offsetSeconds) {
+        long localSeconds = epochSeconds + offsetSeconds;
+        long epochDay = localSeconds / SECONDS_PER_DAY;
+        int secondOfDay = (int) (localSeconds % SECONDS_PER_DAY);
+        if (secondOfDay < 0) {
+            epochDay--;
+            secondOfDay += SECONDS_PER_DAY;
+        }
+        int[] fields = THREAD_STATE.get().fields;
+        civilFromDays(epochDay, fields);
+        return String.format(Locale.US, "%02d-%02d %02d:%02d",
+                fields[1], fields[2], secondOfDay / 3600, secondOfDay % 3600 / 60);
+    }
+
     /**
      * 从API返回的日期时间字符串中提取日期部分（年-月-日）
      * @param dateTimeStr API返回的日期时间字符串
      * @return 提取的日期字符串
      */
     public static String extractDate(String dateTimeStr) {
+        if (parseFields(dateTimeStr, THREAD_STATE.get().fields)) {
+            return dateTimeStr.substring(0, DATE_END);
+        }
         try {
             SimpleDateFormat inputFormat = new SimpleDateFormat(API_DATE_FORMAT, Locale.getDefault());
             Date date = inputFormat.parse(dateTimeStr);
@@ -101,6 +224,10 @@ public class TimeUtils {
      * @throws ParseException 解析失败时抛出异常
      */
     public static Date parseApiDateTime(String dateTimeStr) throws ParseException {
+        ThreadState state = THREAD_STATE.get();
+        if (parseFields(dateTimeStr, state.fields)) {
+            return new Date(toEpochMillis(state.fields, TimeZone.getDefault()));
+        }
         SimpleDateFormat dateFormat = new SimpleDateFormat(API_DATE_FORMAT, Locale.getDefault());
         return dateFormat.parse(dateTimeStr);
     }
@@ -111,6 +238,10 @@ public class TimeUtils {
      * @return 如果时间已过去返回true，否则返回false
      */
     public static boolean isForecastTimePast(String forecastDateTimeStr) {
+        ThreadState state = THREAD_STATE.get();
+        if (parseFields(forecastDateTimeStr, state.fields)) {
+            return toEpochMillis(state.fields, TimeZone.getDefault()) < System.currentTimeMillis();
+        }
         try {
             long currentTimeMillis = System.currentTimeMillis();
             Date forecastDate = parseApiDateTime(forecastDateTimeStr);
@@ -121,4 +252,107 @@ public class TimeUtils {
             return false; // 解析失败时默认认为时间未过去
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 按固定格式"yyyy-MM-dd HH:mm:ss"解析，不创建任何对象
+     * @param s 日期时间字符串
+     * @param out 解析结果：年、月、日、时、分、秒
+     * @return 格式和取值都有效时返回true
+     */
+    private static boolean parseFields(String s, int[] out) {
+        if (s == null || s.length() != API_DATE_LENGTH
+                || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != ' '
+                || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return false;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        // 超出范围的值交给SimpleDateFormat按宽松规则处理
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return false;
+        }
+        out[0] = year;
+        out[1] = month;
+        out[2] = day;
+        out[3] = hour;
+        out[4] = minute;
+        out[5] = second;
+        return true;
+    }
+
+    // 读取count位十进制数字，遇到非数字返回-1
+    private static int digits(String s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // "月-日 星期几"标签，按日期缓存
+    private static String weekLabel(ThreadState state, int year, int month, int day) {
+        state.ensureLocale();
+        int dateKey = year * 10000 + month * 100 + day;
+        int slot = dateKey % WEEK_LABEL_SLOTS;
+        if (state.weekLabelKeys[slot] == dateKey && state.weekLabels[slot] != null) {
+            return state.weekLabels[slot];
+        }
+        // 1970-01-01是星期四
+        long days = daysFromCivil(year, month, day);
+        int dayOfWeek = (int) (((days + 4) % 7 + 7) % 7) + 1; // Calendar.SUNDAY == 1
+        String label = String.format(Locale.US, "%02d-%02d ", month, day) + state.weekdays[dayOfWeek];
+        state.weekLabelKeys[slot] = dateKey;
+        state.weekLabels[slot] = label;
+        return label;
+    }
+
+    // 本地时间字段转换为时间戳，与SimpleDateFormat按该时区解析的结果相同
+    private static long toEpochMillis(int[] fields, TimeZone timeZone) {
+        long localMillis = daysFromCivil(fields[0], fields[1], fields[2]) * 86_400_000L
+                + fields[3] * 3_600_000L + fields[4] * 60_000L + fields[5] * 1000L;
+        return localMillis - timeZone.getOffset(localMillis - timeZone.getRawOffset());
+    }
+
+    // 距1970-01-01的天数转换为公历日期，结果写入out的年、月、日
+    private static void civilFromDays(long epochDay, int[] out) {
+        long z = epochDay + 719_468L;
+        long era = (z >= 0 ? z : z - 146_096L) / 146_097L;
+        int dayOfEra = (int) (z - era * 146_097L);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146_096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        int month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        out[0] = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+        out[1] = month;
+        out[2] = day;
+    }
+
+    // 公历日期距1970-01-01的天数（year >= 1）
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int monthIndex = month > 2 ? month - 3 : month + 9;
+        int dayOfYear = (153 * monthIndex + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.weatherapp.utils;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.module.AppGlideModule;
+import com.example.weatherapp.network.HttpClientProvider;
+
+import java.io.InputStream;
+
+/**
+ * Glide配置：图标下载使用共享的OkHttpClient，与天气接口共用连接池
+ * 图片缓存由Glide自己管理，这里使用不带HTTP缓存和拦截器的基础客户端
+ */
+@GlideModule
+public class WeatherGlideModule extends AppGlideModule {
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.replace(GlideUrl.class, InputStream.class, new OkHttpUrlLoader.Factory(HttpClientProvider.get()));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
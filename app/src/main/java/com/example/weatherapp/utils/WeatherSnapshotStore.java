@@ -0,0 +1,492 @@
+package com.example.weatherapp.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.weatherapp.model.CurrentWeather;
+import com.example.weatherapp.model.ForecastSeries;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * 天气快照存储，把最后一次成功获取的当前天气、天气预报和城市名称保存为紧凑的二进制文件
+ * 启动时通过MappedByteBuffer读取，在任何网络请求之前就能显示上次的数据
+ *
+ * 文件格式（大端序）：
+ * 文件头：魔数(int) 版本(short) 保存时间(long) 数据生成时间(long)
+ * 之后是若干段：类型(byte) 长度(int) CRC32(int) 数据(长度个字节)
+ * 每段单独校验，文件被截断或某段损坏时只丢弃受影响的段
+ */
+public class WeatherSnapshotStore {
+    private static final String TAG = "WeatherSnapshotStore";
+    private static final String FILE_NAME = "weather_snapshot.bin";
+
+    private static final int MAGIC = 0x57534E50; // "WSNP"
+    private static final short VERSION = 4;
+    private static final int HEADER_SIZE = 4 + 2 + 8 + 8;
+    private static final int SECTION_HEADER_SIZE = 1 + 4 + 4;
+
+    private static final byte SECTION_CITY_NAME = 1;
+    private static final byte SECTION_CURRENT_WEATHER = 2;
+    private static final byte SECTION_FORECAST_WEATHER = 3;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static volatile WeatherSnapshotStore instance;
+
+    private final File file;
+    // 写入放在单独的线程中，避免阻塞主线程
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * 快照内容，缺失或损坏的部分为null
+     */
+    public static class Snapshot {
+        private final long savedAt;
+        private final long dataTime;
+        private final String cityName;
+        private final CurrentWeather currentWeather;
+        private final ForecastSeries forecastSeries;
+
+        Snapshot(long savedAt, long dataTime, String cityName, CurrentWeather currentWeather,
+                 ForecastSeries forecastSeries) {
+            this.savedAt = savedAt;
+            this.dataTime = dataTime;
+            this.cityName = cityName;
+            this.currentWeather = currentWeather;
+            this.forecastSeries = forecastSeries;
+        }
+
+        // 快照保存时间（毫秒）
+        public long getSavedAt() {
+            return savedAt;
+        }
+
+        // 快照中数据的生成时间（毫秒），由磁盘缓存返回的数据早于保存时间
+        public long getDataTime() {
+            return dataTime;
+        }
+
+        public String getCityName() {
+            return cityName;
+        }
+
+        public CurrentWeather getCurrentWeather() {
+            return currentWeather;
+        }
+
+        public ForecastSeries getForecastSeries() {
+            return forecastSeries;
+        }
+    }
+
+    private WeatherSnapshotStore(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    /**
+     * 获取单例实例
+     *
+     * @param context 上下文
+     * @return WeatherSnapshotStore实例
+     */
+    public static WeatherSnapshotStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (WeatherSnapshotStore.class) {
+                if (instance == null) {
+                    instance = new WeatherSnapshotStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 读取快照
+     *
+     * @return 快照内容，文件不存在、版本不符或没有任何有效段时返回null
+     */
+    public Snapshot load() {
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            return null;
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read snapshot", e);
+            return null;
+        }
+    }
+
+    /**
+     * 异步保存快照，写入临时文件后再替换，避免写到一半的文件覆盖旧快照
+     *
+     * @param cityName        城市名称
+     * @param currentWeather  当前天气
+     * @param forecastSeries  天气预报
+     * @param dataTime        数据的生成时间（毫秒）
+     */
+    public void save(final String cityName, final CurrentWeather currentWeather, final ForecastSeries forecastSeries,
+                     final long dataTime) {
+        final long savedAt = System.currentTimeMillis();
+        writeExecutor.execute(() -> {
+            File tempFile = new File(file.getParentFile(), FILE_NAME + ".tmp");
+            try {
+                byte[] data = encode(savedAt, dataTime, cityName, currentWeather, forecastSeries);
+                try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+                    outputStream.write(data);
+                    outputStream.getFD().sync();
+                }
+                if (!tempFile.renameTo(file)) {
+                    Log.e(TAG, "Failed to replace snapshot file");
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write snapshot", e);
+                tempFile.delete();
+            }
+        });
+    }
+
+    // ---------------- 编码 ----------------
+
+    private static byte[] encode(long savedAt, long dataTime, String cityName, CurrentWeather currentWeather,
+                                 ForecastSeries forecastSeries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(savedAt);
+        out.writeLong(dataTime);
+
+        if (cityName != null) {
+            SectionWriter section = new SectionWriter();
+            section.writeString(cityName);
+            section.writeTo(out, SECTION_CITY_NAME);
+        }
+        if (currentWeather != null) {
+            SectionWriter section = new SectionWriter();
+            writeCurrentWeather(section, currentWeather);
+            section.writeTo(out, SECTION_CURRENT_WEATHER);
+        }
+        if (forecastSeries != null) {
+            SectionWriter section = new SectionWriter();
+            writeForecastSeries(section, forecastSeries);
+            section.writeTo(out, SECTION_FORECAST_WEATHER);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeCurrentWeather(SectionWriter out, CurrentWeather weather) throws IOException {
+        CurrentWeather.Coord coord = weather.getCoord();
+        if (out.writePresence(coord)) {
+            out.writeDouble(coord.getLat());
+            out.writeDouble(coord.getLon());
+        }
+        List<CurrentWeather.Weather> conditions = weather.getWeather();
+        out.writeShort(conditions != null ? conditions.size() : -1);
+        if (conditions != null) {
+            for (CurrentWeather.Weather condition : conditions) {
+                out.writeInt(condition.getId());
+                out.writeString(condition.getMain());
+                out.writeString(condition.getDescription());
+                out.writeString(condition.getIcon());
+            }
+        }
+        out.writeString(weather.getBase());
+        CurrentWeather.Main main = weather.getMain();
+        if (out.writePresence(main)) {
+            out.writeDouble(main.getTemp());
+            out.writeDouble(main.getFeels_like());
+            out.writeDouble(main.getTemp_min());
+            out.writeDouble(main.getTemp_max());
+            out.writeInt(main.getPressure());
+            out.writeInt(main.getHumidity());
+        }
+        out.writeInt(weather.getVisibility());
+        CurrentWeather.Wind wind = weather.getWind();
+        if (out.writePresence(wind)) {
+            out.writeDouble(wind.getSpeed());
+            out.writeInt(wind.getDeg());
+        }
+        CurrentWeather.Clouds clouds = weather.getClouds();
+        if (out.writePresence(clouds)) {
+            out.writeInt(clouds.getAll());
+        }
+        out.writeLong(weather.getDt());
+        CurrentWeather.Sys sys = weather.getSys();
+        if (out.writePresence(sys)) {
+            out.writeInt(sys.getType());
+            out.writeInt(sys.getId());
+            out.writeString(sys.getCountry());
+            out.writeLong(sys.getSunrise());
+            out.writeLong(sys.getSunset());
+        }
+        out.writeInt(weather.getTimezone());
+        out.writeInt(weather.getId());
+        out.writeString(weather.getName());
+        out.writeInt(weather.getCod());
+    }
+
+    // 预报按条目逐条写入列式序列中的字段，没有数据的字段写入NaN或-1
+    private static void writeForecastSeries(SectionWriter out, ForecastSeries series) throws IOException {
+        out.writeString(series.getCityName());
+        out.writeBoolean(series.isTimezoneKnown());
+        out.writeInt(series.getTimezoneOffsetSeconds());
+        out.writeInt(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            out.writeLong(series.getEpochSeconds(i));
+            out.writeFloat(series.getTemperature(i));
+            out.writeFloat(series.getMinTemperature(i));
+            out.writeFloat(series.getMaxTemperature(i));
+            out.writeShort(series.getConditionCode(i));
+            out.writeString(series.getDescription(i));
+            out.writeString(series.getIcon(i));
+            out.writeByte(series.getPopPercent(i));
+            out.writeFloat(series.getRain3h(i));
+            out.writeFloat(series.getSnow3h(i));
+            out.writeFloat(series.getWindSpeed(i));
+            out.writeShort(series.getWindDegree(i));
+            out.writeByte(series.getPartOfDay(i));
+        }
+    }
+
+    // 单个段的写入器，写完后计算长度和CRC32
+    private static class SectionWriter extends DataOutputStream {
+        SectionWriter() {
+            super(new ByteArrayOutputStream(4 * 1024));
+        }
+
+        // 写入对象是否存在的标记，返回对象是否存在
+        boolean writePresence(Object value) throws IOException {
+            writeBoolean(value != null);
+            return value != null;
+        }
+
+        // 字符串以UTF-8保存，长度-1表示null
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeShort(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(UTF_8);
+            writeShort(bytes.length);
+            write(bytes);
+        }
+
+        void writeTo(DataOutputStream target, byte type) throws IOException {
+            flush();
+            byte[] payload = ((ByteArrayOutputStream) out).toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, payload.length);
+            target.writeByte(type);
+            target.writeInt(payload.length);
+            target.writeInt((int) crc.getValue());
+            target.write(payload);
+        }
+    }
+
+    // ---------------- 解码 ----------------
+
+    private static Snapshot decode(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            Log.w(TAG, "Snapshot header is invalid");
+            return null;
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            Log.w(TAG, "Unsupported snapshot version: " + version);
+            return null;
+        }
+        long savedAt = buffer.getLong();
+        long dataTime = buffer.getLong();
+
+        String cityName = null;
+        CurrentWeather currentWeather = null;
+        ForecastSeries forecastSeries = null;
+        byte[] crcChunk = new byte[4 * 1024];
+
+        while (buffer.remaining() >= SECTION_HEADER_SIZE) {
+            byte type = buffer.get();
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                // 文件被截断，后面的段都不完整
+                Log.w(TAG, "Snapshot truncated in section " + type);
+                break;
+            }
+
+            ByteBuffer section = buffer.slice();
+            section.limit(length);
+            buffer.position(buffer.position() + length);
+
+            if (crc32(section.duplicate(), crcChunk) != expectedCrc) {
+                Log.w(TAG, "Snapshot section " + type + " checksum mismatch");
+                continue;
+            }
+
+            try {
+                switch (type) {
+                    case SECTION_CITY_NAME:
+                        cityName = readString(section);
+                        break;
+                    case SECTION_CURRENT_WEATHER:
+                        currentWeather = readCurrentWeather(section);
+                        break;
+                    case SECTION_FORECAST_WEATHER:
+                        forecastSeries = readForecastSeries(section);
+                        break;
+                    default:
+                        // 未知的段直接跳过，便于以后扩展
+                        break;
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                Log.w(TAG, "Snapshot section " + type + " is malformed", e);
+            }
+        }
+
+        if (cityName == null && currentWeather == null && forecastSeries == null) {
+            return null;
+        }
+        return new Snapshot(savedAt, dataTime, cityName, currentWeather, forecastSeries);
+    }
+
+    // 分块计算CRC32，兼容不支持CRC32.update(ByteBuffer)的旧系统版本
+    private static int crc32(ByteBuffer data, byte[] chunk) {
+        CRC32 crc = new CRC32();
+        while (data.hasRemaining()) {
+            int count = Math.min(chunk.length, data.remaining());
+            data.get(chunk, 0, count);
+            crc.update(chunk, 0, count);
+        }
+        return (int) crc.getValue();
+    }
+
+    private static CurrentWeather readCurrentWeather(ByteBuffer in) {
+        CurrentWeather weather = new CurrentWeather();
+        if (readPresence(in)) {
+            CurrentWeather.Coord coord = new CurrentWeather.Coord();
+            coord.setLat(in.getDouble());
+            coord.setLon(in.getDouble());
+            weather.setCoord(coord);
+        }
+        int conditionCount = in.getShort();
+        if (conditionCount >= 0) {
+            List<CurrentWeather.Weather> conditions = new ArrayList<>(conditionCount);
+            for (int i = 0; i < conditionCount; i++) {
+                CurrentWeather.Weather condition = new CurrentWeather.Weather();
+                condition.setId(in.getInt());
+                condition.setMain(readString(in));
+                condition.setDescription(readString(in));
+                condition.setIcon(readString(in));
+                conditions.add(condition);
+            }
+            weather.setWeather(conditions);
+        }
+        weather.setBase(readString(in));
+        if (readPresence(in)) {
+            CurrentWeather.Main main = new CurrentWeather.Main();
+            main.setTemp(in.getDouble());
+            main.setFeels_like(in.getDouble());
+            main.setTemp_min(in.getDouble());
+            main.setTemp_max(in.getDouble());
+            main.setPressure(in.getInt());
+            main.setHumidity(in.getInt());
+            weather.setMain(main);
+        }
+        weather.setVisibility(in.getInt());
+        if (readPresence(in)) {
+            CurrentWeather.Wind wind = new CurrentWeather.Wind();
+            wind.setSpeed(in.getDouble());
+            wind.setDeg(in.getInt());
+            weather.setWind(wind);
+        }
+        if (readPresence(in)) {
+            CurrentWeather.Clouds clouds = new CurrentWeather.Clouds();
+            clouds.setAll(in.getInt());
+            weather.setClouds(clouds);
+        }
+        weather.setDt(in.getLong());
+        if (readPresence(in)) {
+            CurrentWeather.Sys sys = new CurrentWeather.Sys();
+            sys.setType(in.getInt());
+            sys.setId(in.getInt());
+            sys.setCountry(readString(in));
+            sys.setSunrise(in.getLong());
+            sys.setSunset(in.getLong());
+            weather.setSys(sys);
+        }
+        weather.setTimezone(in.getInt());
+        weather.setId(in.getInt());
+        weather.setName(readString(in));
+        weather.setCod(in.getInt());
+        return weather;
+    }
+
+    private static ForecastSeries readForecastSeries(ByteBuffer in) {
+        String cityName = readString(in);
+        boolean timezoneKnown = in.get() != 0;
+        int timezoneOffsetSeconds = in.getInt();
+        int itemCount = in.getInt();
+        if (itemCount < 0) {
+            throw new IllegalArgumentException("Negative forecast item count: " + itemCount);
+        }
+        ForecastSeries.Builder builder = new ForecastSeries.Builder(itemCount);
+        if (timezoneKnown) {
+            builder.setCity(cityName, timezoneOffsetSeconds);
+        }
+        for (int i = 0; i < itemCount; i++) {
+            int index = builder.add(in.getLong());
+            builder.setTemperature(index, in.getFloat());
+            builder.setMinTemperature(index, in.getFloat());
+            builder.setMaxTemperature(index, in.getFloat());
+            int conditionCode = in.getShort();
+            String description = readString(in);
+            String icon = readString(in);
+            if (conditionCode >= 0) {
+                builder.setCondition(index, conditionCode, description, icon);
+            }
+            builder.setPop(index, in.get() / 100.0);
+            builder.setRain3h(index, in.getFloat());
+            builder.setSnow3h(index, in.getFloat());
+            builder.setWindSpeed(index, in.getFloat());
+            builder.setWindDegree(index, in.getShort());
+            builder.setPartOfDay(index, in.get());
+        }
+        return builder.build();
+    }
+
+    private static boolean readPresence(ByteBuffer in) {
+        return in.get() != 0;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
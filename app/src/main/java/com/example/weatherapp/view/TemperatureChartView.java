@@ -12,30 +12,61 @@ import android.view.View;
 
 import androidx.annotation.Nullable;
 
-import com.example.weatherapp.model.ForecastWeather;
-import com.example.weatherapp.utils.TimeUtils;
+import com.example.weatherapp.model.ForecastSeries;
+import com.example.weatherapp.model.ForecastTimeIndex;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
 import java.util.Locale;
 
+/**
+ * 未来几个时段的温度曲线
+ * 点的坐标、曲线路径、渐变和标签文本在数据或尺寸变化时（setTemperatureData、onSizeChanged）一次算好，
+ * 保存在预先分配的数组中，onDraw只调用绘制方法，不创建任何对象
+ */
 public class TemperatureChartView extends View {
+    // 最多显示的数据点数量（未来24小时）
+    private static final int MAX_POINTS = 8;
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final int GRID_LINES = 4;
+    private static final float POINT_RADIUS = 4f;
+    // 上升波段从绿色渐变为红色，下降波段从红色渐变为绿色
+    private static final int COLOR_LOW = Color.parseColor("#4CAF50");
+    private static final int COLOR_HIGH = Color.parseColor("#FF5722");
+
     private Paint gridPaint;
     private Paint axisPaint;
     private Paint linePaint;
     private Paint pointPaint;
     private Paint textPaint;
     private Paint tempTextPaint;
+    private Paint tempLabelPaint;
     
-    private List<Float> temperatures = new ArrayList<>();
-    private List<String> times = new ArrayList<>();
+    // 数据：温度（摄氏度）和时间标签，前pointCount个有效
+    private final float[] temperatures = new float[MAX_POINTS];
+    private final String[] times = new String[MAX_POINTS];
+    private int pointCount;
     
     private float minTemp = Float.MAX_VALUE;
     private float maxTemp = Float.MIN_VALUE;
     
+    // 以下由computeGeometry根据数据和尺寸计算
+    // 网格线和坐标轴，每条线4个坐标，供drawLines使用
+    private final float[] gridLines = new float[(GRID_LINES + 1) * 2 * 4];
+    private final float[] axisLines = new float[2 * 4];
+    // 数据点坐标
+    private final float[] pointXs = new float[MAX_POINTS];
+    private final float[] pointYs = new float[MAX_POINTS];
+    // 每段曲线的路径和画笔，画笔的渐变随坐标一起更新
+    private final Path[] segmentPaths = new Path[MAX_POINTS - 1];
+    private final Paint[] segmentPaints = new Paint[MAX_POINTS - 1];
+    // 温度标签及最大/最小温度标签
+    private final String[] tempLabels = new String[MAX_POINTS];
+    private String maxTempLabel;
+    private String minTempLabel;
+    private float timeLabelY;
+    private float maxLabelY;
+    private float minLabelY;
+    private boolean geometryValid;
+    
     private int paddingLeft = 40;
     private int paddingRight = 20;
     private int paddingTop = 20;
@@ -72,7 +103,7 @@ public class TemperatureChartView extends View {
         
         // 初始化曲线画笔
         linePaint = new Paint();
-        linePaint.setColor(Color.parseColor("#4CAF50")); // 绿色曲线
+        linePaint.setColor(COLOR_LOW); // 绿色曲线
         linePaint.setStrokeWidth(3);
         linePaint.setStyle(Paint.Style.STROKE);
         linePaint.setAntiAlias(true);
@@ -96,40 +127,62 @@ public class TemperatureChartView extends View {
         tempTextPaint.setTextSize(20); // 增大字体大小
         tempTextPaint.setTextAlign(Paint.Align.RIGHT);
         tempTextPaint.setAntiAlias(true);
+        
+        // 初始化数据点上方的温度标签画笔
+        tempLabelPaint = new Paint(textPaint);
+        tempLabelPaint.setColor(Color.parseColor("#FF9800")); // 使用固定颜色
+        
+        // 每段曲线的路径和画笔只创建一次
+        for (int i = 0; i < segmentPaths.length; i++) {
+            segmentPaths[i] = new Path();
+            segmentPaints[i] = new Paint(linePaint);
+        }
     }
     
-    public void setTemperatureData(List<ForecastWeather.ForecastItem> forecastItems) {
-        temperatures.clear();
-        times.clear();
+    /**
+     * 从第from条开始设置曲线数据，直接读取预报序列的基本类型数组，不经过ForecastItem对象
+     * 时间标签与预报列表一致，按预报城市的时区显示
+     *
+     * @param index 预报时间索引
+     * @param from  第一条要显示的条目位置，之前的条目已过去
+     */
+    public void setTemperatureData(ForecastTimeIndex index, int from) {
+        ForecastSeries series = index.getSeries();
+        pointCount = 0;
         minTemp = Float.MAX_VALUE;
         maxTemp = Float.MIN_VALUE;
         
         // 只获取未来24小时的数据，或者最多8个数据点
-        int count = 0;
-        for (ForecastWeather.ForecastItem item : forecastItems) {
-            if (count >= 8) break;
-            
+        for (int i = from; i < series.size() && pointCount < MAX_POINTS; i++) {
+            if (Float.isNaN(series.getTemperature(i))) {
+                continue;
+            }
             // 将开尔文温度转换为摄氏度
-            float tempCelsius = (float) (item.getMain().getTemp() - 273.15);
-            temperatures.add(tempCelsius);
+            float tempCelsius = series.getTemperature(i) - 273.15f;
+            temperatures[pointCount] = tempCelsius;
             
-            // 提取时间（格式：HH:mm）
-            String time = formatTime(item.getDt_txt());
-            times.add(time);
+            // 时间标签（格式：HH:mm）
+            times[pointCount] = formatTime(series.getEpochSeconds(i), index.getTimezoneOffsetSeconds());
             
             // 更新温度范围
             if (tempCelsius < minTemp) minTemp = tempCelsius;
             if (tempCelsius > maxTemp) maxTemp = tempCelsius;
             
-            count++;
+            pointCount++;
         }
         
+        applyTemperatureRange();
+    }
+    
+    // 补足数据点并为温度范围增加边距，计算绘制用的坐标后重绘
+    private void applyTemperatureRange() {
         // 如果只有一个数据点，添加一些假数据以便绘制
-        if (temperatures.size() == 1) {
-            temperatures.add(temperatures.get(0) + 2);
-            times.add("+");
-            maxTemp = Math.max(maxTemp, temperatures.get(1));
-            minTemp = Math.min(minTemp, temperatures.get(0));
+        if (pointCount == 1) {
+            temperatures[1] = temperatures[0] + 2;
+            times[1] = "+";
+            pointCount = 2;
+            maxTemp = Math.max(maxTemp, temperatures[1]);
+            minTemp = Math.min(minTemp, temperatures[0]);
         }
         
         // 增加一些边距到温度范围
@@ -142,195 +195,140 @@ public class TemperatureChartView extends View {
             maxTemp += 1;
         }
         
+        // 标签文本只与数据有关
+        for (int i = 0; i < pointCount; i++) {
+            tempLabels[i] = String.format(Locale.getDefault(), "%.1f°", temperatures[i]);
+        }
+        maxTempLabel = String.format(Locale.getDefault(), "%.1f°", maxTemp);
+        minTempLabel = String.format(Locale.getDefault(), "%.1f°", minTemp);
+        
+        computeGeometry(getWidth(), getHeight());
         invalidate();
     }
     
-    private String formatTime(String datetimeString) {
-        try {
-            SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-            SimpleDateFormat outputFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-            Date date = inputFormat.parse(datetimeString);
-            return outputFormat.format(date);
-        } catch (ParseException e) {
-            // 如果解析失败，返回原始时间的一部分
-            String[] parts = datetimeString.split(" ");
-            if (parts.length > 1) {
-                return parts[1].substring(0, 5);
-            }
-            return datetimeString;
+    // 时间戳按城市偏移格式化为HH:mm
+    private static String formatTime(long epochSeconds, int offsetSeconds) {
+        int secondOfDay = (int) ((epochSeconds + offsetSeconds) % SECONDS_PER_DAY);
+        if (secondOfDay < 0) {
+            secondOfDay += SECONDS_PER_DAY;
         }
+        return String.format(Locale.US, "%02d:%02d", secondOfDay / 3600, secondOfDay % 3600 / 60);
     }
     
     @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        
-        int width = getWidth();
-        int height = getHeight();
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        computeGeometry(w, h);
+    }
+    
+    // 根据当前数据和尺寸计算网格线、数据点、曲线路径和渐变
+    private void computeGeometry(int width, int height) {
+        geometryValid = width > 0 && height > 0;
+        if (!geometryValid) {
+            return;
+        }
         
         // 计算图表区域
         int chartWidth = width - paddingLeft - paddingRight;
         int chartHeight = height - paddingTop - paddingBottom;
+        float bottom = height - paddingBottom;
         
-        // 绘制网格线
-        drawGridLines(canvas, width, height, chartWidth, chartHeight);
+        // 垂直网格线和水平网格线
+        int offset = 0;
+        for (int i = 0; i <= GRID_LINES; i++) {
+            float x = paddingLeft + (chartWidth / (float) GRID_LINES) * i;
+            offset = putLine(gridLines, offset, x, paddingTop, x, bottom);
+        }
+        for (int i = 0; i <= GRID_LINES; i++) {
+            float y = bottom - (chartHeight / (float) GRID_LINES) * i;
+            offset = putLine(gridLines, offset, paddingLeft, y, width - paddingRight, y);
+        }
         
-        // 绘制坐标轴
-        drawAxes(canvas, width, height);
+        // X轴和Y轴
+        putLine(axisLines, 0, paddingLeft, bottom, width - paddingRight, bottom);
+        putLine(axisLines, 4, paddingLeft, paddingTop, paddingLeft, bottom);
         
-        // 绘制曲线和点
-        if (temperatures.size() > 0) {
-            drawTemperatureChart(canvas, width, height, chartWidth, chartHeight);
-            
-            // 绘制时间标签
-            drawTimeLabels(canvas, width, height, chartWidth, chartHeight);
-            
-            // 绘制温度标签
-            drawTemperatureLabels(canvas, width, height, chartHeight);
+        timeLabelY = bottom + 20;
+        maxLabelY = paddingTop + 15;
+        minLabelY = bottom - 5;
+        
+        if (pointCount < 2) {
+            return;
         }
-    }
-    
-    private void drawGridLines(Canvas canvas, int width, int height, int chartWidth, int chartHeight) {
-        // 垂直网格线
-        int verticalLinesCount = 4;
-        for (int i = 0; i <= verticalLinesCount; i++) {
-            float x = paddingLeft + (chartWidth / (float) verticalLinesCount) * i;
-            canvas.drawLine(x, paddingTop, x, height - paddingBottom, gridPaint);
+        
+        // 计算所有点的坐标
+        float xStep = chartWidth / (float) (pointCount - 1);
+        for (int i = 0; i < pointCount; i++) {
+            float y = bottom - ((temperatures[i] - minTemp) / (maxTemp - minTemp) * chartHeight);
+            pointXs[i] = paddingLeft + (xStep * i);
+            // 确保y值在有效范围内
+            pointYs[i] = Math.max(paddingTop + POINT_RADIUS, Math.min(bottom - POINT_RADIUS, y));
         }
         
-        // 水平网格线
-        int horizontalLinesCount = 4;
-        for (int i = 0; i <= horizontalLinesCount; i++) {
-            float y = height - paddingBottom - (chartHeight / (float) horizontalLinesCount) * i;
-            canvas.drawLine(paddingLeft, y, width - paddingRight, y, gridPaint);
+        // 逐段生成曲线，根据温度变化趋势使用渐变色
+        for (int i = 0; i < pointCount - 1; i++) {
+            float x0 = pointXs[i];
+            float y0 = pointYs[i];
+            float x1 = pointXs[i + 1];
+            float y1 = pointYs[i + 1];
+            
+            // 使用简化的二次贝塞尔曲线，使曲线更平滑自然
+            Path segmentPath = segmentPaths[i];
+            segmentPath.rewind();
+            segmentPath.moveTo(x0, y0);
+            segmentPath.quadTo((x0 + x1) / 2, (y0 + y1) / 2, x1, y1);
+            
+            // 上升波段从绿色到红色，下降波段从红色到绿色
+            boolean isRising = temperatures[i + 1] > temperatures[i];
+            segmentPaints[i].setShader(new LinearGradient(x0, y0, x1, y1,
+                    isRising ? COLOR_LOW : COLOR_HIGH, isRising ? COLOR_HIGH : COLOR_LOW,
+                    Shader.TileMode.CLAMP));
         }
     }
     
-    private void drawAxes(Canvas canvas, int width, int height) {
-        // X轴
-        canvas.drawLine(paddingLeft, height - paddingBottom, width - paddingRight, height - paddingBottom, axisPaint);
-        
-        // Y轴
-        canvas.drawLine(paddingLeft, paddingTop, paddingLeft, height - paddingBottom, axisPaint);
+    // 写入一条线段的两个端点，返回下一条线段的位置
+    private static int putLine(float[] lines, int offset, float startX, float startY, float stopX, float stopY) {
+        lines[offset] = startX;
+        lines[offset + 1] = startY;
+        lines[offset + 2] = stopX;
+        lines[offset + 3] = stopY;
+        return offset + 4;
     }
     
-    private void drawTemperatureChart(Canvas canvas, int width, int height, int chartWidth, int chartHeight) {
-        if (temperatures.size() < 2) return;
-        
-        float pointRadius = 4f;
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (!geometryValid) {
+            return;
+        }
         
-        // 绘制曲线
-        float xStep = chartWidth / (float) (temperatures.size() - 1);
+        // 绘制网格线和坐标轴
+        canvas.drawLines(gridLines, gridPaint);
+        canvas.drawLines(axisLines, axisPaint);
         
-        // 计算所有点的坐标
-        List<PointF> points = new ArrayList<>();
-        for (int i = 0; i < temperatures.size(); i++) {
-            float x = paddingLeft + (xStep * i);
-            float temperature = temperatures.get(i);
-            float y = height - paddingBottom - ((temperature - minTemp) / (maxTemp - minTemp) * chartHeight);
-            
-            // 确保y值在有效范围内
-            y = Math.max(paddingTop + pointRadius, Math.min(height - paddingBottom - pointRadius, y));
-            
-            points.add(new PointF(x, y));
+        if (pointCount < 2) {
+            return;
         }
         
-        // 逐段绘制曲线，根据温度变化趋势使用渐变色
-        for (int i = 0; i < points.size() - 1; i++) {
-            PointF currentPoint = points.get(i);
-            PointF nextPoint = points.get(i + 1);
-            
-            // 确定温度变化趋势（上升还是下降）
-            float currentTemp = temperatures.get(i);
-            float nextTemp = temperatures.get(i + 1);
-            boolean isRising = nextTemp > currentTemp;
-            
-            // 创建新的路径用于每一段曲线
-            Path segmentPath = new Path();
-            segmentPath.moveTo(currentPoint.x, currentPoint.y);
-            
-            // 使用简化的二次贝塞尔曲线，使曲线更平滑自然
-            float controlPointX = (currentPoint.x + nextPoint.x) / 2;
-            float controlPointY = (currentPoint.y + nextPoint.y) / 2;
-            
-            // 绘制二次贝塞尔曲线段
-            segmentPath.quadTo(controlPointX, controlPointY, nextPoint.x, nextPoint.y);
-            
-            // 根据温度变化趋势设置渐变色
-            Paint segmentPaint = new Paint(linePaint);
-            
-            // 定义渐变颜色
-            int startColor, endColor;
-            
-            if (isRising) {
-                // 上升波段：从绿色渐变为红色
-                startColor = Color.parseColor("#4CAF50"); // 绿色起始
-                endColor = Color.parseColor("#FF5722");   // 红色结束
-            } else {
-                // 下降波段：从红色渐变为绿色
-                startColor = Color.parseColor("#FF5722"); // 红色起始
-                endColor = Color.parseColor("#4CAF50");   // 绿色结束
-            }
-            
-            // 创建线性渐变
-            LinearGradient gradient = new LinearGradient(
-                currentPoint.x, currentPoint.y,  // 渐变起始点
-                nextPoint.x, nextPoint.y,       // 渐变结束点
-                startColor, endColor,           // 起始和结束颜色
-                Shader.TileMode.CLAMP           // 渐变模式
-            );
-            
-            // 应用渐变到画笔
-            segmentPaint.setShader(gradient);
-            
-            // 绘制当前线段
-            canvas.drawPath(segmentPath, segmentPaint);
+        // 绘制曲线
+        for (int i = 0; i < pointCount - 1; i++) {
+            canvas.drawPath(segmentPaths[i], segmentPaints[i]);
         }
         
         // 绘制数据点和温度标签（在曲线之后绘制，这样会显示在曲线前面）
-        for (int i = 0; i < points.size(); i++) {
-            PointF point = points.get(i);
-            float temperature = temperatures.get(i);
-            
-            // 绘制数据点
-            canvas.drawCircle(point.x, point.y, pointRadius, pointPaint);
-            
-            // 绘制温度标签
-            String tempText = String.format("%.1f°", temperature);
-            Paint tempLabelPaint = new Paint(textPaint);
-            tempLabelPaint.setTextAlign(Paint.Align.CENTER);
-            tempLabelPaint.setColor(Color.parseColor("#FF9800")); // 使用固定颜色
-            tempLabelPaint.setTextSize(20); // 增大字体大小
-            
+        for (int i = 0; i < pointCount; i++) {
+            canvas.drawCircle(pointXs[i], pointYs[i], POINT_RADIUS, pointPaint);
             // 在点的上方绘制温度标签，留出一定间距
-            canvas.drawText(tempText, point.x, point.y - pointRadius - 5, tempLabelPaint);
+            canvas.drawText(tempLabels[i], pointXs[i], pointYs[i] - POINT_RADIUS - 5, tempLabelPaint);
         }
-    }
-    
-    // 用于存储坐标点的内部类
-    private static class PointF {
-        float x;
-        float y;
         
-        PointF(float x, float y) {
-            this.x = x;
-            this.y = y;
+        // 绘制时间标签
+        for (int i = 0; i < pointCount; i++) {
+            canvas.drawText(times[i], pointXs[i], timeLabelY, textPaint);
         }
-    }
-    
-    private void drawTimeLabels(Canvas canvas, int width, int height, int chartWidth, int chartHeight) {
-        float xStep = chartWidth / (float) (times.size() - 1);
         
-        for (int i = 0; i < times.size(); i++) {
-            float x = paddingLeft + (xStep * i);
-            float y = height - paddingBottom + 20;
-            canvas.drawText(times.get(i), x, y, textPaint);
-        }
-    }
-    
-    private void drawTemperatureLabels(Canvas canvas, int width, int height, int chartHeight) {
         // 绘制最大和最小温度
-        canvas.drawText(String.format("%.1f°", maxTemp), paddingLeft - 10, paddingTop + 15, tempTextPaint);
-        canvas.drawText(String.format("%.1f°", minTemp), paddingLeft - 10, height - paddingBottom - 5, tempTextPaint);
+        canvas.drawText(maxTempLabel, paddingLeft - 10, maxLabelY, tempTextPaint);
+        canvas.drawText(minTempLabel, paddingLeft - 10, minLabelY, tempTextPaint);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package com.example.weatherapp.viewmodel;
+
+import com.example.weatherapp.model.CurrentWeather;
+import com.example.weatherapp.model.ForecastSeries;
+
+/**
+ * 多城市模式下单个城市的天气，当前天气和预报分别到达，任一部分可能为null
+ */
+public class CityWeather {
+    private final int cityId;
+    private final CurrentWeather currentWeather;
+    private final ForecastSeries forecastSeries;
+
+    public CityWeather(int cityId, CurrentWeather currentWeather, ForecastSeries forecastSeries) {
+        this.cityId = cityId;
+        this.currentWeather = currentWeather;
+        this.forecastSeries = forecastSeries;
+    }
+
+    public int getCityId() {
+        return cityId;
+    }
+
+    public CurrentWeather getCurrentWeather() {
+        return currentWeather;
+    }
+
+    public ForecastSeries getForecastSeries() {
+        return forecastSeries;
+    }
+
+    // 合并新到达的部分，传入null的部分保留原值
+    CityWeather merge(CurrentWeather current, ForecastSeries forecast) {
+        return new CityWeather(cityId,
+                current != null ? current : currentWeather,
+                forecast != null ? forecast : forecastSeries);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.weatherapp.viewmodel;
+
+/**
+ * 当前展示的天气数据的新鲜度，界面据此显示"更新中"等状态而不必隐藏已有内容
+ */
+public class DataFreshness {
+
+    public enum State {
+        // 数据在软过期时间内，不需要重新获取
+        FRESH,
+        // 数据已超过软过期时间，正在后台重新获取
+        REVALIDATING,
+        // 数据已超过软过期时间，且重新获取失败或尚未开始
+        STALE
+    }
+
+    private final State state;
+    // 数据获取时间（毫秒）
+    private final long fetchedAt;
+
+    public DataFreshness(State state, long fetchedAt) {
+        this.state = state;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    // 数据的年龄（毫秒）
+    public long getAgeMillis() {
+        return System.currentTimeMillis() - fetchedAt;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.weatherapp.viewmodel;
+
+import java.util.Objects;
+
+/**
+ * 预报列表中一行的显示数据，所有文本和数值在后台线程一次算好，绑定时只需要赋值
+ * 每天一个标题行，后面是当天的小时预报行
+ */
+public final class ForecastRow {
+    public static final int KIND_DAY_HEADER = 0;
+    public static final int KIND_HOUR = 1;
+
+    private final int kind;
+    private final long stableId;
+    // 标题行：日期和星期；小时行：格式化后的时间
+    private final String title;
+    // 标题行：当天温度范围；小时行：该时段的最低/最高温度，没有温度数据时为null
+    private final String temperatureText;
+    // 以下仅小时行使用
+    private final String description;
+    private final String iconUrl;
+    private final int iconResId;
+    // 进度条：渐变起点（当天上一条的温度，没有时为NaN）、当前温度及刻度范围（摄氏度）
+    private final double previousTemp;
+    private final double currentTemp;
+    private final double scaleMin;
+    private final double scaleMax;
+    private final String minLabel;
+    private final String maxLabel;
+
+    private ForecastRow(int kind, long stableId, String title, String temperatureText,
+                        String description, String iconUrl, int iconResId,
+                        double previousTemp, double currentTemp, double scaleMin, double scaleMax,
+                        String minLabel, String maxLabel) {
+        this.kind = kind;
+        this.stableId = stableId;
+        this.title = title;
+        this.temperatureText = temperatureText;
+        this.description = description;
+        this.iconUrl = iconUrl;
+        this.iconResId = iconResId;
+        this.previousTemp = previousTemp;
+        this.currentTemp = currentTemp;
+        this.scaleMin = scaleMin;
+        this.scaleMax = scaleMax;
+        this.minLabel = minLabel;
+        this.maxLabel = maxLabel;
+    }
+
+    static ForecastRow dayHeader(long stableId, String title, String temperatureText) {
+        return new ForecastRow(KIND_DAY_HEADER, stableId, title, temperatureText,
+                null, null, 0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, null, null);
+    }
+
+    static ForecastRow hour(long dt, String title, String temperatureText,
+                            String description, String iconUrl, int iconResId,
+                            double previousTemp, double currentTemp, double scaleMin, double scaleMax,
+                            String minLabel, String maxLabel) {
+        return new ForecastRow(KIND_HOUR, dt, title, temperatureText, description, iconUrl, iconResId,
+                previousTemp, currentTemp, scaleMin, scaleMax, minLabel, maxLabel);
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    // 小时行为预报时间dt，标题行为日期的负数，两者不会冲突
+    public long getStableId() {
+        return stableId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getTemperatureText() {
+        return temperatureText;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getIconUrl() {
+        return iconUrl;
+    }
+
+    public int getIconResId() {
+        return iconResId;
+    }
+
+    public double getPreviousTemp() {
+        return previousTemp;
+    }
+
+    public double getCurrentTemp() {
+        return currentTemp;
+    }
+
+    public double getScaleMin() {
+        return scaleMin;
+    }
+
+    public double getScaleMax() {
+        return scaleMax;
+    }
+
+    public String getMinLabel() {
+        return minLabel;
+    }
+
+    public String getMaxLabel() {
+        return maxLabel;
+    }
+
+    /**
+     * 比较两行显示的内容是否相同，用于列表差异计算
+     */
+    public boolean hasSameContent(ForecastRow other) {
+        return kind == other.kind
+                && stableId == other.stableId
+                && Double.compare(previousTemp, other.previousTemp) == 0
+                && Double.compare(currentTemp, other.currentTemp) == 0
+                && Double.compare(scaleMin, other.scaleMin) == 0
+                && Double.compare(scaleMax, other.scaleMax) == 0
+                && iconResId == other.iconResId
+                && Objects.equals(title, other.title)
+                && Objects.equals(temperatureText, other.temperatureText)
+                && Objects.equals(description, other.description)
+                && Objects.equals(iconUrl, other.iconUrl);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.weatherapp.viewmodel;
+
+import com.example.weatherapp.model.DailySummaries;
+import com.example.weatherapp.model.ForecastSeries;
+import com.example.weatherapp.model.ForecastTimeIndex;
+import com.example.weatherapp.utils.TimeUtils;
+import com.example.weatherapp.utils.WeatherIconUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 把预报数据按天分组并转换成列表的显示行
+ * 温度换算和字符串格式化都在这里一次完成，可以在后台线程调用
+ */
+public final class ForecastRowBuilder {
+    private static final double KELVIN_OFFSET = 273.15;
+
+    private ForecastRowBuilder() {
+    }
+
+    /**
+     * 生成按天分组的显示行，每天一个标题行，后面是当天的小时行
+     * 日期和时间按预报城市的时区显示
+     *
+     * @param index 预报时间索引
+     * @param from  第一条要显示的条目位置，之前的条目已过去
+     * @return 显示行列表
+     */
+    public static List<ForecastRow> build(ForecastTimeIndex index, int from) {
+        List<ForecastRow> rows = new ArrayList<>();
+        if (from >= index.size()) {
+            return rows;
+        }
+        for (int day = index.dayOf(from); day < index.getDayCount(); day++) {
+            addDayRows(rows, index, day, Math.max(from, index.getDayStart(day)), index.getDayEnd(day));
+        }
+        return rows;
+    }
+
+    /**
+     * 窗口向后移动后的显示行：只重新生成第一条未过去预报所在的那一天，之后各天直接沿用之前的行
+     *
+     * @param previousRows 同一索引之前生成的显示行
+     * @param index        预报时间索引
+     * @param from         新的第一条要显示的条目位置
+     * @return 显示行列表
+     */
+    public static List<ForecastRow> advance(List<ForecastRow> previousRows, ForecastTimeIndex index, int from) {
+        List<ForecastRow> rows = new ArrayList<>(previousRows.size());
+        if (from >= index.size()) {
+            return rows;
+        }
+        int day = index.dayOf(from);
+        addDayRows(rows, index, day, from, index.getDayEnd(day));
+        if (day + 1 >= index.getDayCount()) {
+            return rows;
+        }
+        // 找到下一天的标题行，从这里开始沿用
+        long nextHeaderId = dayHeaderId(index.getEpochDay(day + 1));
+        for (int i = 0; i < previousRows.size(); i++) {
+            ForecastRow row = previousRows.get(i);
+            if (row.getKind() == ForecastRow.KIND_DAY_HEADER && row.getStableId() == nextHeaderId) {
+                rows.addAll(previousRows.subList(i, previousRows.size()));
+                return rows;
+            }
+        }
+        // 之前的行中没有这一天时重新生成剩下的各天
+        for (int d = day + 1; d < index.getDayCount(); d++) {
+            addDayRows(rows, index, d, index.getDayStart(d), index.getDayEnd(d));
+        }
+        return rows;
+    }
+
+    private static void addDayRows(List<ForecastRow> rows, ForecastTimeIndex index, int day, int start, int end) {
+        // 当天的温度范围（标题显示和进度条刻度）直接读取建立索引时算好的汇总，不再扫描当天的条目；
+        // 汇总包含当天已过去的时段，窗口移动时标题不变
+        DailySummaries summaries = index.getDailySummaries();
+        double minTemp = summaries.getMinTemp(day) - KELVIN_OFFSET; // 从开尔文转换为摄氏度
+        double maxTemp = summaries.getMaxTemp(day) - KELVIN_OFFSET;
+        double scaleMin = minTemp;
+        double scaleMax = maxTemp;
+
+        // 确保进度条温度范围有效
+        if (Double.isNaN(scaleMin) || Double.isNaN(scaleMax)) {
+            scaleMin = -10; // 默认最小值
+            scaleMax = 40;  // 默认最大值
+        } else if (scaleMin == scaleMax) {
+            // 如果所有温度都相同，设置一个小的范围
+            scaleMin -= 1;
+            scaleMax += 1;
+        }
+
+        // 标题行：城市当地的日期和星期
+        long epochDay = index.getEpochDay(day);
+        String temperatureRange = Double.isNaN(minTemp) || Double.isNaN(maxTemp) ? null
+                : String.format(Locale.getDefault(), "%.1f° / %.1f°", minTemp, maxTemp);
+        rows.add(ForecastRow.dayHeader(dayHeaderId(epochDay), TimeUtils.formatEpochDayWithWeek(epochDay),
+                temperatureRange));
+
+        String minLabel = String.format(Locale.getDefault(), "最低(%.1f)", scaleMin);
+        String maxLabel = String.format(Locale.getDefault(), "最高(%.1f)", scaleMax);
+        double previousTemp = Double.NaN;
+        ForecastSeries series = index.getSeries();
+        for (int i = start; i < end; i++) {
+            String description = null;
+            String iconUrl = null;
+            int iconResId = 0;
+            if (series.hasCondition(i)) {
+                description = series.getDescription(i);
+                // 使用OpenWeatherMap的官方图标，加载失败时使用本地图标
+                iconUrl = "https://openweathermap.org/img/wn/" + series.getIcon(i) + "@3x.png";
+                iconResId = WeatherIconUtils.getLocalWeatherIcon(series.getIcon(i));
+            }
+
+            String temperatureText = null;
+            double currentTemp = Double.NaN;
+            if (!Float.isNaN(series.getTemperature(i))) {
+                currentTemp = series.getTemperature(i) - KELVIN_OFFSET;
+                // 格式化温度显示，保留1位小数以显示细微差异
+                temperatureText = String.format(Locale.getDefault(), "%.1f°C / %.1f°C",
+                        series.getMinTemperature(i) - KELVIN_OFFSET,
+                        series.getMaxTemperature(i) - KELVIN_OFFSET);
+            }
+
+            String time = TimeUtils.formatLocalDateTime(index.getEpochSeconds(i), index.getTimezoneOffsetSeconds());
+            rows.add(ForecastRow.hour(series.getEpochSeconds(i), time,
+                    temperatureText, description, iconUrl, iconResId,
+                    previousTemp, currentTemp, scaleMin, scaleMax, minLabel, maxLabel));
+            // 下一条进度条渐变的起点是当天上一条的温度
+            previousTemp = currentTemp;
+        }
+    }
+
+    // 标题行的稳定ID：日期取负数，不会与小时行的dt冲突
+    private static long dayHeaderId(long epochDay) {
+        return -(epochDay + 1);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.weatherapp.viewmodel;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.weatherapp.model.ForecastTimeIndex;
+
+/**
+ * 预报的滚动显示窗口
+ * 记录第一条未过去的预报位置，并在这条预报的时间到达时（预报按3小时整点排列）把窗口向后移动，
+ * 已过去的时段不需要等下一次网络刷新就会从界面上移除，移动时只做一次二分查找，不访问网络也不解析数据
+ * 所有方法都在主线程调用
+ */
+public class ForecastWindow {
+    private static final String TAG = "ForecastWindow";
+
+    /**
+     * 窗口变化的回调
+     */
+    public interface Listener {
+        /**
+         * @param index    预报时间索引
+         * @param from     第一条未过去的预报位置
+         * @param advanced 是否只是同一份数据的窗口向后移动（而不是新数据）
+         */
+        void onWindowChanged(ForecastTimeIndex index, int from, boolean advanced);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Listener listener;
+    private final Runnable advanceRunnable = this::advance;
+    private ForecastTimeIndex index;
+    private int from;
+    private boolean started;
+
+    public ForecastWindow(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 使用新的预报数据，立即回调一次
+     *
+     * @param index 预报时间索引
+     */
+    public void setIndex(ForecastTimeIndex index) {
+        this.index = index;
+        from = index.firstIndexNotBefore(System.currentTimeMillis());
+        listener.onWindowChanged(index, from, false);
+        scheduleNextAdvance();
+    }
+
+    /**
+     * 开始按时段移动窗口，界面可见时调用
+     * 停止期间已过去的时段会立即移除
+     */
+    public void start() {
+        started = true;
+        advance();
+    }
+
+    /**
+     * 停止移动窗口，界面不可见时调用
+     */
+    public void stop() {
+        started = false;
+        handler.removeCallbacks(advanceRunnable);
+    }
+
+    private void advance() {
+        if (index == null) {
+            return;
+        }
+        int newFrom = index.firstIndexNotBefore(System.currentTimeMillis());
+        if (newFrom > from) {
+            Log.d(TAG, "Forecast window advanced past " + (newFrom - from) + " expired slots");
+            from = newFrom;
+            listener.onWindowChanged(index, from, true);
+        }
+        scheduleNextAdvance();
+    }
+
+    // 在窗口中第一条预报的时间到达后再移动一次
+    private void scheduleNextAdvance() {
+        handler.removeCallbacks(advanceRunnable);
+        if (!started || index == null || from >= index.size()) {
+            return;
+        }
+        // 预报时间早于当前时间才算过去，所以在时段开始后1毫秒移动
+        long delay = index.getEpochSeconds(from) * 1000 + 1 - System.currentTimeMillis();
+        handler.postDelayed(advanceRunnable, Math.max(0, delay));
+    }
+}
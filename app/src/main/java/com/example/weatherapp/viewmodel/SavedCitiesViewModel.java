@@ -0,0 +1,138 @@
+package com.example.weatherapp.viewmodel;
+
+import android.app.Application;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.weatherapp.model.CurrentWeather;
+import com.example.weatherapp.model.CurrentWeatherGroup;
+import com.example.weatherapp.model.ForecastSeries;
+import com.example.weatherapp.network.WeatherRepository;
+import com.example.weatherapp.utils.PreferencesHelper;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 保存的城市列表（多城市模式）
+ * 当前天气每20个城市合并为一次group请求，预报按城市请求但限制并发数，结果合并到每个城市的LiveData
+ */
+public class SavedCitiesViewModel extends AndroidViewModel {
+    private static final String TAG = "SavedCitiesViewModel";
+
+    private final WeatherRepository weatherRepository;
+    private final PreferencesHelper preferencesHelper;
+
+    // 保存的城市ID，按添加顺序
+    private final MutableLiveData<List<Integer>> savedCityIds = new MutableLiveData<>();
+    // 每个保存的城市一个LiveData
+    private final Map<Integer, MutableLiveData<CityWeather>> cityWeather = new HashMap<>();
+
+    public SavedCitiesViewModel(@NonNull Application application) {
+        super(application);
+        weatherRepository = WeatherRepository.getInstance(application);
+        preferencesHelper = new PreferencesHelper(application);
+
+        // 设置API key到WeatherRepository
+        String apiKey = preferencesHelper.getApiKey();
+        if (apiKey != null && !apiKey.isEmpty()) {
+            weatherRepository.setApiKey(apiKey);
+        }
+        savedCityIds.setValue(preferencesHelper.getSavedCityIds());
+    }
+
+    // 获取保存的城市ID列表
+    public LiveData<List<Integer>> getSavedCityIds() {
+        return savedCityIds;
+    }
+
+    // 获取保存的城市的天气
+    public LiveData<CityWeather> getCityWeather(int cityId) {
+        return cityLiveData(cityId);
+    }
+
+    // 从保存的城市中移除
+    public void removeCity(int cityId) {
+        preferencesHelper.removeSavedCity(cityId);
+        cityWeather.remove(cityId);
+        savedCityIds.setValue(preferencesHelper.getSavedCityIds());
+    }
+
+    private MutableLiveData<CityWeather> cityLiveData(int cityId) {
+        MutableLiveData<CityWeather> liveData = cityWeather.get(cityId);
+        if (liveData == null) {
+            liveData = new MutableLiveData<>();
+            cityWeather.put(cityId, liveData);
+        }
+        return liveData;
+    }
+
+    // 把新到达的当前天气或预报合并到对应城市的LiveData
+    // 请求期间被移除的城市，迟到的结果直接丢弃，不再重新创建它的LiveData
+    private void mergeCityWeather(int cityId, CurrentWeather current, ForecastSeries forecast) {
+        List<Integer> savedIds = savedCityIds.getValue();
+        if (savedIds == null || !savedIds.contains(cityId)) {
+            Log.d(TAG, "Dropped weather of removed city " + cityId);
+            return;
+        }
+        MutableLiveData<CityWeather> liveData = cityLiveData(cityId);
+        CityWeather previous = liveData.getValue();
+        liveData.setValue(previous == null
+                ? new CityWeather(cityId, current, forecast)
+                : previous.merge(current, forecast));
+    }
+
+    /**
+     * 获取所有保存的城市的天气
+     * 当前天气每20个城市合并为一次group请求，预报按城市请求但限制并发数
+     */
+    public void fetchSavedCitiesWeather() {
+        List<Integer> cityIds = preferencesHelper.getSavedCityIds();
+        if (cityIds.isEmpty()) {
+            return;
+        }
+        weatherRepository.fetchCurrentWeatherForCities(cityIds, new Callback<CurrentWeatherGroup>() {
+            @Override
+            public void onResponse(Call<CurrentWeatherGroup> call, Response<CurrentWeatherGroup> response) {
+                if (response.isSuccessful() && response.body() != null && response.body().getList() != null) {
+                    for (CurrentWeather weather : response.body().getList()) {
+                        mergeCityWeather(weather.getId(), weather, null);
+                    }
+                } else {
+                    Log.e(TAG, "City group weather error: " + response.message());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<CurrentWeatherGroup> call, Throwable t) {
+                Log.e(TAG, "City group weather network error: " + t.getMessage());
+            }
+        });
+        for (final Integer cityId : cityIds) {
+            weatherRepository.fetchForecastSeriesByCityId(cityId, new Callback<ForecastSeries>() {
+                @Override
+                public void onResponse(Call<ForecastSeries> call, Response<ForecastSeries> response) {
+                    if (response.isSuccessful() && response.body() != null) {
+                        mergeCityWeather(cityId, null, response.body());
+                    } else {
+                        Log.e(TAG, "City forecast error for " + cityId + ": " + response.message());
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<ForecastSeries> call, Throwable t) {
+                    Log.e(TAG, "City forecast network error for " + cityId + ": " + t.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.weatherapp.viewmodel;
 
 import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -9,11 +11,23 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.weatherapp.model.CurrentWeather;
-import com.example.weatherapp.model.ForecastWeather;
+import com.example.weatherapp.model.ForecastSeries;
 import com.example.weatherapp.model.ReverseGeocodingResponse;
+import com.example.weatherapp.network.SingleFlight;
 import com.example.weatherapp.network.WeatherApiService;
 import com.example.weatherapp.network.WeatherRepository;
+import com.example.weatherapp.utils.ForecastStore;
+import com.example.weatherapp.utils.GeocodeCache;
+import com.example.weatherapp.utils.LocationCell;
 import com.example.weatherapp.utils.PreferencesHelper;
+import com.example.weatherapp.utils.WeatherSnapshotStore;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -21,18 +35,40 @@ import retrofit2.Response;
 
 public class WeatherViewModel extends AndroidViewModel {
     private static final String TAG = "WeatherViewModel";
+    // 从本地数据库读取预报的范围：从当前时间起5天
+    private static final long STORED_FORECAST_RANGE_SECONDS = 5 * 24 * 60 * 60;
     private WeatherRepository weatherRepository;
     private PreferencesHelper preferencesHelper;
+    private WeatherSnapshotStore snapshotStore;
+    // 以下两个只在diskExecutor中使用，创建时会读取数据库或缓存文件
+    private ForecastStore forecastStore;
+    private GeocodeCache geocodeCache;
+    // 快照、地理编码缓存的读取和本地数据库读写在后台线程执行
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private MutableLiveData<CurrentWeather> currentWeather = new MutableLiveData<>();
-    private MutableLiveData<ForecastWeather> forecastWeather = new MutableLiveData<>();
+    private MutableLiveData<ForecastSeries> forecastSeries = new MutableLiveData<>();
     private MutableLiveData<Boolean> isLoading = new MutableLiveData<>();
     private MutableLiveData<String> error = new MutableLiveData<>();
     private MutableLiveData<String> locationCityName = new MutableLiveData<>();
+    private MutableLiveData<DataFreshness> freshness = new MutableLiveData<>();
+
+    // 当前展示的数据的获取时间和对应位置，用于判断是否需要重新获取
+    private long dataFetchedAt;
+    private double dataLatitude;
+    private double dataLongitude;
+
+    // 请求序号：每发起一轮新的获取就加一，旧一轮迟到的响应按序号丢弃
+    private long fetchSequence;
+    // 当前进行中的一轮获取，新的一轮开始时取消它（只保留最新的请求）
+    private FetchJoin activeJoin;
+    // 由搜索选中城市发起的一轮获取的序号，这一轮返回的城市会加入保存的城市列表
+    private long selectedCitySequence = -1;
 
     public WeatherViewModel(@NonNull Application application) {
         super(application);
-        weatherRepository = WeatherRepository.getInstance();
+        weatherRepository = WeatherRepository.getInstance(application);
         preferencesHelper = new PreferencesHelper(application);
         
         // 设置API key到WeatherRepository
@@ -40,14 +76,133 @@ public class WeatherViewModel extends AndroidViewModel {
         if (apiKey != null && !apiKey.isEmpty()) {
             weatherRepository.setApiKey(apiKey);
         }
+
+        // 快照文件、地理编码缓存文件和本地数据库都在后台线程读取，读完后回到主线程发布，不阻塞Activity的创建
+        snapshotStore = WeatherSnapshotStore.getInstance(application);
+        diskExecutor.execute(() -> {
+            forecastStore = ForecastStore.getInstance(application);
+            final WeatherSnapshotStore.Snapshot snapshot = snapshotStore.load();
+            mainHandler.post(() -> {
+                restoreSnapshot(snapshot);
+                // 快照中没有预报时，尝试从本地数据库读取缓存位置的预报
+                if (forecastSeries.getValue() == null && preferencesHelper.hasCachedLocation()) {
+                    loadStoredForecast(preferencesHelper.getLatitude(), preferencesHelper.getLongitude());
+                }
+            });
+            // 快照先发布，地理编码缓存随后加载，不推迟首帧
+            geocodeCache = GeocodeCache.getInstance(application);
+        });
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        cancelActiveFetch();
+        diskExecutor.shutdown();
+    }
+
+    /**
+     * 从本地数据库读取指定位置的预报，不访问网络
+     * 只有在还没有其他预报数据时才发布，避免覆盖更新的网络结果
+     */
+    public void loadStoredForecast(final double latitude, final double longitude) {
+        diskExecutor.execute(() -> {
+            long now = System.currentTimeMillis() / 1000;
+            final ForecastSeries stored =
+                    forecastStore.queryRange(latitude, longitude, now, now + STORED_FORECAST_RANGE_SECONDS);
+            if (stored.size() == 0) {
+                return;
+            }
+            mainHandler.post(() -> {
+                if (forecastSeries.getValue() == null) {
+                    Log.d(TAG, "Loaded " + stored.size() + " forecast items from local store");
+                    forecastSeries.setValue(stored);
+                }
+            });
+        });
+    }
+
+    // 把新获取的预报批量写入本地数据库
+    private void storeForecast(final double latitude, final double longitude, final ForecastSeries forecast) {
+        diskExecutor.execute(() -> forecastStore.saveForecast(latitude, longitude, forecast));
+    }
+
+    // 发布上次保存的天气快照，随后的网络结果会覆盖它
+    // 快照在后台读取，读完时网络结果可能已经先到，这时只补充还没有的数据
+    private void restoreSnapshot(WeatherSnapshotStore.Snapshot snapshot) {
+        if (snapshot == null || dataFetchedAt != 0) {
+            return;
+        }
+        // 按数据本身的生成时间判断年龄，超过硬过期时间的数据不再展示，等待网络结果
+        if (PreferencesHelper.isBeyondHardTtl(System.currentTimeMillis() - snapshot.getDataTime())) {
+            Log.d(TAG, "Discarded weather snapshot with data from " + snapshot.getDataTime());
+            return;
+        }
+        Log.d(TAG, "Restored weather snapshot saved at " + snapshot.getSavedAt()
+                + ", data from " + snapshot.getDataTime());
+        if (snapshot.getCityName() != null && locationCityName.getValue() == null) {
+            locationCityName.setValue(snapshot.getCityName());
+        }
+        if (snapshot.getCurrentWeather() != null && currentWeather.getValue() == null) {
+            currentWeather.setValue(snapshot.getCurrentWeather());
+            CurrentWeather.Coord coord = snapshot.getCurrentWeather().getCoord();
+            if (coord != null) {
+                dataLatitude = coord.getLat();
+                dataLongitude = coord.getLon();
+                dataFetchedAt = snapshot.getDataTime();
+            }
+        }
+        if (snapshot.getForecastSeries() != null && forecastSeries.getValue() == null) {
+            forecastSeries.setValue(snapshot.getForecastSeries());
+        }
+        isLoading.setValue(false);
+        // 已经在获取时保持"更新中"的状态
+        publishFreshness(activeJoin != null);
+    }
+
+    // 根据数据年龄发布新鲜度，revalidating表示正在后台重新获取
+    private void publishFreshness(boolean revalidating) {
+        if (dataFetchedAt == 0) {
+            return;
+        }
+        DataFreshness.State state;
+        if (revalidating) {
+            state = DataFreshness.State.REVALIDATING;
+        } else if (PreferencesHelper.isBeyondSoftTtl(System.currentTimeMillis() - dataFetchedAt)) {
+            state = DataFreshness.State.STALE;
+        } else {
+            state = DataFreshness.State.FRESH;
+        }
+        freshness.setValue(new DataFreshness(state, dataFetchedAt));
+    }
+
+    // 已展示的数据是否属于该位置（同一个0.01°网格内）且仍在软过期时间内
+    private boolean hasFreshDataFor(double latitude, double longitude) {
+        return dataFetchedAt != 0
+                && LocationCell.key(latitude, longitude) == LocationCell.key(dataLatitude, dataLongitude)
+                && !PreferencesHelper.isBeyondSoftTtl(System.currentTimeMillis() - dataFetchedAt);
+    }
+
+    // 当前天气和天气预报都已获取时保存快照，连同数据的生成时间一起保存
+    private void saveSnapshot() {
+        CurrentWeather current = currentWeather.getValue();
+        ForecastSeries forecast = forecastSeries.getValue();
+        if (current == null || forecast == null) {
+            return;
+        }
+        String cityName = locationCityName.getValue();
+        if (cityName == null || cityName.isEmpty()) {
+            cityName = current.getName();
+        }
+        snapshotStore.save(cityName, current, forecast, dataFetchedAt);
     }
 
     public LiveData<CurrentWeather> getCurrentWeather() {
         return currentWeather;
     }
 
-    public LiveData<ForecastWeather> getForecastWeather() {
-        return forecastWeather;
+    public LiveData<ForecastSeries> getForecastSeries() {
+        return forecastSeries;
     }
 
     public LiveData<Boolean> getIsLoading() {
@@ -63,6 +218,11 @@ public class WeatherViewModel extends AndroidViewModel {
         return locationCityName;
     }
 
+    // 获取数据新鲜度，界面据此显示"更新中"而不隐藏已有内容
+    public LiveData<DataFreshness> getFreshness() {
+        return freshness;
+    }
+
     // 直接获取天气数据（添加参数控制是否设置加载状态）
     public void fetchWeatherData(double latitude, double longitude) {
         // 默认为true，表示初始加载时设置加载状态
@@ -75,81 +235,300 @@ public class WeatherViewModel extends AndroidViewModel {
             isLoading.setValue(true);
         }
         error.setValue(null);
+        publishFreshness(true);
+
+        // 当前天气和天气预报同时发出
+        FetchJoin join = startFetch(2, latitude, longitude);
+        enqueueCurrentWeather(latitude, longitude, join);
+        enqueueForecastWeather(latitude, longitude, join);
+        switchTo(join);
+    }
+
+    // 使用搜索选中的城市：城市名称已知，不需要反向地理编码，直接获取天气数据
+    public void selectCity(String cityName, double latitude, double longitude) {
+        locationCityName.setValue(cityName);
+        fetchWeatherData(latitude, longitude);
+        selectedCitySequence = fetchSequence;
+    }
+
+    // 同时获取位置信息和天气数据（stale-while-revalidate：数据仍新鲜时不发请求）
+    public void fetchLocationAndWeatherData(double latitude, double longitude) {
+        fetchLocationAndWeatherData(latitude, longitude, false);
+    }
+
+    // 同时获取位置信息和天气数据，三个请求并行发出，各自返回后立即更新对应的LiveData
+    // force为true时（如用户手动刷新）忽略软过期时间，总是重新获取
+    public void fetchLocationAndWeatherData(final double latitude, final double longitude, boolean force) {
+        if (!force && hasFreshDataFor(latitude, longitude)) {
+            Log.d(TAG, "Weather data is still fresh, skip revalidation");
+            // 其他位置的旧请求已经没有意义
+            if (activeJoin != null && !activeJoin.isFor(latitude, longitude)) {
+                cancelActiveFetch();
+                isLoading.setValue(false);
+            }
+            publishFreshness(false);
+            return;
+        }
+        // 不设置isLoading为true，保持天气页面可见，已有数据标记为正在更新
+        error.setValue(null);
+        publishFreshness(true);
+
+        FetchJoin join = startFetch(3, latitude, longitude);
+        enqueueReverseGeocoding(latitude, longitude, join);
+        enqueueCurrentWeather(latitude, longitude, join);
+        enqueueForecastWeather(latitude, longitude, join);
+        switchTo(join);
+    }
+
+    // 开始新一轮获取：分配新的序号，上一轮迟到的响应从此被丢弃
+    private FetchJoin startFetch(int pending, double latitude, double longitude) {
+        return new FetchJoin(pending, latitude, longitude, ++fetchSequence);
+    }
+
+    // 新一轮的请求都已发出后再取消上一轮，
+    // 这样同一位置仍在进行的网络调用会被新一轮直接复用，而不是取消后重新发出
+    private void switchTo(FetchJoin join) {
+        if (activeJoin != null) {
+            activeJoin.cancel();
+        }
+        activeJoin = join;
+    }
+
+    // 取消当前一轮获取的所有请求，已在主线程排队的响应也会因序号过期被丢弃
+    private void cancelActiveFetch() {
+        fetchSequence++;
+        if (activeJoin != null) {
+            activeJoin.cancel();
+            activeJoin = null;
+        }
+    }
 
-        // 获取当前天气数据
-        weatherRepository.getCurrentWeather(latitude, longitude).enqueue(new Callback<CurrentWeather>() {
+    // 获取当前天气数据
+    private void enqueueCurrentWeather(double latitude, double longitude, final FetchJoin join) {
+        join.track(weatherRepository.fetchCurrentWeather(latitude, longitude, new Callback<CurrentWeather>() {
             @Override
             public void onResponse(Call<CurrentWeather> call, Response<CurrentWeather> response) {
+                if (join.isStale()) {
+                    return;
+                }
                 if (response.isSuccessful() && response.body() != null) {
                     currentWeather.setValue(response.body());
+                    join.markUpdated(response);
+                    // 搜索选中的城市按OpenWeatherMap的城市ID保存，城市列表中通过group接口批量获取
+                    if (join.sequence == selectedCitySequence && response.body().getId() != 0) {
+                        preferencesHelper.addSavedCity(response.body().getId());
+                    }
                 } else {
-                    error.setValue("获取当前天气失败: " + response.message());
+                    join.addError("获取当前天气失败: " + response.message());
                     Log.e(TAG, "Current weather error: " + response.message());
                 }
+                join.complete();
             }
 
             @Override
             public void onFailure(Call<CurrentWeather> call, Throwable t) {
-                error.setValue("网络错误: " + t.getMessage());
+                if (join.isStale()) {
+                    return;
+                }
+                join.addError("网络错误: " + t.getMessage());
                 Log.e(TAG, "Current weather network error: " + t.getMessage());
+                join.complete();
             }
-        });
+        }));
+    }
 
-        // 获取天气预报数据
-        weatherRepository.getForecastWeather(latitude, longitude).enqueue(new Callback<ForecastWeather>() {
+    // 获取天气预报数据
+    private void enqueueForecastWeather(final double latitude, final double longitude, final FetchJoin join) {
+        join.track(weatherRepository.fetchForecastSeries(latitude, longitude, new Callback<ForecastSeries>() {
             @Override
-            public void onResponse(Call<ForecastWeather> call, Response<ForecastWeather> response) {
+            public void onResponse(Call<ForecastSeries> call, Response<ForecastSeries> response) {
+                if (join.isStale()) {
+                    return;
+                }
                 if (response.isSuccessful() && response.body() != null) {
-                    forecastWeather.setValue(response.body());
+                    forecastSeries.setValue(response.body());
+                    storeForecast(latitude, longitude, response.body());
+                    join.markUpdated(response);
                 } else {
-                    error.setValue("获取天气预报失败: " + response.message());
+                    join.addError("获取天气预报失败: " + response.message());
                     Log.e(TAG, "Forecast weather error: " + response.message());
                 }
-                isLoading.setValue(false);
+                join.complete();
             }
 
             @Override
-            public void onFailure(Call<ForecastWeather> call, Throwable t) {
-                error.setValue("网络错误: " + t.getMessage());
+            public void onFailure(Call<ForecastSeries> call, Throwable t) {
+                if (join.isStale()) {
+                    return;
+                }
+                join.addError("网络错误: " + t.getMessage());
                 Log.e(TAG, "Forecast weather network error: " + t.getMessage());
-                isLoading.setValue(false);
+                join.complete();
             }
-        });
+        }));
     }
 
-    // 先获取位置信息，再获取天气数据（新方法）
-    public void fetchLocationAndWeatherData(final double latitude, final double longitude) {
-        // 不设置isLoading为true，保持天气页面可见
-        error.setValue(null);
+    // 附近已解析过的坐标直接使用本地缓存的结果，不发出网络请求
+    // 缓存在diskExecutor中加载，查询也在其中执行，保证查询时缓存文件已经读取
+    private void enqueueReverseGeocoding(final double latitude, final double longitude, final FetchJoin join) {
+        diskExecutor.execute(() -> {
+            final ReverseGeocodingResponse cached = geocodeCache.lookup(latitude, longitude);
+            mainHandler.post(() -> {
+                if (join.isStale()) {
+                    return;
+                }
+                if (cached != null) {
+                    Log.d(TAG, "Reverse geocoding served locally: " + cached.getCityName());
+                    locationCityName.setValue(cached.getCityName());
+                    join.complete();
+                    return;
+                }
+                requestReverseGeocoding(latitude, longitude, join);
+            });
+        });
+    }
 
-        // 先使用正确的反向地理编码API获取位置信息
-        weatherRepository.getReverseGeocodingInfo(latitude, longitude).enqueue(new Callback<ReverseGeocodingResponse[]>() {
+    // 使用反向地理编码API获取位置信息，失败时只记录日志，不影响天气数据的展示
+    private void requestReverseGeocoding(final double latitude, final double longitude, final FetchJoin join) {
+        join.track(weatherRepository.fetchReverseGeocodingInfo(latitude, longitude, new Callback<ReverseGeocodingResponse[]>() {
             @Override
             public void onResponse(Call<ReverseGeocodingResponse[]> call, Response<ReverseGeocodingResponse[]> response) {
+                if (join.isStale()) {
+                    return;
+                }
                 if (response.isSuccessful() && response.body() != null && response.body().length > 0) {
                     // 获取到了真实的位置信息
-                    ReverseGeocodingResponse locationInfo = response.body()[0];
+                    final ReverseGeocodingResponse locationInfo = response.body()[0];
+                    diskExecutor.execute(() -> geocodeCache.put(latitude, longitude, locationInfo));
                     String realCityName = locationInfo.getCityName();
                     Log.d(TAG, "Got real location info: " + realCityName + ", " + locationInfo.getCountry());
-                    
+
                     // 更新城市名称
                     locationCityName.setValue(realCityName);
-                    
-                    // 然后获取天气数据，不设置加载状态
-                    fetchWeatherData(latitude, longitude, false);
                 } else {
                     Log.e(TAG, "Reverse geocoding error: " + response.message());
-                    // 即使获取位置信息失败，也继续获取天气数据，不设置加载状态
-                    fetchWeatherData(latitude, longitude, false);
                 }
+                join.complete();
             }
 
             @Override
             public void onFailure(Call<ReverseGeocodingResponse[]> call, Throwable t) {
+                if (join.isStale()) {
+                    return;
+                }
                 Log.e(TAG, "Reverse geocoding network error: " + t.getMessage());
-                // 即使获取位置信息失败，也继续获取天气数据，不设置加载状态
-                fetchWeatherData(latitude, longitude, false);
+                join.complete();
             }
-        });
+        }));
+    }
+
+    /**
+     * 响应数据的生成时间
+     * 来自服务端的响应（包括304确认未变化）为当前时间；由磁盘缓存直接返回或stale-if-error回退到的缓存，
+     * 按响应的Date头减去Age头推算，没有Date头时使用缓存中记录的接收时间
+     */
+    private static long dataTimeOf(okhttp3.Response raw) {
+        long now = System.currentTimeMillis();
+        if (raw.networkResponse() != null) {
+            return now;
+        }
+        Date date = raw.headers().getDate("Date");
+        long generatedAt = date != null ? date.getTime() : raw.receivedResponseAtMillis();
+        String age = raw.header("Age");
+        if (age != null) {
+            try {
+                generatedAt -= TimeUnit.SECONDS.toMillis(Long.parseLong(age.trim()));
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Invalid Age header: " + age);
+            }
+        }
+        return Math.min(generatedAt, now);
+    }
+
+    /**
+     * 并行请求的汇合点（只在主线程使用）
+     * 所有请求完成后才结束加载状态，并把各请求的错误合并成一条消息发布
+     * 序号不是最新的一轮视为过期，其响应全部丢弃
+     */
+    private class FetchJoin {
+        private int pending;
+        private boolean updated;
+        // 本轮更新的数据中最旧的生成时间（毫秒）
+        private long oldestDataTime = Long.MAX_VALUE;
+        private final StringBuilder errors = new StringBuilder();
+        private final double latitude;
+        private final double longitude;
+        private final long sequence;
+        private final List<SingleFlight.Subscription> subscriptions = new ArrayList<>(3);
+
+        FetchJoin(int pending, double latitude, double longitude, long sequence) {
+            this.pending = pending;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.sequence = sequence;
+        }
+
+        // 记录请求句柄，以便新一轮开始或ViewModel销毁时取消
+        void track(SingleFlight.Subscription subscription) {
+            subscriptions.add(subscription);
+        }
+
+        void cancel() {
+            for (SingleFlight.Subscription subscription : subscriptions) {
+                subscription.cancel();
+            }
+            subscriptions.clear();
+        }
+
+        // 已被更新的一轮取代，或ViewModel已销毁
+        boolean isStale() {
+            if (sequence != fetchSequence) {
+                Log.d(TAG, "Dropped stale response of fetch #" + sequence);
+                return true;
+            }
+            return false;
+        }
+
+        boolean isFor(double latitude, double longitude) {
+            return LocationCell.key(latitude, longitude) == LocationCell.key(this.latitude, this.longitude);
+        }
+
+        // 有天气数据更新成功，记录数据的生成时间
+        void markUpdated(Response<?> response) {
+            updated = true;
+            oldestDataTime = Math.min(oldestDataTime, dataTimeOf(response.raw()));
+        }
+
+        void addError(String message) {
+            if (errors.length() > 0) {
+                errors.append('\n');
+            }
+            errors.append(message);
+        }
+
+        void complete() {
+            pending--;
+            if (pending > 0) {
+                return;
+            }
+            subscriptions.clear();
+            if (activeJoin == this) {
+                activeJoin = null;
+            }
+            if (errors.length() > 0) {
+                error.setValue(errors.toString());
+            }
+            isLoading.setValue(false);
+            if (updated) {
+                // 由磁盘缓存返回的数据保留原来的时间，只有真正来自服务端的响应才算刚刚更新
+                dataFetchedAt = oldestDataTime;
+                dataLatitude = latitude;
+                dataLongitude = longitude;
+                preferencesHelper.saveLastUpdateTime(dataFetchedAt);
+                saveSnapshot();
+            }
+            // 更新失败时保留已有数据，按其年龄标记为新鲜或过期
+            publishFreshness(false);
+        }
     }
-}
\ No newline at end of file
+}
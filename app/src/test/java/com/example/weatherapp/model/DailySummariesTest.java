@@ -0,0 +1,210 @@
+package com.example.weatherapp.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DailySummaries每天汇总的测试：温度、降水、白天加权的主要天气和夜间时段
+ */
+public class DailySummariesTest {
+    // 2024-05-06 00:00:00 UTC，城市偏移为0，每天8个时段
+    private static final long DAY_START = 1714953600L;
+    private static final int STEP = 3 * 60 * 60;
+    private static final double DELTA = 1e-9;
+    // 降水量在ForecastSeries中以float保存
+    private static final double PRECIPITATION_DELTA = 1e-6;
+
+    @Test
+    public void precipitationIsNaNWithoutData() {
+        List<ForecastWeather.ForecastItem> items = new ArrayList<>();
+        for (int slot = 0; slot < 8; slot++) {
+            items.add(item(slot, slot < 4 ? "n" : "d", 800, "01d", 290));
+        }
+        DailySummaries summaries = summarize(items);
+
+        assertEquals(1, summaries.getDayCount());
+        assertFalse(summaries.hasRain(0));
+        assertTrue(Double.isNaN(summaries.getRainTotal(0)));
+        assertFalse(summaries.hasSnow(0));
+        assertTrue(Double.isNaN(summaries.getSnowTotal(0)));
+    }
+
+    @Test
+    public void precipitationSumsSlotsThatReportIt() {
+        List<ForecastWeather.ForecastItem> items = new ArrayList<>();
+        for (int slot = 0; slot < 8; slot++) {
+            items.add(item(slot, "d", 500, "10d", 285));
+        }
+        items.get(1).setRain(precipitation(0.5));
+        items.get(2).setRain(precipitation(1.25));
+        // 返回了降雨字段但为0时也算有数据
+        items.get(3).setRain(precipitation(0));
+        items.get(6).setSnow(precipitation(0.2));
+        DailySummaries summaries = summarize(items);
+
+        assertTrue(summaries.hasRain(0));
+        assertEquals(1.75, summaries.getRainTotal(0), PRECIPITATION_DELTA);
+        assertTrue(summaries.hasSnow(0));
+        assertEquals(0.2, summaries.getSnowTotal(0), PRECIPITATION_DELTA);
+    }
+
+    @Test
+    public void temperaturesAndPop() {
+        List<ForecastWeather.ForecastItem> items = new ArrayList<>();
+        double[] temps = {280, 279, 283, 288, 291, 290, 286, 282};
+        for (int slot = 0; slot < 8; slot++) {
+            ForecastWeather.ForecastItem item = item(slot, slot >= 2 && slot < 6 ? "d" : "n", 800, "01d", temps[slot]);
+            item.setPop(slot * 0.1);
+            items.add(item);
+        }
+        DailySummaries summaries = summarize(items);
+
+        assertEquals(278, summaries.getMinTemp(0), DELTA);
+        assertEquals(292, summaries.getMaxTemp(0), DELTA);
+        assertEquals(284.875, summaries.getMeanTemp(0), DELTA);
+        assertEquals(288, summaries.getDayMeanTemp(0), DELTA);
+        assertEquals(281.75, summaries.getNightMeanTemp(0), DELTA);
+        assertEquals(4, summaries.getDaySlotCount(0));
+        assertEquals(4, summaries.getNightSlotCount(0));
+        assertEquals(0.7, summaries.getMaxPop(0), DELTA);
+    }
+
+    @Test
+    public void daytimeSlotsOutweighNightSlots() {
+        // 夜间5个晴（权重5），白天3个雨（权重6）：雨为主要天气，虽然时段数更少
+        List<ForecastWeather.ForecastItem> items = new ArrayList<>();
+        for (int slot = 0; slot < 8; slot++) {
+            boolean daytime = slot >= 3 && slot < 6;
+            items.add(daytime
+                    ? item(slot, "d", 500, "10d", 285)
+                    : item(slot, "n", 800, "01n", 283));
+        }
+        DailySummaries summaries = summarize(items);
+
+        assertEquals(500, summaries.getConditionCode(0));
+        assertEquals("10d", summaries.getConditionIcon(0));
+        assertEquals("desc 500", summaries.getConditionDescription(0));
+    }
+
+    @Test
+    public void equalWeightPrefersMoreSevereCondition() {
+        // 白天1个多云（权重2）对夜间2个雨（权重2）：权重相同时取雨
+        List<ForecastWeather.ForecastItem> items = new ArrayList<>();
+        items.add(item(0, "n", 500, "10n", 283));
+        items.add(item(1, "n", 500, "10n", 283));
+        items.add(item(2, "d", 803, "04d", 285));
+        DailySummaries summaries = summarize(items);
+        assertEquals(500, summaries.getConditionCode(0));
+
+        // 雷暴与雪权重相同时取雷暴，与出现顺序无关
+        items = new ArrayList<>();
+        items.add(item(0, "d", 600, "13d", 271));
+        items.add(item(1, "d", 211, "11d", 272));
+        assertEquals(211, summarize(items).getConditionCode(0));
+        Collections.reverse(items);
+        assertEquals(211, summarize(items).getConditionCode(0));
+
+        // 晴与多云权重相同时取多云
+        items = new ArrayList<>();
+        items.add(item(0, "d", 800, "01d", 290));
+        items.add(item(1, "d", 801, "02d", 290));
+        assertEquals(801, summarize(items).getConditionCode(0));
+    }
+
+    @Test
+    public void dominantConditionUsesDaytimeIcon() {
+        // 同一天气先出现夜间时段，图标仍使用白天的
+        List<ForecastWeather.ForecastItem> items = new ArrayList<>();
+        items.add(item(0, "n", 802, "03n", 283));
+        items.add(item(1, "n", 802, "03n", 283));
+        items.add(item(2, "d", 802, "03d", 286));
+        DailySummaries summaries = summarize(items);
+
+        assertEquals(802, summaries.getConditionCode(0));
+        assertEquals("03d", summaries.getConditionIcon(0));
+    }
+
+    @Test
+    public void nightOnlyDay() {
+        // 城市当地23:00开始的预报：第一天只有一个夜间时段
+        List<ForecastWeather.ForecastItem> items = new ArrayList<>();
+        items.add(item(7, "n", 701, "50n", 279));
+        for (int slot = 8; slot < 16; slot++) {
+            items.add(item(slot, slot >= 10 && slot < 14 ? "d" : "n", 800, "01d", 285));
+        }
+        DailySummaries summaries = summarize(items);
+
+        assertEquals(2, summaries.getDayCount());
+        assertEquals(0, summaries.getDaySlotCount(0));
+        assertEquals(1, summaries.getNightSlotCount(0));
+        assertTrue(Double.isNaN(summaries.getDayMeanTemp(0)));
+        assertEquals(279, summaries.getNightMeanTemp(0), DELTA);
+        assertEquals(279, summaries.getMeanTemp(0), DELTA);
+        assertEquals(701, summaries.getConditionCode(0));
+        // 没有白天时段时使用夜间图标
+        assertEquals("50n", summaries.getConditionIcon(0));
+        assertEquals(0, summaries.getMaxPop(0), DELTA);
+
+        // 第二天不受第一天的影响
+        assertEquals(800, summaries.getConditionCode(1));
+        assertEquals(4, summaries.getDaySlotCount(1));
+    }
+
+    @Test
+    public void slotsWithoutWeatherOrMain() {
+        ForecastWeather.ForecastItem item = new ForecastWeather.ForecastItem();
+        item.setDt(DAY_START);
+        DailySummaries summaries = summarize(Collections.singletonList(item));
+
+        assertEquals(1, summaries.getDayCount());
+        assertTrue(Double.isNaN(summaries.getMinTemp(0)));
+        assertTrue(Double.isNaN(summaries.getMaxTemp(0)));
+        assertTrue(Double.isNaN(summaries.getMeanTemp(0)));
+        assertEquals(0, summaries.getConditionCode(0));
+        assertNull(summaries.getConditionIcon(0));
+        assertNull(summaries.getConditionDescription(0));
+    }
+
+    private static DailySummaries summarize(List<ForecastWeather.ForecastItem> items) {
+        ForecastWeather forecast = new ForecastWeather();
+        forecast.setList(items);
+        return ForecastTimeIndex.build(ForecastSeries.from(forecast), 0).getDailySummaries();
+    }
+
+    // 第slot个3小时时段（从2024-05-06 00:00 UTC起），temp_min/temp_max为temp上下各1度
+    private static ForecastWeather.ForecastItem item(int slot, String pod, int conditionCode, String icon, double temp) {
+        ForecastWeather.ForecastItem item = new ForecastWeather.ForecastItem();
+        item.setDt(DAY_START + (long) slot * STEP);
+
+        ForecastWeather.ForecastItem.Main main = new ForecastWeather.ForecastItem.Main();
+        main.setTemp(temp);
+        main.setTemp_min(temp - 1);
+        main.setTemp_max(temp + 1);
+        item.setMain(main);
+
+        ForecastWeather.ForecastItem.Weather weather = new ForecastWeather.ForecastItem.Weather();
+        weather.setId(conditionCode);
+        weather.setIcon(icon);
+        weather.setDescription("desc " + conditionCode);
+        item.setWeather(Collections.singletonList(weather));
+
+        ForecastWeather.ForecastItem.Sys sys = new ForecastWeather.ForecastItem.Sys();
+        sys.setPod(pod);
+        item.setSys(sys);
+        return item;
+    }
+
+    private static ForecastWeather.ForecastItem.Precipitation precipitation(double threeHour) {
+        ForecastWeather.ForecastItem.Precipitation precipitation = new ForecastWeather.ForecastItem.Precipitation();
+        precipitation.setThreeHour(threeHour);
+        return precipitation;
+    }
+}
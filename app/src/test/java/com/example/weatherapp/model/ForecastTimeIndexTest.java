@@ -0,0 +1,167 @@
+package com.example.weatherapp.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.example.weatherapp.utils.TimeUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * ForecastTimeIndex按城市当地日期分组和二分查找的测试
+ * 设备时区固定为纽约，城市使用不同的UTC偏移，验证日期边界取城市当地的零点
+ */
+public class ForecastTimeIndexTest {
+    // 2024-05-06 00:00:00 UTC
+    private static final long START = 1714953600L;
+    private static final int STEP = 3 * 60 * 60;
+    private static final int ITEM_COUNT = 40;
+
+    private static final int SHANGHAI = 8 * 3600;
+    private static final int NEW_YORK_DST = -4 * 3600;
+    private static final int KOLKATA = 5 * 3600 + 1800;
+    private static final int MARQUESAS = -(9 * 3600 + 1800);
+
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setDeviceTimeZone() {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    }
+
+    @After
+    public void restoreTimeZone() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void groupsByCityLocalDate() {
+        // 上海当地时间从08:00开始：第一天6条，之后每天8条，最后一天2条
+        ForecastTimeIndex index = ForecastTimeIndex.build(series(items(START, ITEM_COUNT)), SHANGHAI);
+        assertEquals(6, index.getDayCount());
+        int[] expectedSizes = {6, 8, 8, 8, 8, 2};
+        for (int day = 0; day < expectedSizes.length; day++) {
+            assertEquals("day " + day, expectedSizes[day], index.getDayEnd(day) - index.getDayStart(day));
+        }
+        assertEquals(0, index.getDayStart(0));
+        assertEquals(ITEM_COUNT, index.getDayEnd(index.getDayCount() - 1));
+        assertEquals(19849, index.getEpochDay(0)); // 2024-05-06
+    }
+
+    @Test
+    public void dayOfMatchesLocalDateForEveryOffset() {
+        int[] offsets = {0, SHANGHAI, NEW_YORK_DST, KOLKATA, MARQUESAS, 14 * 3600, -12 * 3600};
+        for (int offset : offsets) {
+            ForecastTimeIndex index = ForecastTimeIndex.build(series(items(START, ITEM_COUNT)), offset);
+            String previousDate = null;
+            int expectedDay = -1;
+            for (int i = 0; i < index.size(); i++) {
+                // formatLocalDateTime的结果为"MM-dd HH:mm"，按城市偏移计算，与设备时区无关
+                String date = TimeUtils.formatLocalDateTime(index.getEpochSeconds(i), offset).substring(0, 5);
+                if (!date.equals(previousDate)) {
+                    expectedDay++;
+                    previousDate = date;
+                    assertEquals("offset " + offset + " index " + i, i, index.getDayStart(expectedDay));
+                    assertEquals(date, TimeUtils.formatEpochDayWithWeek(index.getEpochDay(expectedDay)).substring(0, 5));
+                }
+                assertEquals("offset " + offset + " index " + i, expectedDay, index.dayOf(i));
+            }
+            assertEquals("offset " + offset, expectedDay + 1, index.getDayCount());
+        }
+    }
+
+    @Test
+    public void cityOffsetOverridesDeviceOffset() {
+        ForecastWeather forecast = new ForecastWeather();
+        forecast.setList(items(START, ITEM_COUNT));
+        ForecastWeather.City city = new ForecastWeather.City();
+        city.setTimezone(SHANGHAI);
+        forecast.setCity(city);
+
+        ForecastTimeIndex cityIndex = ForecastTimeIndex.build(ForecastSeries.from(forecast));
+        assertEquals(SHANGHAI, cityIndex.getTimezoneOffsetSeconds());
+        // 2024-05-06 16:00 UTC：上海已是5月7日零点，纽约还是5月6日中午
+        int boundary = 16 / 3;
+        assertEquals(0, cityIndex.dayOf(boundary - 1));
+        assertEquals(1, cityIndex.dayOf(boundary + 1));
+
+        // 没有城市时区时退回设备时区（纽约夏令时），日期边界在UTC 04:00
+        forecast.setCity(null);
+        ForecastTimeIndex deviceIndex = ForecastTimeIndex.build(ForecastSeries.from(forecast));
+        assertEquals(NEW_YORK_DST, deviceIndex.getTimezoneOffsetSeconds());
+        assertEquals(0, deviceIndex.dayOf(0)); // 5月5日 20:00
+        assertEquals(1, deviceIndex.dayOf(2)); // 5月6日 02:00
+        assertNotEquals(cityIndex.dayOf(2), deviceIndex.dayOf(2));
+    }
+
+    @Test
+    public void firstIndexNotBeforeAcrossDayBoundary() {
+        ForecastTimeIndex index = ForecastTimeIndex.build(series(items(START, ITEM_COUNT)), SHANGHAI);
+        long startMillis = START * 1000;
+
+        assertEquals(0, index.firstIndexNotBefore(Long.MIN_VALUE));
+        assertEquals(0, index.firstIndexNotBefore(startMillis));
+        assertEquals(1, index.firstIndexNotBefore(startMillis + 1));
+        assertEquals(ITEM_COUNT - 1, index.firstIndexNotBefore((START + (ITEM_COUNT - 1) * (long) STEP) * 1000));
+        assertEquals(ITEM_COUNT, index.firstIndexNotBefore((START + (ITEM_COUNT - 1) * (long) STEP) * 1000 + 1));
+
+        // 上海5月7日零点（UTC 5月6日16:00）前后：之前最后一条属于第0天，之后第一条属于第1天
+        long midnightMillis = (START + 16 * 3600) * 1000;
+        int first = index.firstIndexNotBefore(midnightMillis - 1);
+        assertEquals(0, index.dayOf(first - 1));
+        assertEquals(1, index.dayOf(first));
+        assertEquals(first, index.getDayStart(1));
+        assertEquals(first, index.firstIndexNotBefore(midnightMillis));
+        assertEquals("05-07 02:00", TimeUtils.formatLocalDateTime(index.getEpochSeconds(first), SHANGHAI));
+
+        // 每一条的时间都能精确找到自己
+        for (int i = 0; i < index.size(); i++) {
+            assertEquals(i, index.firstIndexNotBefore(index.getEpochSeconds(i) * 1000));
+            assertEquals(i + 1, index.firstIndexNotBefore(index.getEpochSeconds(i) * 1000 + 1));
+        }
+    }
+
+    @Test
+    public void unsortedItemsAreSorted() {
+        List<ForecastWeather.ForecastItem> items = items(START, ITEM_COUNT);
+        Collections.reverse(items);
+        ForecastTimeIndex index = ForecastTimeIndex.build(series(items), SHANGHAI);
+        for (int i = 1; i < index.size(); i++) {
+            assertEquals(index.getEpochSeconds(i - 1) + STEP, index.getEpochSeconds(i));
+        }
+        assertEquals(6, index.getDayCount());
+    }
+
+    @Test
+    public void emptyForecast() {
+        ForecastTimeIndex index = ForecastTimeIndex.build(null, SHANGHAI);
+        assertEquals(0, index.size());
+        assertEquals(0, index.getDayCount());
+        assertEquals(0, index.firstIndexNotBefore(START * 1000));
+        assertEquals(0, index.getDailySummaries().getDayCount());
+    }
+
+    private static ForecastSeries series(List<ForecastWeather.ForecastItem> items) {
+        ForecastWeather forecast = new ForecastWeather();
+        forecast.setList(items);
+        return ForecastSeries.from(forecast);
+    }
+
+    private static List<ForecastWeather.ForecastItem> items(long start, int count) {
+        List<ForecastWeather.ForecastItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ForecastWeather.ForecastItem item = new ForecastWeather.ForecastItem();
+            item.setDt(start + (long) i * STEP);
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.weatherapp.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 手写TypeAdapter与Gson反射解析的对比
+ * 先确认两种方式解析结果一致，再分别测量冷启动（新建Gson后的首次解析）和预热后的解析耗时
+ */
+public class ModelTypeAdapterBenchmarkTest {
+    private static final int COLD_ROUNDS = 50;
+    private static final int WARM_ITERATIONS = 2000;
+    private static final int FORECAST_ITEMS = 40;
+
+    // 应用中使用的Gson配置
+    private static Gson handWritten() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+                .create();
+    }
+
+    // 不注册手写TypeAdapter，全部走反射
+    private static Gson reflective() {
+        return new Gson();
+    }
+
+    @Test
+    public void currentWeatherMatchesReflectiveParsing() {
+        String json = currentWeatherJson();
+        CurrentWeather expected = reflective().fromJson(json, CurrentWeather.class);
+        CurrentWeather actual = handWritten().fromJson(json, CurrentWeather.class);
+        // 用反射序列化比较全部字段
+        assertEquals(reflective().toJson(expected), reflective().toJson(actual));
+    }
+
+    @Test
+    public void forecastMatchesReflectiveParsing() {
+        String json = forecastJson();
+        ForecastWeather expected = reflective().fromJson(json, ForecastWeather.class);
+        ForecastWeather actual = handWritten().fromJson(json, ForecastWeather.class);
+        assertEquals(reflective().toJson(expected), reflective().toJson(actual));
+    }
+
+    @Test
+    public void reverseGeocodingMatchesReflectiveParsing() {
+        String json = "[{\"name\":\"北京市\",\"local_names\":{\"zh\":\"北京市\"},\"lat\":39.9042,"
+                + "\"lon\":116.4074,\"country\":\"CN\",\"state\":null}]";
+        ReverseGeocodingResponse[] expected = reflective().fromJson(json, ReverseGeocodingResponse[].class);
+        ReverseGeocodingResponse[] actual = handWritten().fromJson(json, ReverseGeocodingResponse[].class);
+        assertEquals(reflective().toJson(expected), reflective().toJson(actual));
+    }
+
+    @Test
+    public void nullFieldsKeepDefaults() {
+        String json = "{\"dt\":null,\"main\":{\"temp\":null,\"humidity\":null},\"weather\":null,\"name\":null}";
+        CurrentWeather expected = reflective().fromJson(json, CurrentWeather.class);
+        CurrentWeather actual = handWritten().fromJson(json, CurrentWeather.class);
+        assertEquals(reflective().toJson(expected), reflective().toJson(actual));
+        assertNull(actual.getName());
+    }
+
+    @Test
+    public void coldAndWarmParsing() {
+        String current = currentWeatherJson();
+        String forecast = forecastJson();
+
+        // 冷启动：每轮新建Gson，相当于进程启动后的首次解析，反射方式需要在这时扫描模型类
+        long reflectiveCold = 0;
+        long handWrittenCold = 0;
+        for (int round = 0; round < COLD_ROUNDS; round++) {
+            long start = System.nanoTime();
+            Gson gson = reflective();
+            gson.fromJson(current, CurrentWeather.class);
+            gson.fromJson(forecast, ForecastWeather.class);
+            reflectiveCold += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            gson = handWritten();
+            gson.fromJson(current, CurrentWeather.class);
+            gson.fromJson(forecast, ForecastWeather.class);
+            handWrittenCold += System.nanoTime() - start;
+        }
+
+        // 预热后：复用同一个Gson实例
+        long reflectiveWarm = warm(reflective(), forecast);
+        long handWrittenWarm = warm(handWritten(), forecast);
+
+        System.out.println("Cold (new Gson + current + forecast), avg per round: reflective "
+                + micros(reflectiveCold / COLD_ROUNDS) + " us, hand-written "
+                + micros(handWrittenCold / COLD_ROUNDS) + " us");
+        System.out.println("Warm forecast (" + FORECAST_ITEMS + " items), avg per parse: reflective "
+                + micros(reflectiveWarm / WARM_ITERATIONS) + " us, hand-written "
+                + micros(handWrittenWarm / WARM_ITERATIONS) + " us");
+    }
+
+    // 先预热，再取三轮中最快的一轮，减少JIT和GC带来的波动
+    private static long warm(Gson gson, String forecast) {
+        for (int i = 0; i < WARM_ITERATIONS; i++) {
+            gson.fromJson(forecast, ForecastWeather.class);
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < WARM_ITERATIONS; i++) {
+                gson.fromJson(forecast, ForecastWeather.class);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static String currentWeatherJson() {
+        return "{\"coord\":{\"lon\":116.4074,\"lat\":39.9042},"
+                + "\"weather\":[{\"id\":801,\"main\":\"Clouds\",\"description\":\"少云\",\"icon\":\"02d\"}],"
+                + "\"base\":\"stations\","
+                + "\"main\":{\"temp\":293.15,\"feels_like\":292.5,\"temp_min\":291.0,\"temp_max\":295.0,"
+                + "\"pressure\":1012,\"humidity\":60},"
+                + "\"visibility\":10000,\"wind\":{\"speed\":3.1,\"deg\":120},\"clouds\":{\"all\":20},"
+                + "\"dt\":1700000000,\"sys\":{\"type\":1,\"id\":9609,\"country\":\"CN\","
+                + "\"sunrise\":1699999000,\"sunset\":1700036000},"
+                + "\"timezone\":28800,\"id\":1816670,\"name\":\"北京市\",\"cod\":200}";
+    }
+
+    private static String forecastJson() {
+        StringBuilder json = new StringBuilder("{\"cod\":\"200\",\"message\":0,\"cnt\":")
+                .append(FORECAST_ITEMS).append(",\"list\":[");
+        for (int i = 0; i < FORECAST_ITEMS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            boolean daytime = (i % 8) >= 2 && (i % 8) < 6;
+            json.append("{\"dt\":").append(1700000000L + i * 10800L)
+                    .append(",\"main\":{\"temp\":").append(285 + i % 8)
+                    .append(",\"feels_like\":284.1,\"temp_min\":284.0,\"temp_max\":290.5,\"pressure\":1015,")
+                    .append("\"sea_level\":1015,\"grnd_level\":1010,\"humidity\":70,\"temp_kf\":0.5},")
+                    .append("\"weather\":[{\"id\":500,\"main\":\"Rain\",\"description\":\"小雨\",\"icon\":\"10")
+                    .append(daytime ? 'd' : 'n').append("\"}],")
+                    .append("\"clouds\":{\"all\":75},\"wind\":{\"speed\":4.2,\"deg\":200,\"gust\":7.1},")
+                    .append("\"visibility\":10000,\"pop\":0.45,")
+                    .append(i % 3 == 0 ? "\"rain\":{\"3h\":0.8}," : "")
+                    .append("\"sys\":{\"pod\":\"").append(daytime ? 'd' : 'n').append("\"},")
+                    .append("\"dt_txt\":\"2023-11-14 22:13:20\"}");
+        }
+        return json.append("],\"city\":{\"id\":1816670,\"name\":\"北京市\",")
+                .append("\"coord\":{\"lat\":39.9042,\"lon\":116.4074},\"country\":\"CN\",")
+                .append("\"population\":1000,\"timezone\":28800,\"sunrise\":1699999000,\"sunset\":1700036000}}")
+                .toString();
+    }
+}
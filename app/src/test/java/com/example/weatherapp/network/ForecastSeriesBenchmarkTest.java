@@ -0,0 +1,225 @@
+package com.example.weatherapp.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.weatherapp.model.ForecastSeries;
+import com.example.weatherapp.model.ForecastWeather;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式解析的ForecastSeries与Gson解析的ForecastWeather对象树的对比
+ * 先确认两种方式得到的预报字段一致，再测量预热后的解析耗时和每份预报常驻的堆内存
+ */
+public class ForecastSeriesBenchmarkTest {
+    private static final int WARM_ITERATIONS = 2000;
+    private static final int FORECAST_ITEMS = 40;
+    // 测量常驻内存时同时保留的预报份数，摊薄GC统计的误差
+    private static final int RETAINED_COPIES = 500;
+
+    // 天气状况：代码、描述、图标（不含昼夜后缀）
+    private static final Object[][] CONDITIONS = {
+            {800, "晴", "01"},
+            {801, "少云", "02"},
+            {803, "多云", "04"},
+            {500, "小雨", "10"},
+            {501, "中雨", "10"},
+            {600, "小雪", "13"},
+    };
+
+    private interface ForecastParser {
+        Object parse(String json) throws IOException;
+    }
+
+    private static final ForecastParser OBJECT_GRAPH =
+            json -> GsonProvider.get().fromJson(json, ForecastWeather.class);
+    private static final ForecastParser STREAMING =
+            json -> ForecastSeriesParser.parse(new JsonReader(new StringReader(json)));
+
+    @Test
+    public void seriesMatchesObjectGraph() throws IOException {
+        String json = forecastJson(0);
+        assertSameSeries(ForecastSeries.from(GsonProvider.get().fromJson(json, ForecastWeather.class)),
+                (ForecastSeries) STREAMING.parse(json));
+    }
+
+    @Test
+    public void missingAndNullFieldsMatchObjectGraph() throws IOException {
+        // 没有main/weather/wind、字段为null、多个天气状况和空天气数组
+        String json = "{\"cnt\":4,\"list\":["
+                + "{\"dt\":1700010800,\"pop\":null,\"weather\":[]},"
+                + "{\"dt\":1700000000,\"main\":{\"temp\":280.5},\"weather\":[{\"id\":500,\"description\":null}],"
+                + "\"rain\":{\"1h\":0.3},\"sys\":{\"pod\":null}},"
+                + "{\"dt\":1700021600,\"weather\":[{\"id\":211,\"icon\":\"11d\"},{\"id\":500,\"icon\":\"10d\"}],"
+                + "\"wind\":{\"speed\":null,\"deg\":90},\"snow\":{\"3h\":1.5},\"sys\":{\"pod\":\"d\"}},"
+                + "{\"dt\":1700032400,\"main\":null,\"weather\":null,\"pop\":1}"
+                + "],\"city\":null}";
+        ForecastSeries expected = ForecastSeries.from(GsonProvider.get().fromJson(json, ForecastWeather.class));
+        ForecastSeries actual = (ForecastSeries) STREAMING.parse(json);
+        assertSameSeries(expected, actual);
+
+        // 乱序的条目按时间排序
+        assertEquals(1700000000L, actual.getEpochSeconds(0));
+        assertEquals(1700010800L, actual.getEpochSeconds(1));
+        assertTrue(Float.isNaN(actual.getTemperature(1)));
+        assertFalse(actual.isTimezoneKnown());
+    }
+
+    @Test
+    public void parseTimeAndRetainedHeap() throws IOException {
+        String json = forecastJson(0);
+
+        long objectGraphNanos = warm(OBJECT_GRAPH, json);
+        long streamingNanos = warm(STREAMING, json);
+
+        long objectGraphBytes = retainedBytesPerForecast(OBJECT_GRAPH);
+        long streamingBytes = retainedBytesPerForecast(STREAMING);
+
+        System.out.println("Warm forecast (" + FORECAST_ITEMS + " items, " + json.length()
+                + " chars), avg per parse: ForecastWeather " + micros(objectGraphNanos / WARM_ITERATIONS)
+                + " us, ForecastSeries " + micros(streamingNanos / WARM_ITERATIONS) + " us");
+        System.out.println("Retained heap per forecast: ForecastWeather " + objectGraphBytes
+                + " bytes, ForecastSeries " + streamingBytes + " bytes");
+        assertTrue(streamingBytes < objectGraphBytes);
+    }
+
+    // 先预热，再取三轮中最快的一轮，减少JIT和GC带来的波动
+    private static long warm(ForecastParser parser, String json) throws IOException {
+        for (int i = 0; i < WARM_ITERATIONS; i++) {
+            parser.parse(json);
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < WARM_ITERATIONS; i++) {
+                parser.parse(json);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    // 同时保留多份不同城市的解析结果，按GC后已用堆内存的增量计算每份的大小；JSON字符串在测量前生成，不计入
+    private static long retainedBytesPerForecast(ForecastParser parser) throws IOException {
+        String[] payloads = new String[RETAINED_COPIES];
+        for (int i = 0; i < RETAINED_COPIES; i++) {
+            payloads[i] = forecastJson(i);
+        }
+        Object[] retained = new Object[RETAINED_COPIES];
+        long before = usedHeap();
+        for (int i = 0; i < RETAINED_COPIES; i++) {
+            retained[i] = parser.parse(payloads[i]);
+        }
+        long after = usedHeap();
+        for (Object forecast : retained) {
+            assertNotNull(forecast);
+        }
+        return (after - before) / RETAINED_COPIES;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static void assertSameSeries(ForecastSeries expected, ForecastSeries actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getCityName(), actual.getCityName());
+        assertEquals(expected.isTimezoneKnown(), actual.isTimezoneKnown());
+        assertEquals(expected.getTimezoneOffsetSeconds(), actual.getTimezoneOffsetSeconds());
+        for (int i = 0; i < expected.size(); i++) {
+            String item = "item " + i;
+            assertEquals(item, expected.getEpochSeconds(i), actual.getEpochSeconds(i));
+            assertEquals(item, expected.getTemperature(i), actual.getTemperature(i), 0);
+            assertEquals(item, expected.getMinTemperature(i), actual.getMinTemperature(i), 0);
+            assertEquals(item, expected.getMaxTemperature(i), actual.getMaxTemperature(i), 0);
+            assertEquals(item, expected.hasCondition(i), actual.hasCondition(i));
+            assertEquals(item, expected.getConditionCode(i), actual.getConditionCode(i));
+            assertEquals(item, expected.getDescription(i), actual.getDescription(i));
+            assertEquals(item, expected.getIcon(i), actual.getIcon(i));
+            assertEquals(item, expected.getPopPercent(i), actual.getPopPercent(i));
+            assertEquals(item, expected.getRain3h(i), actual.getRain3h(i), 0);
+            assertEquals(item, expected.getSnow3h(i), actual.getSnow3h(i), 0);
+            assertEquals(item, expected.getWindSpeed(i), actual.getWindSpeed(i), 0);
+            assertEquals(item, expected.getWindDegree(i), actual.getWindDegree(i));
+            assertEquals(item, expected.getPartOfDay(i), actual.getPartOfDay(i));
+        }
+    }
+
+    // 与/data/2.5/forecast响应格式相同的5天预报，seed不同时城市、温度和天气不同
+    private static String forecastJson(int seed) {
+        StringBuilder json = new StringBuilder("{\"cod\":\"200\",\"message\":0,\"cnt\":")
+                .append(FORECAST_ITEMS).append(",\"list\":[");
+        long start = 1700006400L;
+        for (int i = 0; i < FORECAST_ITEMS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            boolean daytime = (i % 8) >= 2 && (i % 8) < 6;
+            char pod = daytime ? 'd' : 'n';
+            Object[] condition = CONDITIONS[(i / 3 + seed) % CONDITIONS.length];
+            int code = (Integer) condition[0];
+            double temp = 270 + (seed % 25) + (i % 8) * 1.37 + (i / 8) * 0.61;
+            long dt = start + i * 10800L;
+            json.append("{\"dt\":").append(dt)
+                    .append(",\"main\":{\"temp\":").append(round2(temp))
+                    .append(",\"feels_like\":").append(round2(temp - 1.8))
+                    .append(",\"temp_min\":").append(round2(temp - 0.9))
+                    .append(",\"temp_max\":").append(round2(temp + 0.6))
+                    .append(",\"pressure\":1016,\"sea_level\":1016,\"grnd_level\":1011,\"humidity\":")
+                    .append(55 + i % 30).append(",\"temp_kf\":0.74},")
+                    .append("\"weather\":[{\"id\":").append(code)
+                    .append(",\"main\":\"").append(code >= 800 ? "Clouds" : code >= 600 ? "Snow" : "Rain")
+                    .append("\",\"description\":\"").append(condition[1])
+                    .append("\",\"icon\":\"").append(condition[2]).append(pod).append("\"}],")
+                    .append("\"clouds\":{\"all\":").append((i * 13 + seed) % 101).append("},")
+                    .append("\"wind\":{\"speed\":").append(round2(1.2 + (i % 7) * 0.83))
+                    .append(",\"deg\":").append((i * 37 + seed) % 360)
+                    .append(",\"gust\":").append(round2(2.5 + (i % 5) * 1.1)).append("},")
+                    .append("\"visibility\":10000,\"pop\":").append(code < 800 ? round2(0.2 + (i % 4) * 0.2) : 0)
+                    .append(',');
+            if (code >= 500 && code < 600) {
+                json.append("\"rain\":{\"3h\":").append(round2(0.11 + (i % 5) * 0.37)).append("},");
+            } else if (code >= 600 && code < 700) {
+                json.append("\"snow\":{\"3h\":").append(round2(0.05 + (i % 3) * 0.21)).append("},");
+            }
+            json.append("\"sys\":{\"pod\":\"").append(pod).append("\"},")
+                    .append("\"dt_txt\":\"").append(dtText(dt)).append("\"}");
+        }
+        return json.append("],\"city\":{\"id\":").append(1816670 + seed)
+                .append(",\"name\":\"City ").append(seed).append("\",")
+                .append("\"coord\":{\"lat\":39.9042,\"lon\":116.4074},\"country\":\"CN\",")
+                .append("\"population\":1000,\"timezone\":28800,\"sunrise\":1699999000,\"sunset\":1700036000}}")
+                .toString();
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    // dt对应的UTC时间，格式与API的dt_txt相同
+    private static String dtText(long epochSeconds) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(epochSeconds * 1000));
+    }
+}
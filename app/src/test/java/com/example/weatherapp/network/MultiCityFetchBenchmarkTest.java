@@ -0,0 +1,238 @@
+package com.example.weatherapp.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.weatherapp.model.CurrentWeather;
+import com.example.weatherapp.model.CurrentWeatherGroup;
+import com.example.weatherapp.model.ForecastSeries;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * 多城市模式的基准测试：本地模拟服务端上的100个城市
+ * 对比逐个城市请求当前天气和按group接口分批请求的请求数与耗时，并检查预报请求的并发上限
+ */
+public class MultiCityFetchBenchmarkTest {
+    private static final int CITY_COUNT = 100;
+    // 模拟服务端每个请求的处理时间
+    private static final long SERVER_LATENCY_MILLIS = 30;
+    private static final String API_KEY = "test";
+
+    private MockWebServer server;
+    private WeatherApiService service;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger inFlightForecasts = new AtomicInteger();
+    private final AtomicInteger maxInFlightForecasts = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                requestCount.incrementAndGet();
+                String path = request.getRequestUrl().encodedPath();
+                if (path.endsWith("/group")) {
+                    Thread.sleep(SERVER_LATENCY_MILLIS);
+                    return new MockResponse().setBody(groupJson(request.getRequestUrl().queryParameter("id")));
+                }
+                if (path.endsWith("/forecast")) {
+                    int inFlight = inFlightForecasts.incrementAndGet();
+                    maxInFlightForecasts.accumulateAndGet(inFlight, Math::max);
+                    try {
+                        Thread.sleep(SERVER_LATENCY_MILLIS);
+                    } finally {
+                        inFlightForecasts.decrementAndGet();
+                    }
+                    return new MockResponse().setBody(forecastJson(request.getRequestUrl().queryParameter("id")));
+                }
+                Thread.sleep(SERVER_LATENCY_MILLIS);
+                return new MockResponse().setBody(currentWeatherJson(1, 0, 0));
+            }
+        });
+        server.start();
+
+        // 与应用相同的Gson和默认的OkHttp调度器（每个主机最多5个并发请求）
+        service = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(new OkHttpClient())
+                .addConverterFactory(new ForecastSeriesConverterFactory())
+                .addConverterFactory(GsonConverterFactory.create(GsonProvider.get()))
+                .build()
+                .create(WeatherApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void groupBatchesCoverAllCitiesInFiveRequests() {
+        List<String> batches = WeatherRepository.groupIdBatches(cityIds());
+        assertEquals(5, batches.size());
+        int total = 0;
+        for (String batch : batches) {
+            int size = batch.split(",").length;
+            assertTrue(size <= WeatherRepository.MAX_CITIES_PER_GROUP);
+            total += size;
+        }
+        assertEquals(CITY_COUNT, total);
+    }
+
+    @Test
+    public void batchedCurrentWeatherVersusPerCityRequests() throws Exception {
+        // 逐个城市请求
+        final CountDownLatch single = new CountDownLatch(CITY_COUNT);
+        final AtomicInteger singleCities = new AtomicInteger();
+        requestCount.set(0);
+        long singleStart = System.nanoTime();
+        for (int i = 0; i < CITY_COUNT; i++) {
+            service.getCurrentWeather(i, i, API_KEY).enqueue(new CountingCallback<CurrentWeather>(single) {
+                @Override
+                void onBody(CurrentWeather body) {
+                    singleCities.incrementAndGet();
+                }
+            });
+        }
+        assertTrue(single.await(60, TimeUnit.SECONDS));
+        long singleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - singleStart);
+        int singleRequests = requestCount.get();
+
+        // 按group接口分批请求
+        List<String> batches = WeatherRepository.groupIdBatches(cityIds());
+        final CountDownLatch grouped = new CountDownLatch(batches.size());
+        final AtomicInteger groupedCities = new AtomicInteger();
+        requestCount.set(0);
+        long groupedStart = System.nanoTime();
+        for (String ids : batches) {
+            service.getCurrentWeatherGroup(ids, API_KEY).enqueue(new CountingCallback<CurrentWeatherGroup>(grouped) {
+                @Override
+                void onBody(CurrentWeatherGroup body) {
+                    groupedCities.addAndGet(body.getList().size());
+                }
+            });
+        }
+        assertTrue(grouped.await(60, TimeUnit.SECONDS));
+        long groupedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - groupedStart);
+        int groupedRequests = requestCount.get();
+
+        System.out.println("Per-city: " + singleRequests + " requests, " + singleMillis + " ms; "
+                + "group: " + groupedRequests + " requests, " + groupedMillis + " ms");
+        assertEquals(CITY_COUNT, singleCities.get());
+        assertEquals(CITY_COUNT, groupedCities.get());
+        assertEquals(CITY_COUNT, singleRequests);
+        assertEquals(5, groupedRequests);
+    }
+
+    @Test
+    public void forecastGateCapsConcurrentRequests() throws Exception {
+        RequestGate gate = new RequestGate(3);
+        final CountDownLatch done = new CountDownLatch(CITY_COUNT);
+        final AtomicInteger forecasts = new AtomicInteger();
+        long start = System.nanoTime();
+        for (final int cityId : cityIds()) {
+            gate.enqueue(() -> service.getForecastSeriesByCityId(cityId, API_KEY),
+                    new CountingCallback<ForecastSeries>(done) {
+                        @Override
+                        void onBody(ForecastSeries body) {
+                            forecasts.incrementAndGet();
+                        }
+                    });
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.println("Forecasts: " + CITY_COUNT + " cities in " + millis + " ms, max "
+                + maxInFlightForecasts.get() + " in flight");
+        assertEquals(CITY_COUNT, forecasts.get());
+        assertTrue(maxInFlightForecasts.get() <= 3);
+    }
+
+    // 每个请求完成时计数，成功时交给onBody
+    private abstract static class CountingCallback<T> implements Callback<T> {
+        private final CountDownLatch latch;
+
+        CountingCallback(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        abstract void onBody(T body);
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            if (response.isSuccessful() && response.body() != null) {
+                onBody(response.body());
+            }
+            latch.countDown();
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            latch.countDown();
+        }
+    }
+
+    private static List<Integer> cityIds() {
+        List<Integer> cityIds = new ArrayList<>(CITY_COUNT);
+        for (int i = 0; i < CITY_COUNT; i++) {
+            cityIds.add(1000 + i);
+        }
+        return cityIds;
+    }
+
+    private static String groupJson(String ids) {
+        String[] cityIds = ids.split(",");
+        StringBuilder json = new StringBuilder("{\"cnt\":").append(cityIds.length).append(",\"list\":[");
+        for (int i = 0; i < cityIds.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(currentWeatherJson(Integer.parseInt(cityIds[i]), i, i));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String currentWeatherJson(int cityId, double latitude, double longitude) {
+        return "{\"coord\":{\"lon\":" + longitude + ",\"lat\":" + latitude + "},"
+                + "\"weather\":[{\"id\":800,\"main\":\"Clear\",\"description\":\"晴\",\"icon\":\"01d\"}],"
+                + "\"main\":{\"temp\":293.15,\"feels_like\":292.5,\"temp_min\":291.0,\"temp_max\":295.0,"
+                + "\"pressure\":1012,\"humidity\":60},"
+                + "\"wind\":{\"speed\":3.1,\"deg\":120},\"clouds\":{\"all\":0},\"dt\":1700000000,"
+                + "\"id\":" + cityId + ",\"name\":\"City " + cityId + "\"}";
+    }
+
+    private static String forecastJson(String cityId) {
+        StringBuilder json = new StringBuilder("{\"cod\":\"200\",\"cnt\":8,\"list\":[");
+        for (int i = 0; i < 8; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"dt\":").append(1700000000L + i * 10800L)
+                    .append(",\"main\":{\"temp\":290.0,\"temp_min\":289.0,\"temp_max\":291.0},")
+                    .append("\"weather\":[{\"id\":500,\"main\":\"Rain\",\"description\":\"小雨\",\"icon\":\"10d\"}],")
+                    .append("\"pop\":0.4,\"sys\":{\"pod\":\"d\"}}");
+        }
+        return json.append("],\"city\":{\"id\":").append(cityId).append(",\"timezone\":28800}}").toString();
+    }
+}
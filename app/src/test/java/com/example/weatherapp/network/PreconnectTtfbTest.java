@@ -0,0 +1,150 @@
+package com.example.weatherapp.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+/**
+ * 预连接前后首个请求的首字节时间（TTFB）对比
+ * 本地HTTPS模拟服务端，每轮使用新的连接池，分别测量直接请求和预连接之后再请求
+ */
+public class PreconnectTtfbTest {
+    private static final int ROUNDS = 20;
+
+    private MockWebServer server;
+    private HandshakeCertificates clientCertificates;
+
+    @Before
+    public void setUp() throws Exception {
+        HeldCertificate localhost = new HeldCertificate.Builder()
+                .addSubjectAlternativeName("localhost")
+                .build();
+        HandshakeCertificates serverCertificates = new HandshakeCertificates.Builder()
+                .heldCertificate(localhost)
+                .build();
+        clientCertificates = new HandshakeCertificates.Builder()
+                .addTrustedCertificate(localhost.certificate())
+                .build();
+
+        server = new MockWebServer();
+        server.useHttps(serverCertificates.sslSocketFactory(), false);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody("{}");
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void preconnectedRequestReusesConnection() throws Exception {
+        long coldTotal = 0;
+        long preconnectedTotal = 0;
+        // 第0轮只用于预热类加载和JIT，不计入结果
+        for (int round = 0; round <= ROUNDS; round++) {
+            TtfbRecorder cold = new TtfbRecorder();
+            fetch(newClient(cold));
+            assertTrue(cold.connected);
+            if (round > 0) {
+                coldTotal += cold.ttfbNanos;
+            }
+
+            TtfbRecorder preconnected = new TtfbRecorder();
+            OkHttpClient client = newClient(preconnected);
+            HttpClientProvider.preconnect(client, server.url("/").toString());
+            awaitIdleConnection(client);
+            preconnected.reset();
+            fetch(client);
+            assertFalse(preconnected.connected);
+            if (round > 0) {
+                preconnectedTotal += preconnected.ttfbNanos;
+            }
+        }
+
+        System.out.println("TTFB of the first request, avg over " + ROUNDS + " rounds: without preconnect "
+                + TimeUnit.NANOSECONDS.toMicros(coldTotal / ROUNDS) + " us, after preconnect "
+                + TimeUnit.NANOSECONDS.toMicros(preconnectedTotal / ROUNDS) + " us");
+        assertEquals((ROUNDS + 1) * 3, server.getRequestCount());
+    }
+
+    // 每轮新的连接池，避免上一轮的连接被复用
+    private OkHttpClient newClient(TtfbRecorder recorder) {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(6, 5, TimeUnit.MINUTES))
+                .sslSocketFactory(clientCertificates.sslSocketFactory(), clientCertificates.trustManager())
+                .eventListener(recorder)
+                .build();
+    }
+
+    private void fetch(OkHttpClient client) throws Exception {
+        Request request = new Request.Builder()
+                .url(server.url("/data/2.5/weather"))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+
+    // 预连接是异步的，等到连接回到连接池
+    private static void awaitIdleConnection(OkHttpClient client) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.connectionPool().idleConnectionCount() == 0) {
+            assertTrue("Preconnect did not finish", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    // 与TtfbEventListener相同的测量方式：从callStart到responseHeadersStart
+    private static class TtfbRecorder extends EventListener {
+        volatile long callStartAt;
+        volatile long ttfbNanos;
+        volatile boolean connected;
+
+        void reset() {
+            ttfbNanos = 0;
+            connected = false;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStartAt = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connected = true;
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            ttfbNanos = System.nanoTime() - callStartAt;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.weatherapp.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.SharedPreferences;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * 服务端返回429时暂停请求并回退到缓存
+ */
+public class RateLimitInterceptorTest {
+    private static final String API_KEY = "test";
+    private static final String PATH = "/data/2.5/forecast?lat=39.9&lon=116.4&appid=" + API_KEY;
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private ApiRateLimiter rateLimiter;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        rateLimiter = new ApiRateLimiter(new InMemoryPreferences());
+        client = new OkHttpClient.Builder()
+                .cache(new Cache(cacheDir.getRoot(), 1024 * 1024))
+                .addInterceptor(new RateLimitInterceptor(rateLimiter))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void tooManyRequestsServesCacheAndPauses() throws Exception {
+        server.enqueue(new MockResponse()
+                .setHeader("Cache-Control", "max-age=0")
+                .setBody("{\"cached\":true}"));
+        server.enqueue(new MockResponse()
+                .setResponseCode(429)
+                .setHeader("Retry-After", "30")
+                .setBody("{\"cod\":429}"));
+
+        assertEquals("{\"cached\":true}", fetch().body);
+
+        Result limited = fetch();
+        assertEquals(200, limited.code);
+        assertEquals("{\"cached\":true}", limited.body);
+        assertTrue(rateLimiter.shouldPreferCache(API_KEY));
+
+        // 暂停期间直接使用缓存，不再访问服务端
+        Result paused = fetch();
+        assertEquals("{\"cached\":true}", paused.body);
+        assertEquals(2, server.getRequestCount());
+        assertEquals(2, ApiRateLimiter.DAILY_QUOTA - rateLimiter.getRemainingDailyQuota(API_KEY));
+    }
+
+    @Test
+    public void tooManyRequestsWithoutCacheKeepsErrorBody() throws Exception {
+        server.enqueue(new MockResponse()
+                .setResponseCode(429)
+                .setHeader("Retry-After", "30")
+                .setBody("{\"cod\":429}"));
+
+        Result result = fetch();
+        assertEquals(429, result.code);
+        assertEquals("{\"cod\":429}", result.body);
+        assertEquals("30", result.retryAfter);
+        assertTrue(rateLimiter.shouldPreferCache(API_KEY));
+    }
+
+    private Result fetch() throws Exception {
+        Request request = new Request.Builder()
+                .url(server.url(PATH))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            Result result = new Result();
+            result.code = response.code();
+            result.body = response.body().string();
+            result.retryAfter = response.header("Retry-After");
+            return result;
+        }
+    }
+
+    private static class Result {
+        int code;
+        String body;
+        String retryAfter;
+    }
+
+    // 只保存在内存中的SharedPreferences
+    private static class InMemoryPreferences implements SharedPreferences {
+        private final Map<String, Object> values = new HashMap<>();
+
+        @Override
+        public Map<String, ?> getAll() {
+            return new HashMap<>(values);
+        }
+
+        @Override
+        public String getString(String key, String defValue) {
+            return values.containsKey(key) ? (String) values.get(key) : defValue;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Set<String> getStringSet(String key, Set<String> defValues) {
+            return values.containsKey(key) ? (Set<String>) values.get(key) : defValues;
+        }
+
+        @Override
+        public int getInt(String key, int defValue) {
+            return values.containsKey(key) ? (Integer) values.get(key) : defValue;
+        }
+
+        @Override
+        public long getLong(String key, long defValue) {
+            return values.containsKey(key) ? (Long) values.get(key) : defValue;
+        }
+
+        @Override
+        public float getFloat(String key, float defValue) {
+            return values.containsKey(key) ? (Float) values.get(key) : defValue;
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            return values.containsKey(key) ? (Boolean) values.get(key) : defValue;
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public Editor edit() {
+            return new InMemoryEditor();
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        }
+
+        private class InMemoryEditor implements Editor {
+            @Override
+            public Editor putString(String key, String value) {
+                values.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putStringSet(String key, Set<String> value) {
+                values.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putInt(String key, int value) {
+                values.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putLong(String key, long value) {
+                values.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putFloat(String key, float value) {
+                values.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor putBoolean(String key, boolean value) {
+                values.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor remove(String key) {
+                values.remove(key);
+                return this;
+            }
+
+            @Override
+            public Editor clear() {
+                values.clear();
+                return this;
+            }
+
+            @Override
+            public boolean commit() {
+                return true;
+            }
+
+            @Override
+            public void apply() {
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.weatherapp.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * 服务端出错时回退到磁盘缓存中的过期数据
+ */
+public class StaleIfErrorInterceptorTest {
+    private static final String PATH = "/data/2.5/weather?lat=39.9&lon=116.4&appid=test";
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient.Builder()
+                .cache(new Cache(cacheDir.getRoot(), 1024 * 1024))
+                .addInterceptor(new StaleIfErrorInterceptor())
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void serverErrorServesStaleCache() throws Exception {
+        // 先写入缓存，max-age=0使下一次请求一定访问服务端
+        server.enqueue(new MockResponse()
+                .setHeader("Cache-Control", "max-age=0")
+                .setBody("{\"cached\":true}"));
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("server error"));
+
+        assertEquals("{\"cached\":true}", fetch().body);
+
+        Result result = fetch();
+        assertEquals(200, result.code);
+        assertEquals("{\"cached\":true}", result.body);
+        assertNotNull(result.cacheResponse);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void serverErrorWithoutCacheKeepsErrorBody() throws Exception {
+        server.enqueue(new MockResponse()
+                .setResponseCode(503)
+                .setHeader("Content-Type", "application/json")
+                .setBody("{\"cod\":503}"));
+
+        Result result = fetch();
+        assertEquals(503, result.code);
+        assertEquals("{\"cod\":503}", result.body);
+        assertEquals("application/json", result.contentType);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void networkFailureServesStaleCache() throws Exception {
+        server.enqueue(new MockResponse()
+                .setHeader("Cache-Control", "max-age=0")
+                .setBody("{\"cached\":true}"));
+        fetch();
+        server.shutdown();
+
+        Result result = fetch();
+        assertEquals(200, result.code);
+        assertEquals("{\"cached\":true}", result.body);
+    }
+
+    private Result fetch() throws Exception {
+        Request request = new Request.Builder()
+                .url(server.url(PATH))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            Result result = new Result();
+            result.code = response.code();
+            result.body = response.body().string();
+            result.contentType = response.header("Content-Type");
+            result.cacheResponse = response.cacheResponse();
+            return result;
+        }
+    }
+
+    private static class Result {
+        int code;
+        String body;
+        String contentType;
+        Response cacheResponse;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.weatherapp.utils;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TimeUtils与原来每次调用新建SimpleDateFormat的实现的耗时对比
+ * 输入为一份5天预报的40个dt_txt，与MainActivity和适配器中的调用方式相同；每个方法都要求快10倍以上
+ */
+public class TimeUtilsBenchmarkTest {
+    private static final String API_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+    private static final int ITERATIONS = 1000;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int FORECAST_ITEMS = 40;
+    private static final long MIN_SPEEDUP = 10;
+
+    private interface TimeFunction {
+        Object apply(String dateTimeStr) throws ParseException;
+    }
+
+    private TimeZone defaultTimeZone;
+    private Locale defaultLocale;
+    private String[] inputs;
+
+    @Before
+    public void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+        defaultLocale = Locale.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        Locale.setDefault(Locale.SIMPLIFIED_CHINESE);
+        inputs = forecastTimes();
+    }
+
+    @After
+    public void restoreDefaults() {
+        TimeZone.setDefault(defaultTimeZone);
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void formatApiDateTime() throws ParseException {
+        compare("formatApiDateTime",
+                input -> referenceFormat(input, "MM-dd HH:mm"),
+                TimeUtils::formatApiDateTime);
+    }
+
+    @Test
+    public void formatDateWithWeek() throws ParseException {
+        compare("formatDateWithWeek",
+                input -> referenceFormat(input, "MM-dd EEEE"),
+                TimeUtils::formatDateWithWeek);
+    }
+
+    @Test
+    public void extractDate() throws ParseException {
+        compare("extractDate",
+                input -> referenceFormat(input, "yyyy-MM-dd"),
+                TimeUtils::extractDate);
+    }
+
+    @Test
+    public void parseApiDateTime() throws ParseException {
+        compare("parseApiDateTime",
+                input -> new SimpleDateFormat(API_DATE_FORMAT, Locale.getDefault()).parse(input),
+                TimeUtils::parseApiDateTime);
+    }
+
+    @Test
+    public void isForecastTimePast() throws ParseException {
+        compare("isForecastTimePast",
+                input -> new SimpleDateFormat(API_DATE_FORMAT, Locale.getDefault()).parse(input).getTime()
+                        < System.currentTimeMillis(),
+                TimeUtils::isForecastTimePast);
+    }
+
+    private void compare(String name, TimeFunction reference, TimeFunction timeUtils) throws ParseException {
+        // 两种实现都预热后再计时，交替进行多轮并各取最快的一轮，减少JIT和GC带来的波动
+        run(reference);
+        run(timeUtils);
+        long referenceNanos = Long.MAX_VALUE;
+        long timeUtilsNanos = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            referenceNanos = Math.min(referenceNanos, run(reference));
+            timeUtilsNanos = Math.min(timeUtilsNanos, run(timeUtils));
+        }
+        long calls = (long) ITERATIONS * inputs.length;
+        System.out.println(name + ", avg per call: SimpleDateFormat " + referenceNanos / calls
+                + " ns, TimeUtils " + timeUtilsNanos / calls + " ns ("
+                + referenceNanos / Math.max(1, timeUtilsNanos) + "x)");
+        assertTrue(name + " speedup below " + MIN_SPEEDUP + "x",
+                referenceNanos >= timeUtilsNanos * MIN_SPEEDUP);
+    }
+
+    // 对全部输入调用ITERATIONS遍，返回耗时
+    private long run(TimeFunction function) throws ParseException {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (String input : inputs) {
+                function.apply(input);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    // 改为按位置解析之前的实现：每次调用新建两个SimpleDateFormat
+    private static String referenceFormat(String input, String pattern) throws ParseException {
+        Date date = new SimpleDateFormat(API_DATE_FORMAT, Locale.getDefault()).parse(input);
+        return new SimpleDateFormat(pattern, Locale.getDefault()).format(date);
+    }
+
+    // 每3小时一个的预报时间，与API的dt_txt格式相同
+    private static String[] forecastTimes() {
+        SimpleDateFormat format = new SimpleDateFormat(API_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String[] times = new String[FORECAST_ITEMS];
+        long start = 1700006400000L;
+        for (int i = 0; i < FORECAST_ITEMS; i++) {
+            times[i] = format.format(new Date(start + i * TimeUnit.HOURS.toMillis(3)));
+        }
+        return times;
+    }
+}
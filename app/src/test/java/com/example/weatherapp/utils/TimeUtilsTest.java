@@ -0,0 +1,191 @@
+package com.example.weatherapp.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * TimeUtils按固定位置解析的结果与原来基于SimpleDateFormat的实现对比
+ * 覆盖一年多内每小时的时间、闰日、夏令时切换，以及走回退路径的格式错误的字符串
+ */
+public class TimeUtilsTest {
+    private static final String API_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    private static final String[] TIME_ZONES = {"Asia/Shanghai", "America/New_York", "Australia/Lord_Howe", "UTC"};
+    private static final Locale[] LOCALES = {Locale.SIMPLIFIED_CHINESE, Locale.US, Locale.GERMANY};
+
+    // 不符合固定格式或取值超出范围，走SimpleDateFormat回退路径的字符串
+    private static final String[] MALFORMED = {
+            "",
+            "abc",
+            "2024-05-06",
+            "2024-05-06 10:00",
+            "2024-05-06T10:00:00",
+            "2024/05/06 10:00:00",
+            "2024-5-6 7:08:09",
+            "2024-02-30 10:00:00",
+            "2023-02-29 12:00:00",
+            "2024-13-01 00:00:00",
+            "2024-00-10 00:00:00",
+            "2024-05-06 24:00:00",
+            "2024-05-06 10:60:00",
+            "2024-05-06 10:00:61",
+            "2024-05-06 10:00:00 UTC",
+            "0000-01-01 00:00:00",
+            "２０２４-05-06 10:00:00",
+            "2024-05-06 1a:00:00",
+            "not a date at all",
+    };
+
+    private TimeZone defaultTimeZone;
+    private Locale defaultLocale;
+
+    @Before
+    public void saveDefaults() {
+        defaultTimeZone = TimeZone.getDefault();
+        defaultLocale = Locale.getDefault();
+    }
+
+    @After
+    public void restoreDefaults() {
+        TimeZone.setDefault(defaultTimeZone);
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void wellFormedInputsMatchSimpleDateFormat() throws Exception {
+        List<String> inputs = hourlyInputs();
+        for (String timeZone : TIME_ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+            for (Locale locale : LOCALES) {
+                Locale.setDefault(locale);
+                for (String input : inputs) {
+                    if (!existsInDefaultTimeZone(input)) {
+                        continue;
+                    }
+                    String context = input + " in " + timeZone + "/" + locale;
+                    assertEquals(context, referenceFormat(input, "MM-dd HH:mm"), TimeUtils.formatApiDateTime(input));
+                    assertEquals(context, referenceFormat(input, "HH:mm"), TimeUtils.formatApiTime(input));
+                    assertEquals(context, referenceFormat(input, "MM-dd EEEE"), TimeUtils.formatDateWithWeek(input));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void malformedInputsMatchFallback() {
+        for (String timeZone : TIME_ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+            for (Locale locale : LOCALES) {
+                Locale.setDefault(locale);
+                for (String input : MALFORMED) {
+                    String context = "\"" + input + "\" in " + timeZone + "/" + locale;
+                    assertEquals(context, referenceFormatApiDateTime(input), TimeUtils.formatApiDateTime(input));
+                    assertEquals(context, referenceFormatApiTime(input), TimeUtils.formatApiTime(input));
+                    assertEquals(context, referenceFormatDateWithWeek(input), TimeUtils.formatDateWithWeek(input));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void weekLabelFollowsLocaleChange() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        Locale.setDefault(Locale.SIMPLIFIED_CHINESE);
+        assertEquals("02-29 星期四", TimeUtils.formatDateWithWeek("2024-02-29 12:00:00"));
+        Locale.setDefault(Locale.US);
+        assertEquals("02-29 Thursday", TimeUtils.formatDateWithWeek("2024-02-29 12:00:00"));
+    }
+
+    @Test
+    public void timeZoneChangeTakesEffectImmediately() throws Exception {
+        Locale.setDefault(Locale.US);
+        String input = "2024-05-06 10:00:00";
+        long timestamp = 1714989600000L; // 2024-05-06 10:00:00 UTC
+        for (String timeZone : TIME_ZONES) {
+            // 切换时区后马上调用，结果应与按新时区新建的SimpleDateFormat相同
+            TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+            assertEquals(timeZone, new SimpleDateFormat("HH:mm", Locale.US).format(new Date(timestamp)),
+                    TimeUtils.formatTime(timestamp));
+            assertEquals(timeZone, new SimpleDateFormat(API_DATE_FORMAT, Locale.US).parse(input),
+                    TimeUtils.parseApiDateTime(input));
+        }
+    }
+
+    @Test
+    public void nonexistentLocalTimeKeepsWallClock() {
+        // 纽约2024-03-10 02:00-03:00因夏令时不存在，SimpleDateFormat会顺延到03:30，
+        // 按位置解析直接保留API给出的时间（API时间本身是UTC，不应受设备时区的夏令时影响）
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        Locale.setDefault(Locale.US);
+        String input = "2024-03-10 02:30:00";
+        assertEquals("03-10 02:30", TimeUtils.formatApiDateTime(input));
+        assertEquals("02:30", TimeUtils.formatApiTime(input));
+        assertEquals("03-10 Sunday", TimeUtils.formatDateWithWeek(input));
+    }
+
+    // 2023-12-25到2025-01-05每小时一个时间，分钟和秒随小时变化，包含闰日和夏令时切换
+    private static List<String> hourlyInputs() {
+        SimpleDateFormat format = new SimpleDateFormat(API_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        List<String> inputs = new ArrayList<>();
+        long start = 1703462400000L; // 2023-12-25 00:00:00 UTC
+        long end = 1736035200000L; // 2025-01-05 00:00:00 UTC
+        int step = 0;
+        for (long millis = start; millis < end; millis += 3_600_000L, step++) {
+            long offset = (step % 60) * 60_000L + (step % 7) * 1000L;
+            inputs.add(format.format(new Date(millis + offset)));
+        }
+        return inputs;
+    }
+
+    // 夏令时开始时跳过的本地时间，SimpleDateFormat会顺延，单独在nonexistentLocalTimeKeepsWallClock中验证
+    private static boolean existsInDefaultTimeZone(String input) throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat(API_DATE_FORMAT, Locale.getDefault());
+        return format.format(format.parse(input)).equals(input);
+    }
+
+    private static String referenceFormat(String input, String pattern) throws ParseException {
+        Date date = new SimpleDateFormat(API_DATE_FORMAT, Locale.getDefault()).parse(input);
+        return new SimpleDateFormat(pattern, Locale.getDefault()).format(date);
+    }
+
+    // 以下为改为按位置解析之前的实现
+    private static String referenceFormatApiDateTime(String dateTimeStr) {
+        try {
+            return referenceFormat(dateTimeStr, "MM-dd HH:mm");
+        } catch (ParseException e) {
+            return dateTimeStr;
+        }
+    }
+
+    private static String referenceFormatApiTime(String dateTimeStr) {
+        try {
+            return referenceFormat(dateTimeStr, "HH:mm");
+        } catch (ParseException e) {
+            String[] parts = dateTimeStr.split(" ");
+            if (parts.length > 1 && parts[1].length() >= 5) {
+                return parts[1].substring(0, 5);
+            }
+            return dateTimeStr;
+        }
+    }
+
+    private static String referenceFormatDateWithWeek(String dateTimeStr) {
+        try {
+            return referenceFormat(dateTimeStr, "MM-dd EEEE");
+        } catch (ParseException e) {
+            return dateTimeStr;
+        }
+    }
+}